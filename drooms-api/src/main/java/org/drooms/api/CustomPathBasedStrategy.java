@@ -19,6 +19,10 @@ import edu.uci.ics.jung.graph.Graph;
  * <dt>UnweightedAStarShortestPath from the game implementation package.</dt>
  * <dd>This is an experimental implementation of an algorithm that is supposed
  * to be the best.</dd>
+ * <dt>JumpPointSearchShortestPath from the game implementation package.</dt>
+ * <dd>A* that skips over straight stretches of the playground. Finds paths as
+ * short as the other algorithms, but considerably faster on open
+ * playgrounds.</dd>
  * <dt>Your own.</dt>
  * <dd>Just make sure that when no path is found, the implementation returns
  * empty collection. {@link DijkstraShortestPath} throws exception in such case
@@ -33,6 +33,26 @@ public interface Game {
      */
     public Map<Player, Integer> play(Playground playground, Collection<Player> players, File reportFolder);
 
+    /**
+     * Initialize the game and play it through, telling the listeners about
+     * every turn as it is played. Otherwise the same as
+     * {@link #play(Playground, Collection, File)}.
+     * 
+     * @param playground
+     *            The playground on which this game will be played out.
+     * @param players
+     *            A list of players to participate in the game.
+     * @param reportFolder
+     *            Where to output data, if necessary.
+     * @param turnListeners
+     *            Listeners to tell about every turn of the game. They may be
+     *            called from another thread, but all of them will have been
+     *            told about the last turn by the time this method returns.
+     * @return Points gained by each player.
+     */
+    public Map<Player, Integer> play(Playground playground, Collection<Player> players, File reportFolder,
+            Collection<TurnListener> turnListeners);
+
     /**
      * Sets the context for this game. The context should provide properties
      * that the game should use to decide various situations.
@@ -1,17 +1,63 @@
 package org.drooms.api;
 
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A single indivisible place on the {@link Playground}, where (part of) a worm
  * or a wall can be located.
+ * 
+ * There is only ever one instance of a node with any given co-ordinates, so
+ * nodes can be compared by identity.
  */
 public class Node implements Comparable<Node> {
 
+    /**
+     * Flat array of nodes, indexed by their co-ordinates, for the area where
+     * the playgrounds are. Starts at [-1, -1], since playgrounds are
+     * surrounded by walls. Only ever holds nodes that are already in
+     * {@link Node#NODES}.
+     */
+    private static final class NodeTable {
+
+        private final int width, height;
+        private final Node[] nodes;
+
+        public NodeTable(final int width, final int height) {
+            this.width = width;
+            this.height = height;
+            this.nodes = new Node[width * height];
+        }
+
+        public int getIndex(final int x, final int y) {
+            final int tableX = x + 1;
+            final int tableY = y + 1;
+            if (tableX < 0 || tableX >= this.width || tableY < 0 || tableY >= this.height) {
+                return -1;
+            }
+            return tableY * this.width + tableX;
+        }
+
+        public NodeTable resize(final int width, final int height) {
+            final NodeTable table = new NodeTable(width, height);
+            for (final Node n : this.nodes) {
+                if (n != null) {
+                    table.nodes[table.getIndex(n.getX(), n.getY())] = n;
+                }
+            }
+            return table;
+        }
+
+    }
+
+    private static final int MAX_TABLE_DIMENSION = 2048;
+
     private final int x, y;
 
-    private static final SortedMap<Integer, SortedMap<Integer, Node>> nodes = new TreeMap<Integer, SortedMap<Integer, Node>>();
+    private static final ConcurrentMap<Long, Node> NODES = new ConcurrentHashMap<Long, Node>();
+
+    private static final AtomicReference<NodeTable> TABLE = new AtomicReference<NodeTable>(new NodeTable(64, 64));
 
     /**
      * Get a node with particular co-ordinates.
@@ -22,15 +68,58 @@ public class Node implements Comparable<Node> {
      *            Vertical co-ordinate.
      * @return The node.
      */
-    public static synchronized Node getNode(final int x, final int y) {
-        if (!Node.nodes.containsKey(x)) {
-            Node.nodes.put(x, new TreeMap<Integer, Node>());
+    public static Node getNode(final int x, final int y) {
+        final NodeTable table = Node.TABLE.get();
+        final int index = table.getIndex(x, y);
+        if (index >= 0) {
+            final Node n = table.nodes[index];
+            if (n != null) {
+                return n;
+            }
+        }
+        return Node.internNode(x, y, table);
+    }
+
+    private static NodeTable growTable(final int x, final int y, final NodeTable table) {
+        if (x < -1 || y < -1) {
+            // will never fit
+            return table;
+        }
+        final int width = Math.max(table.width, Integer.highestOneBit(x + 1) * 2);
+        final int height = Math.max(table.height, Integer.highestOneBit(y + 1) * 2);
+        if (width > Node.MAX_TABLE_DIMENSION || height > Node.MAX_TABLE_DIMENSION) {
+            return table;
+        }
+        final NodeTable newTable = table.resize(width, height);
+        if (Node.TABLE.compareAndSet(table, newTable)) {
+            return newTable;
+        } else {
+            // somebody else has grown the table in the meantime
+            return Node.TABLE.get();
+        }
+    }
+
+    private static Node internNode(final int x, final int y, final NodeTable table) {
+        final Long key = ((long) x << 32) | (y & 0xFFFFFFFFL);
+        Node n = Node.NODES.get(key);
+        if (n == null) {
+            final Node newNode = new Node(x, y);
+            n = Node.NODES.putIfAbsent(key, newNode);
+            if (n == null) {
+                n = newNode;
+            }
+        }
+        // make the node available for the faster lookup
+        NodeTable target = table;
+        int index = target.getIndex(x, y);
+        if (index < 0) {
+            target = Node.growTable(x, y, table);
+            index = target.getIndex(x, y);
         }
-        final SortedMap<Integer, Node> ys = Node.nodes.get(x);
-        if (!ys.containsKey(y)) {
-            ys.put(y, new Node(x, y));
+        if (index >= 0) {
+            target.nodes[index] = n;
         }
-        return ys.get(y);
+        return n;
     }
 
     private Node(final int x, final int y) {
@@ -1,11 +1,12 @@
 package org.drooms.api;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.drools.KnowledgeBase;
 import org.drools.KnowledgeBaseConfiguration;
 import org.drools.KnowledgeBaseFactory;
-import org.drools.builder.KnowledgeBuilder;
 import org.drools.conf.EventProcessingOption;
 import org.drools.conf.PermGenThresholdOption;
 import org.drools.definition.KnowledgePackage;
@@ -18,13 +19,79 @@ import edu.uci.ics.jung.graph.Graph;
  */
 public class Player {
 
+    /**
+     * Identifies the compiled strategy that a knowledge base is built from.
+     * Only the very same instances are considered the same.
+     */
+    private static final class KnowledgeBaseKey {
+
+        private final CustomPathBasedStrategy strategy;
+        private final ClassLoader classLoader;
+        private final Collection<KnowledgePackage> packages;
+
+        public KnowledgeBaseKey(final CustomPathBasedStrategy strategy, final ClassLoader classLoader,
+                final Collection<KnowledgePackage> packages) {
+            this.strategy = strategy;
+            this.classLoader = classLoader;
+            this.packages = packages;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof KnowledgeBaseKey)) {
+                return false;
+            }
+            final KnowledgeBaseKey other = (KnowledgeBaseKey) obj;
+            return this.strategy == other.strategy && this.classLoader == other.classLoader
+                    && this.packages == other.packages;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + System.identityHashCode(this.strategy);
+            result = prime * result + System.identityHashCode(this.classLoader);
+            result = prime * result + System.identityHashCode(this.packages);
+            return result;
+        }
+
+    }
+
+    /**
+     * Knowledge bases most recently used, least recently used first. Bounded,
+     * so that the strategies of long finished games can go away.
+     */
+    private static final class KnowledgeBaseCache extends LinkedHashMap<KnowledgeBaseKey, KnowledgeBase> {
+
+        private static final long serialVersionUID = -6021773212546578924L;
+
+        private static final int MAX_SIZE = 16;
+
+        public KnowledgeBaseCache() {
+            super(KnowledgeBaseCache.MAX_SIZE, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<KnowledgeBaseKey, KnowledgeBase> eldest) {
+            return this.size() > KnowledgeBaseCache.MAX_SIZE;
+        }
+
+    }
+
+    private static final Map<KnowledgeBaseKey, KnowledgeBase> KNOWLEDGE_BASES = new KnowledgeBaseCache();
+
     private final String name;
     private final CustomPathBasedStrategy strategy;
     private final Collection<KnowledgePackage> packages;
     private final ClassLoader classLoader;
+    private KnowledgeBase knowledgeBase = null;
 
     /**
-     * Create a player instance.
+     * Create a player instance, compiling the player's strategy.
      * 
      * @param name
      *            Name of the player.
@@ -34,11 +101,28 @@ public class Player {
      *            Class loader used to load player's strategy.
      */
     public Player(final String name, final CustomPathBasedStrategy strategy, final ClassLoader strategyClassLoader) {
-        if (name == null || strategy == null || strategyClassLoader == null) {
+        this(name, strategy, strategyClassLoader, (strategy == null || strategyClassLoader == null) ? null : strategy
+                .getKnowledgeBuilder(strategyClassLoader).getKnowledgePackages());
+    }
+
+    /**
+     * Create a player instance from a strategy that has already been compiled.
+     * 
+     * @param name
+     *            Name of the player.
+     * @param strategy
+     *            Strategy of the player.
+     * @param strategyClassLoader
+     *            Class loader used to load player's strategy.
+     * @param packages
+     *            Knowledge packages compiled from the strategy.
+     */
+    public Player(final String name, final CustomPathBasedStrategy strategy, final ClassLoader strategyClassLoader,
+            final Collection<KnowledgePackage> packages) {
+        if (name == null || strategy == null || strategyClassLoader == null || packages == null) {
             throw new IllegalArgumentException("None of the parameters can be null.");
         }
-        final KnowledgeBuilder kb = strategy.getKnowledgeBuilder(strategyClassLoader);
-        this.packages = kb.getKnowledgePackages();
+        this.packages = packages;
         this.strategy = strategy;
         this.name = name;
         this.classLoader = strategyClassLoader;
@@ -52,9 +136,9 @@ public class Player {
     }
 
     /**
-     * Retrieve the player's strategy.
+     * Build a new knowledge base with the player's strategy.
      * 
-     * @return The strategy.
+     * @return The knowledge base, not shared with anyone.
      */
     public KnowledgeBase constructKnowledgeBase() {
         final KnowledgeBaseConfiguration kbconf = KnowledgeBaseFactory.newKnowledgeBaseConfiguration(null,
@@ -67,6 +151,38 @@ public class Player {
         return kbase;
     }
 
+    /**
+     * Retrieve the knowledge base with the player's strategy. Building one is
+     * expensive, therefore players with the very same strategy, class loader
+     * and knowledge packages share it, and so do all the games they take part
+     * in. Every game creates its own session from it. Only a few of the most
+     * recently used knowledge bases are kept for the players to come; the
+     * player keeps its own for as long as it lives.
+     * 
+     * @return The knowledge base.
+     */
+    public synchronized KnowledgeBase getKnowledgeBase() {
+        if (this.knowledgeBase != null) {
+            return this.knowledgeBase;
+        }
+        final KnowledgeBaseKey key = new KnowledgeBaseKey(this.strategy, this.classLoader, this.packages);
+        synchronized (Player.KNOWLEDGE_BASES) {
+            this.knowledgeBase = Player.KNOWLEDGE_BASES.get(key);
+        }
+        if (this.knowledgeBase == null) {
+            // don't keep the other players waiting while building
+            final KnowledgeBase built = this.constructKnowledgeBase();
+            synchronized (Player.KNOWLEDGE_BASES) {
+                this.knowledgeBase = Player.KNOWLEDGE_BASES.get(key);
+                if (this.knowledgeBase == null) {
+                    Player.KNOWLEDGE_BASES.put(key, built);
+                    this.knowledgeBase = built;
+                }
+            }
+        }
+        return this.knowledgeBase;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (this == obj) {
@@ -0,0 +1,346 @@
+package org.drooms.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything that happened in a single turn of the {@link Game}. Immutable;
+ * use {@link Builder} to create it.
+ */
+public class Turn {
+
+    /**
+     * Assembles a {@link Turn} as it is being played.
+     */
+    public static class Builder {
+
+        private final int number;
+        private final List<Player> deactivatedPlayers = new ArrayList<>();
+        private final List<PlayerMove> playerMoves = new ArrayList<>();
+        private final List<Player> crashedPlayers = new ArrayList<>();
+        private final List<PlayerReward> survivedPlayers = new ArrayList<>();
+        private final List<CollectiblePlacement> removedCollectibles =
+                new ArrayList<>();
+        private final List<CollectibleCollection> collectedCollectibles =
+                new ArrayList<>();
+        private final List<CollectiblePlacement> addedCollectibles =
+                new ArrayList<>();
+
+        /**
+         * Start assembling a turn.
+         * 
+         * @param number
+         *            Number of the turn, starting from 0.
+         */
+        public Builder(final int number) {
+            if (number < 0) {
+                throw new IllegalArgumentException(
+                        "Turn number must not be negative.");
+            }
+            this.number = number;
+        }
+
+        public Builder addCollectible(final Collectible c, final Node where) {
+            this.addedCollectibles.add(new CollectiblePlacement(c, where));
+            return this;
+        }
+
+        public Turn build() {
+            return new Turn(this);
+        }
+
+        public Builder collectCollectible(final Collectible c,
+                final Player p, final Node where, final int points) {
+            this.collectedCollectibles.add(new CollectibleCollection(c, p,
+                    where, points));
+            return this;
+        }
+
+        public Builder crashPlayer(final Player p) {
+            this.crashedPlayers.add(p);
+            return this;
+        }
+
+        public Builder deactivatePlayer(final Player p) {
+            this.deactivatedPlayers.add(p);
+            return this;
+        }
+
+        public Builder movePlayer(final Player p, final Move m,
+                final Node... nodes) {
+            this.playerMoves.add(new PlayerMove(p, m, nodes));
+            return this;
+        }
+
+        public Builder removeCollectible(final Collectible c,
+                final Node where) {
+            this.removedCollectibles.add(new CollectiblePlacement(c, where));
+            return this;
+        }
+
+        public Builder rewardSurvival(final Player p, final int points) {
+            this.survivedPlayers.add(new PlayerReward(p, points));
+            return this;
+        }
+
+    }
+
+    /**
+     * A {@link Collectible} collected by a {@link Player}'s worm.
+     */
+    public static class CollectibleCollection {
+
+        private final Collectible collectible;
+        private final Player player;
+        private final Node node;
+        private final int points;
+
+        private CollectibleCollection(final Collectible c, final Player p,
+                final Node where, final int points) {
+            this.collectible = c;
+            this.player = p;
+            this.node = where;
+            this.points = points;
+        }
+
+        public Collectible getCollectible() {
+            return this.collectible;
+        }
+
+        public Node getNode() {
+            return this.node;
+        }
+
+        public Player getPlayer() {
+            return this.player;
+        }
+
+        public int getPoints() {
+            return this.points;
+        }
+
+    }
+
+    /**
+     * A {@link Collectible} appearing at or disappearing from a {@link Node}.
+     */
+    public static class CollectiblePlacement {
+
+        private final Collectible collectible;
+        private final Node node;
+
+        private CollectiblePlacement(final Collectible c, final Node where) {
+            this.collectible = c;
+            this.node = where;
+        }
+
+        public Collectible getCollectible() {
+            return this.collectible;
+        }
+
+        public Node getNode() {
+            return this.node;
+        }
+
+    }
+
+    /**
+     * A {@link Player}'s worm after a {@link Move}.
+     */
+    public static class PlayerMove {
+
+        private final Player player;
+        private final Move move;
+        private final List<Node> nodes;
+
+        private PlayerMove(final Player p, final Move m, final Node... nodes) {
+            this.player = p;
+            this.move = m;
+            this.nodes = Collections.unmodifiableList(new ArrayList<Node>(
+                    Arrays.asList(nodes)));
+        }
+
+        public Move getMove() {
+            return this.move;
+        }
+
+        /**
+         * Where the worm is after the move.
+         * 
+         * @return Unmodifiable list of nodes, head first.
+         */
+        public List<Node> getNodes() {
+            return this.nodes;
+        }
+
+        public Player getPlayer() {
+            return this.player;
+        }
+
+    }
+
+    /**
+     * Points awarded to a {@link Player}.
+     */
+    public static class PlayerReward {
+
+        private final Player player;
+        private final int points;
+
+        private PlayerReward(final Player p, final int points) {
+            this.player = p;
+            this.points = points;
+        }
+
+        public Player getPlayer() {
+            return this.player;
+        }
+
+        public int getPoints() {
+            return this.points;
+        }
+
+    }
+
+    private final int number;
+    private final List<Player> deactivatedPlayers;
+    private final List<PlayerMove> playerMoves;
+    private final List<Player> crashedPlayers;
+    private final List<PlayerReward> survivedPlayers;
+    private final List<CollectiblePlacement> removedCollectibles;
+    private final List<CollectibleCollection> collectedCollectibles;
+    private final List<CollectiblePlacement> addedCollectibles;
+
+    private Turn(final Builder builder) {
+        this.number = builder.number;
+        this.deactivatedPlayers = Turn.copy(builder.deactivatedPlayers);
+        this.playerMoves = Turn.copy(builder.playerMoves);
+        this.crashedPlayers = Turn.copy(builder.crashedPlayers);
+        this.survivedPlayers = Turn.copy(builder.survivedPlayers);
+        this.removedCollectibles = Turn.copy(builder.removedCollectibles);
+        this.collectedCollectibles = Turn.copy(builder.collectedCollectibles);
+        this.addedCollectibles = Turn.copy(builder.addedCollectibles);
+    }
+
+    private static <T> List<T> copy(final List<T> list) {
+        if (list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<T>(list));
+    }
+
+    /**
+     * Retrieve the collectibles that appeared in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<CollectiblePlacement> getAddedCollectibles() {
+        return this.addedCollectibles;
+    }
+
+    /**
+     * Retrieve the collectibles collected in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<CollectibleCollection> getCollectedCollectibles() {
+        return this.collectedCollectibles;
+    }
+
+    /**
+     * Retrieve the players whose worms crashed in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<Player> getCrashedPlayers() {
+        return this.crashedPlayers;
+    }
+
+    /**
+     * Retrieve the players whose worms were deactivated in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<Player> getDeactivatedPlayers() {
+        return this.deactivatedPlayers;
+    }
+
+    /**
+     * Retrieve the worms' moves in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<PlayerMove> getMovedPlayers() {
+        return this.playerMoves;
+    }
+
+    /**
+     * Retrieve the number of the turn.
+     * 
+     * @return Starting from 0.
+     */
+    public int getNumber() {
+        return this.number;
+    }
+
+    /**
+     * Retrieve the collectibles that expired in this turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<CollectiblePlacement> getRemovedCollectibles() {
+        return this.removedCollectibles;
+    }
+
+    /**
+     * Retrieve the players rewarded for surviving other worms in this
+     * turn.
+     * 
+     * @return Unmodifiable list.
+     */
+    public List<PlayerReward> getSurvivedPlayers() {
+        return this.survivedPlayers;
+    }
+
+    /**
+     * Report this turn to a listener that expects one call per event. The
+     * events are reported in the order in which the game resolves them:
+     * deactivations, moves, crashes, survival rewards, expired collectibles,
+     * collected collectibles and new collectibles.
+     * 
+     * @param listener
+     *            The listener to report to. Will receive
+     *            {@link GameProgressListener#nextTurn()} first.
+     */
+    public void report(final GameProgressListener listener) {
+        listener.nextTurn();
+        for (final Player p : this.deactivatedPlayers) {
+            listener.playerDeactivated(p);
+        }
+        for (final PlayerMove move : this.playerMoves) {
+            listener.playerMoved(move.getPlayer(), move.getMove(), move
+                    .getNodes().toArray(new Node[move.getNodes().size()]));
+        }
+        for (final Player p : this.crashedPlayers) {
+            listener.playerCrashed(p);
+        }
+        for (final PlayerReward reward : this.survivedPlayers) {
+            listener.playerSurvived(reward.getPlayer(), reward.getPoints());
+        }
+        for (final CollectiblePlacement placement : this.removedCollectibles) {
+            listener.collectibleRemoved(placement.getCollectible(),
+                    placement.getNode());
+        }
+        for (final CollectibleCollection c : this.collectedCollectibles) {
+            listener.collectibleCollected(c.getCollectible(), c.getPlayer(),
+                    c.getNode(), c.getPoints());
+        }
+        for (final CollectiblePlacement placement : this.addedCollectibles) {
+            listener.collectibleAdded(placement.getCollectible(),
+                    placement.getNode());
+        }
+    }
+
+}
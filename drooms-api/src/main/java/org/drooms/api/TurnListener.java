@@ -0,0 +1,19 @@
+package org.drooms.api;
+
+/**
+ * Tracks progress of the game one whole {@link Turn} at a time. Unlike
+ * {@link GameProgressListener}, it receives everything that happened in the
+ * turn in a single call.
+ */
+public interface TurnListener {
+
+    /**
+     * Called once for every turn of the game, in the order in which they were
+     * played.
+     * 
+     * @param turn
+     *            Everything that happened in the turn.
+     */
+    public void turnPlayed(Turn turn);
+
+}
@@ -1,5 +1,12 @@
 package org.drooms.api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -35,4 +42,43 @@ public class NodeTest {
         Assert.assertEquals(n1, n2);
     }
 
+    @Test
+    public void testGetNodeConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Node[]>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(new Callable<Node[]>() {
+
+                @Override
+                public Node[] call() {
+                    final Node[] nodes = new Node[300 * 300];
+                    for (int x = 0; x < 300; x++) {
+                        for (int y = 0; y < 300; y++) {
+                            nodes[x * 300 + y] = Node.getNode(x + 100, y + 100);
+                        }
+                    }
+                    return nodes;
+                }
+
+            }));
+        }
+        executor.shutdown();
+        final Node[] expected = results.get(0).get();
+        for (final Future<Node[]> result : results) {
+            final Node[] actual = result.get();
+            for (int i = 0; i < expected.length; i++) {
+                Assert.assertSame(expected[i], actual[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testGetNodeFarAway() {
+        final Node n1 = Node.getNode(-10, 100000);
+        final Node n2 = Node.getNode(-10, 100000);
+        Assert.assertSame(n1, n2);
+        Assert.assertEquals(-10, n1.getX());
+        Assert.assertEquals(100000, n1.getY());
+    }
+
 }
@@ -2,9 +2,12 @@ package org.drooms.api;
 
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Collection;
 
+import org.drools.KnowledgeBase;
 import org.drools.builder.KnowledgeBuilder;
 import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.definition.KnowledgePackage;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -61,6 +64,50 @@ public class PlayerTest {
         new Player("test", null, PlayerTest.obtainClassLoader());
     }
 
+    @Test
+    public void testKnowledgeBaseConstructedFresh() {
+        final Player p = new Player("test", PlayerTest.obtainStrategy(), PlayerTest.obtainClassLoader());
+        Assert.assertNotSame(p.constructKnowledgeBase(), p.constructKnowledgeBase());
+        Assert.assertNotSame(p.getKnowledgeBase(), p.constructKnowledgeBase());
+    }
+
+    @Test
+    public void testKnowledgeBaseReused() {
+        final CustomPathBasedStrategy strategy = PlayerTest.obtainStrategy();
+        final ClassLoader loader = PlayerTest.obtainClassLoader();
+        final Player p1 = new Player("test", strategy, loader);
+        final Player p2 = new Player("test2", strategy, loader);
+        Assert.assertSame(p1.getKnowledgeBase(), p1.getKnowledgeBase());
+        // compiled separately
+        Assert.assertNotSame(p1.getKnowledgeBase(), p2.getKnowledgeBase());
+    }
+
+    @Test
+    public void testKnowledgeBaseShared() {
+        final CustomPathBasedStrategy strategy = PlayerTest.obtainStrategy();
+        final ClassLoader loader = PlayerTest.obtainClassLoader();
+        final Collection<KnowledgePackage> packages = strategy.getKnowledgeBuilder(loader).getKnowledgePackages();
+        final Player p1 = new Player("test", strategy, loader, packages);
+        final Player p2 = new Player("test2", strategy, loader, packages);
+        Assert.assertSame(p1.getKnowledgeBase(), p2.getKnowledgeBase());
+        Assert.assertNotSame(p1.getKnowledgeBase(), new Player("test3", strategy, PlayerTest.obtainClassLoader(),
+                packages).getKnowledgeBase());
+        Assert.assertNotSame(p1.getKnowledgeBase(), new Player("test4", PlayerTest.obtainStrategy(), loader,
+                packages).getKnowledgeBase());
+    }
+
+    @Test
+    public void testKnowledgeBaseCacheBounded() {
+        final CustomPathBasedStrategy strategy = PlayerTest.obtainStrategy();
+        final ClassLoader loader = PlayerTest.obtainClassLoader();
+        final Collection<KnowledgePackage> packages = strategy.getKnowledgeBuilder(loader).getKnowledgePackages();
+        final KnowledgeBase kbase = new Player("test", strategy, loader, packages).getKnowledgeBase();
+        for (int i = 0; i < 100; i++) {
+            new Player("other" + i, PlayerTest.obtainStrategy(), loader, packages).getKnowledgeBase();
+        }
+        Assert.assertNotSame(kbase, new Player("test2", strategy, loader, packages).getKnowledgeBase());
+    }
+
     public void testEquals() {
         final CustomPathBasedStrategy strategy = PlayerTest.obtainStrategy();
         final ClassLoader loader = PlayerTest.obtainClassLoader();
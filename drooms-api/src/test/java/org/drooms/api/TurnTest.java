@@ -0,0 +1,169 @@
+package org.drooms.api;
+
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.drools.builder.KnowledgeBuilder;
+import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.definition.KnowledgePackage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+import edu.uci.ics.jung.graph.Graph;
+
+public class TurnTest {
+
+    /**
+     * Remembers the calls, in the order in which they came.
+     */
+    private static class RecordingListener implements GameProgressListener {
+
+        private final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void collectibleAdded(final Collectible c, final Node where) {
+            this.calls.add("collectibleAdded " + where);
+        }
+
+        @Override
+        public void collectibleCollected(final Collectible c, final Player p, final Node where, final int points) {
+            this.calls.add("collectibleCollected " + p.getName() + " " + where + " " + points);
+        }
+
+        @Override
+        public void collectibleRemoved(final Collectible c, final Node where) {
+            this.calls.add("collectibleRemoved " + where);
+        }
+
+        public List<String> getCalls() {
+            return this.calls;
+        }
+
+        @Override
+        public void nextTurn() {
+            this.calls.add("nextTurn");
+        }
+
+        @Override
+        public void playerCrashed(final Player p) {
+            this.calls.add("playerCrashed " + p.getName());
+        }
+
+        @Override
+        public void playerDeactivated(final Player p) {
+            this.calls.add("playerDeactivated " + p.getName());
+        }
+
+        @Override
+        public void playerMoved(final Player p, final Move m, final Node... nodes) {
+            this.calls.add("playerMoved " + p.getName() + " " + m + " " + Arrays.asList(nodes));
+        }
+
+        @Override
+        public void playerSurvived(final Player p, final int points) {
+            this.calls.add("playerSurvived " + p.getName() + " " + points);
+        }
+
+        @Override
+        public void write(final Writer w) {
+            // nothing to write
+        }
+
+    }
+
+    private static Player obtainPlayer(final String name) {
+        final CustomPathBasedStrategy strategy = new CustomPathBasedStrategy() {
+
+            @Override
+            public boolean enableAudit() {
+                return false;
+            }
+
+            @Override
+            public KnowledgeBuilder getKnowledgeBuilder(final ClassLoader cls) {
+                return KnowledgeBuilderFactory.newKnowledgeBuilder();
+            }
+
+            @Override
+            public String getName() {
+                return "Testing";
+            }
+
+            @Override
+            public ShortestPath<Node, Edge> getShortestPathAlgorithm(final Graph<Node, Edge> graph) {
+                return new UnweightedShortestPath<Node, Edge>(graph);
+            }
+        };
+        return new Player(name, strategy, new URLClassLoader(new URL[0]),
+                Collections.<KnowledgePackage> emptyList());
+    }
+
+    @SuppressWarnings("unused")
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderNegativeNumber() {
+        new Turn.Builder(-1);
+    }
+
+    @Test
+    public void testEmpty() {
+        final Turn turn = new Turn.Builder(5).build();
+        Assert.assertEquals(5, turn.getNumber());
+        Assert.assertTrue(turn.getAddedCollectibles().isEmpty());
+        Assert.assertTrue(turn.getCollectedCollectibles().isEmpty());
+        Assert.assertTrue(turn.getCrashedPlayers().isEmpty());
+        Assert.assertTrue(turn.getDeactivatedPlayers().isEmpty());
+        Assert.assertTrue(turn.getMovedPlayers().isEmpty());
+        Assert.assertTrue(turn.getRemovedCollectibles().isEmpty());
+        Assert.assertTrue(turn.getSurvivedPlayers().isEmpty());
+        final RecordingListener listener = new RecordingListener();
+        turn.report(listener);
+        Assert.assertEquals(Collections.singletonList("nextTurn"), listener.getCalls());
+    }
+
+    @Test
+    public void testImmutable() {
+        final Player p = TurnTest.obtainPlayer("a");
+        final Node[] nodes = new Node[] { Node.getNode(1, 1), Node.getNode(1, 2) };
+        final Turn.Builder builder = new Turn.Builder(0).movePlayer(p, Move.UP, nodes);
+        final Turn turn = builder.build();
+        builder.crashPlayer(p);
+        nodes[0] = Node.getNode(5, 5);
+        Assert.assertTrue(turn.getCrashedPlayers().isEmpty());
+        Assert.assertEquals(Arrays.asList(Node.getNode(1, 1), Node.getNode(1, 2)), turn.getMovedPlayers().get(0)
+                .getNodes());
+        try {
+            turn.getMovedPlayers().get(0).getNodes().clear();
+            Assert.fail("Nodes should not be modifiable.");
+        } catch (final UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReport() {
+        final Player a = TurnTest.obtainPlayer("a");
+        final Player b = TurnTest.obtainPlayer("b");
+        final Node n = Node.getNode(1, 1);
+        // add the events in a different order than they should be reported
+        final Turn turn = new Turn.Builder(3).addCollectible(new Collectible(1), n)
+                .collectCollectible(new Collectible(2), a, n, 2).removeCollectible(new Collectible(3), n)
+                .rewardSurvival(a, 5).crashPlayer(b).movePlayer(a, Move.STAY, n).deactivatePlayer(b).build();
+        Assert.assertEquals(3, turn.getNumber());
+        Assert.assertEquals(Collections.singletonList(b), turn.getCrashedPlayers());
+        Assert.assertEquals(a, turn.getCollectedCollectibles().get(0).getPlayer());
+        Assert.assertEquals(5, turn.getSurvivedPlayers().get(0).getPoints());
+        final RecordingListener listener = new RecordingListener();
+        turn.report(listener);
+        Assert.assertEquals(Arrays.asList("nextTurn", "playerDeactivated b", "playerMoved a STAY [" + n + "]",
+                "playerCrashed b", "playerSurvived a 5", "collectibleRemoved " + n, "collectibleCollected a " + n
+                        + " 2", "collectibleAdded " + n), listener.getCalls());
+    }
+
+}
@@ -0,0 +1,58 @@
+package org.drooms.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Converts the replays written by {@link BinaryReplayListener} to the XML
+ * reports written by {@link XmlProgressListener}.
+ */
+public class BinaryReplayConverter {
+
+    /**
+     * Convert a replay to the XML report.
+     * 
+     * @param replayFile
+     *            The replay to read.
+     * @param reportFile
+     *            Where to write the report.
+     * @throws IOException
+     *             When the replay cannot be read or the report written.
+     */
+    public static void convert(final File replayFile, final File reportFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(replayFile)))) {
+            final BinaryReplayFormat.Header header = BinaryReplayFormat.Header.read(in, replayFile.toString());
+            final List<String> players = header.getPlayers();
+            final XmlProgressListener report = new XmlProgressListener(header.getConfig(), players,
+                    header.getPlayground(), reportFile);
+            try {
+                BinaryReplayReader.readTurns(in, players, report);
+            } finally {
+                report.close();
+            }
+        }
+    }
+
+    /**
+     * Convert a replay to the XML report from the command line.
+     * 
+     * @param args
+     *            The replay file and the report file, in this order.
+     */
+    public static void main(final String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: " + BinaryReplayConverter.class.getName() + " REPLAY_FILE REPORT_FILE");
+            System.exit(-1);
+        }
+        try {
+            BinaryReplayConverter.convert(new File(args[0]), new File(args[1]));
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed converting the replay.", e);
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+package org.drooms.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.Node;
+
+/**
+ * Building blocks of the binary replay format, shared by
+ * {@link BinaryReplayListener}, {@link BinaryReplayConverter} and
+ * {@link BinaryReplayReader}.
+ * 
+ * <p>
+ * The replay starts with {@link #MAGIC}, {@link #VERSION} and a header with the
+ * game configuration, the players and the playground. Every record that
+ * follows starts with one of the record tags, each corresponding to a method
+ * of the {@link org.drooms.api.GameProgressListener}, save for {@link #STATE}.
+ * Players are referred to by their index in the header. Numbers are written as
+ * variable-length integers, signed ones zig-zag encoded first.
+ * </p>
+ * 
+ * <p>
+ * The {@link #END} record is followed by the index: the number of turns and
+ * the keyframe interval, then the offset of every turn's {@link #TURN} record
+ * from the start of the file. The replay ends with the offset of the index and
+ * {@link #MAGIC} again. All the numbers in the index are 4-byte integers, so
+ * that any turn's offset can be looked up directly. Every turn whose number is
+ * divisible by the keyframe interval has its {@link #TURN} record followed by
+ * {@link #STATE}.
+ * </p>
+ */
+final class BinaryReplayFormat {
+
+    /**
+     * What the replay starts with.
+     */
+    public static final class Header {
+
+        /**
+         * Read the header, including {@link BinaryReplayFormat#MAGIC} and the
+         * version.
+         * 
+         * @param in
+         *            Where to read from, positioned at the start of the replay.
+         * @param source
+         *            Description of where the replay comes from, for error
+         *            messages.
+         * @return The header.
+         * @throws IOException
+         *             When it cannot be read, or the replay isn't in a
+         *             supported version.
+         */
+        public static Header read(final DataInput in, final String source) throws IOException {
+            if (in.readInt() != BinaryReplayFormat.MAGIC) {
+                throw new IOException("Not a replay: " + source);
+            }
+            final int version = BinaryReplayFormat.readVarInt(in);
+            if (version < 1 || version > BinaryReplayFormat.VERSION) {
+                throw new IOException("Unsupported replay version " + version + ": " + source);
+            }
+            // game config
+            final int configSize = BinaryReplayFormat.readVarInt(in);
+            final List<Map.Entry<Object, Object>> config = new ArrayList<>(configSize);
+            for (int i = 0; i < configSize; i++) {
+                final String key = BinaryReplayFormat.readString(in);
+                final String value = BinaryReplayFormat.readString(in);
+                config.add(new AbstractMap.SimpleImmutableEntry<Object, Object>(key, value));
+            }
+            // players
+            final int playerCount = BinaryReplayFormat.readVarInt(in);
+            final List<String> players = new ArrayList<>(playerCount);
+            for (int i = 0; i < playerCount; i++) {
+                players.add(BinaryReplayFormat.readString(in));
+            }
+            // playground
+            final int width = BinaryReplayFormat.readVarInt(in);
+            final int height = BinaryReplayFormat.readVarInt(in);
+            final List<Node> playground = new ArrayList<>();
+            int bits = 0;
+            int bitCount = 0;
+            for (int x = -1; x <= width; x++) {
+                for (int y = -1; y <= height; y++) {
+                    if (bitCount == 0) {
+                        bits = in.readUnsignedByte();
+                        bitCount = 8;
+                    }
+                    if ((bits & 1) != 0) {
+                        playground.add(Node.getNode(x, y));
+                    }
+                    bits >>>= 1;
+                    bitCount--;
+                }
+            }
+            return new Header(version, config, players, playground);
+        }
+
+        private final int version;
+        private final List<Map.Entry<Object, Object>> config;
+        private final List<String> players;
+        private final List<Node> playground;
+
+        private Header(final int version, final List<Map.Entry<Object, Object>> config, final List<String> players,
+                final List<Node> playground) {
+            this.version = version;
+            this.config = Collections.unmodifiableList(config);
+            this.players = Collections.unmodifiableList(players);
+            this.playground = Collections.unmodifiableList(playground);
+        }
+
+        public List<Map.Entry<Object, Object>> getConfig() {
+            return this.config;
+        }
+
+        public List<String> getPlayers() {
+            return this.players;
+        }
+
+        /**
+         * Retrieve the nodes of the playground.
+         * 
+         * @return Nodes available to the worms, including those in the
+         *         surrounding walls.
+         */
+        public List<Node> getPlayground() {
+            return this.playground;
+        }
+
+        public int getVersion() {
+            return this.version;
+        }
+
+    }
+
+    public static final int MAGIC = 0x4452504C; // "DRPL"
+
+    public static final int VERSION = 2;
+
+    public static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * A new turn starts. No payload.
+     */
+    public static final int TURN = 0;
+
+    /**
+     * A worm's whole body: player, node count, the head and then the
+     * difference of every other node from the one before it.
+     */
+    public static final int MOVE_KEYFRAME = 1;
+
+    /**
+     * A worm's move relative to its previous body: player, difference of the
+     * new head from the previous one (0, 0 when the head didn't move) and the
+     * number of nodes dropped from the tail.
+     */
+    public static final int MOVE_DELTA = 2;
+
+    /**
+     * Collectible points, its expiration (-1 if none) and where it was added.
+     */
+    public static final int COLLECTIBLE_ADDED = 3;
+
+    /**
+     * Collectible points, its expiration, the player, where the collectible
+     * was and how many points the player got.
+     */
+    public static final int COLLECTIBLE_COLLECTED = 4;
+
+    /**
+     * Collectible points, its expiration and where it was removed from.
+     */
+    public static final int COLLECTIBLE_REMOVED = 5;
+
+    /**
+     * The player whose worm crashed.
+     */
+    public static final int PLAYER_CRASHED = 6;
+
+    /**
+     * The player whose worm was deactivated.
+     */
+    public static final int PLAYER_DEACTIVATED = 7;
+
+    /**
+     * The player who survived and the points they got.
+     */
+    public static final int PLAYER_SURVIVED = 8;
+
+    /**
+     * The game is over and nothing follows.
+     */
+    public static final int END = 9;
+
+    /**
+     * The state of the game before the turn: for every player in the order of
+     * the header, the points they have, whether their worm is still in the
+     * game and its body as in {@link #MOVE_KEYFRAME} (0 nodes if none); then
+     * the number of collectibles on the playground and, for each, the
+     * collectible as in {@link #COLLECTIBLE_ADDED}.
+     */
+    public static final int STATE = 10;
+
+    /**
+     * Size of the index entries and of the numbers in the index header and
+     * trailer, in bytes.
+     */
+    public static final int INDEX_ENTRY_SIZE = 4;
+
+    /**
+     * Size of the index trailer, in bytes: index offset and {@link #MAGIC}.
+     */
+    public static final int INDEX_TRAILER_SIZE = 2 * BinaryReplayFormat.INDEX_ENTRY_SIZE;
+
+    /**
+     * Read a worm's body, as written in {@link #MOVE_KEYFRAME} and
+     * {@link #STATE}.
+     * 
+     * @param in
+     *            Where to read from.
+     * @return Nodes of the body, head first.
+     * @throws IOException
+     *             When it cannot be read.
+     */
+    public static Node[] readBody(final DataInput in) throws IOException {
+        final Node[] nodes = new Node[BinaryReplayFormat.readVarInt(in)];
+        for (int i = 0; i < nodes.length; i++) {
+            if (i == 0) {
+                nodes[i] = BinaryReplayFormat.readNode(in);
+            } else {
+                nodes[i] = Node.getNode(nodes[i - 1].getX() + BinaryReplayFormat.readSignedVarInt(in),
+                        nodes[i - 1].getY() + BinaryReplayFormat.readSignedVarInt(in));
+            }
+        }
+        return nodes;
+    }
+
+    public static Collectible readCollectible(final DataInput in) throws IOException {
+        final int points = BinaryReplayFormat.readSignedVarInt(in);
+        final int expiresInTurn = BinaryReplayFormat.readSignedVarInt(in);
+        return expiresInTurn < 0 ? new Collectible(points) : new Collectible(points, expiresInTurn);
+    }
+
+    public static Node readNode(final DataInput in) throws IOException {
+        final int x = BinaryReplayFormat.readSignedVarInt(in);
+        final int y = BinaryReplayFormat.readSignedVarInt(in);
+        return Node.getNode(x, y);
+    }
+
+    public static int readSignedVarInt(final DataInput in) throws IOException {
+        final int value = BinaryReplayFormat.readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static String readString(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[BinaryReplayFormat.readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, BinaryReplayFormat.CHARSET);
+    }
+
+    public static int readVarInt(final DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer.");
+    }
+
+    public static void writeSignedVarInt(final DataOutput out, final int value) throws IOException {
+        BinaryReplayFormat.writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static void writeString(final DataOutput out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(BinaryReplayFormat.CHARSET);
+        BinaryReplayFormat.writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static void writeVarInt(final DataOutput out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.writeByte(remaining);
+    }
+
+    private BinaryReplayFormat() {
+        // prevent instantiation
+    }
+
+}
@@ -0,0 +1,411 @@
+package org.drooms.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Move;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.api.Turn;
+import org.drooms.api.TurnListener;
+import org.drooms.impl.util.properties.GameProperties;
+
+/**
+ * Writes a compact binary replay of the game to a file as the game goes on.
+ * Unlike the XML report, worm positions are only written whole when they
+ * cannot be described by the movement of the head and the number of nodes
+ * dropped from the tail. Every once in a while, the whole state of the game is
+ * written (in keyframes), and the replay ends with an index of where every
+ * turn starts; {@link BinaryReplayReader} uses both to get to any turn without
+ * reading the whole replay. Use {@link BinaryReplayConverter} to turn the
+ * replay into the XML report. The replay is only complete once the listener is
+ * {@link #close()}d.
+ * 
+ * The game tells the replay about whole {@link Turn}s, as a
+ * {@link TurnListener}; it may also be told event by event.
+ */
+public class BinaryReplayListener implements GameProgressListener, TurnListener, Closeable {
+
+    /**
+     * How many turns there are between two keyframes, by default.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 50;
+
+    private final File replayFile;
+
+    private final DataOutputStream output;
+
+    private final int keyframeInterval;
+
+    private final Map<Player, Integer> playerIndexes = new HashMap<>();
+
+    private final List<Player> players = new ArrayList<>();
+
+    /**
+     * Positions of the worms still in the game, as last written.
+     */
+    private final Map<Player, Node[]> positions = new HashMap<>();
+
+    private final Map<Player, Integer> playerPoints = new HashMap<>();
+
+    private final Set<Player> inactivePlayers = new HashSet<>();
+
+    private final Map<Node, Collectible> collectibles = new LinkedHashMap<>();
+
+    /**
+     * Where the {@link BinaryReplayFormat#TURN} record of every turn starts.
+     */
+    private final List<Integer> turnOffsets = new ArrayList<>();
+
+    private boolean isClosed = false;
+
+    private int turnNumber = 0;
+
+    /**
+     * Start the replay, with a keyframe every
+     * {@link #DEFAULT_KEYFRAME_INTERVAL} turns.
+     * 
+     * @param p
+     *            The playground on which the game is being played.
+     * @param players
+     *            The players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     * @param replayFile
+     *            Where to write the replay.
+     */
+    public BinaryReplayListener(final Playground p, final Collection<Player> players,
+            final GameProperties gameConfig, final File replayFile) {
+        this(p, players, gameConfig, replayFile, BinaryReplayListener.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Start the replay.
+     * 
+     * @param p
+     *            The playground on which the game is being played.
+     * @param players
+     *            The players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     * @param replayFile
+     *            Where to write the replay.
+     * @param keyframeInterval
+     *            How many turns there should be between two keyframes.
+     */
+    public BinaryReplayListener(final Playground p, final Collection<Player> players,
+            final GameProperties gameConfig, final File replayFile, final int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be at least 1.");
+        }
+        this.replayFile = replayFile;
+        this.keyframeInterval = keyframeInterval;
+        try {
+            this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(replayFile)));
+            this.output.writeInt(BinaryReplayFormat.MAGIC);
+            BinaryReplayFormat.writeVarInt(this.output, BinaryReplayFormat.VERSION);
+            // game config
+            final Collection<Map.Entry<Object, Object>> config = gameConfig.getTextEntries();
+            BinaryReplayFormat.writeVarInt(this.output, config.size());
+            for (final Map.Entry<Object, Object> pair : config) {
+                BinaryReplayFormat.writeString(this.output, (String) pair.getKey());
+                BinaryReplayFormat.writeString(this.output, (String) pair.getValue());
+            }
+            // players
+            BinaryReplayFormat.writeVarInt(this.output, players.size());
+            for (final Player player : players) {
+                this.playerIndexes.put(player, this.playerIndexes.size());
+                this.players.add(player);
+                BinaryReplayFormat.writeString(this.output, player.getName());
+            }
+            // playground, including the surrounding walls, one bit per node
+            BinaryReplayFormat.writeVarInt(this.output, p.getWidth());
+            BinaryReplayFormat.writeVarInt(this.output, p.getHeight());
+            int bits = 0;
+            int bitCount = 0;
+            for (int x = -1; x <= p.getWidth(); x++) {
+                for (int y = -1; y <= p.getHeight(); y++) {
+                    if (p.isAvailable(x, y)) {
+                        bits |= 1 << bitCount;
+                    }
+                    bitCount++;
+                    if (bitCount == 8) {
+                        this.output.writeByte(bits);
+                        bits = 0;
+                        bitCount = 0;
+                    }
+                }
+            }
+            if (bitCount > 0) {
+                this.output.writeByte(bits);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed starting the replay: " + replayFile, e);
+        }
+    }
+
+    /**
+     * Finish the replay. Afterwards, the replay file is complete and no more
+     * progress can be reported.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+        try {
+            this.output.writeByte(BinaryReplayFormat.END);
+            final int indexOffset = this.getOffset();
+            this.output.writeInt(this.turnOffsets.size());
+            this.output.writeInt(this.keyframeInterval);
+            for (final int offset : this.turnOffsets) {
+                this.output.writeInt(offset);
+            }
+            this.output.writeInt(indexOffset);
+            this.output.writeInt(BinaryReplayFormat.MAGIC);
+        } finally {
+            this.isClosed = true;
+            this.output.close();
+        }
+    }
+
+    private void addPoints(final Player p, final int points) {
+        final Integer previous = this.playerPoints.get(p);
+        this.playerPoints.put(p, previous == null ? points : previous + points);
+    }
+
+    @Override
+    public void collectibleAdded(final Collectible c, final Node where) {
+        this.collectibles.put(where, c);
+        try {
+            this.output.writeByte(BinaryReplayFormat.COLLECTIBLE_ADDED);
+            this.writeCollectible(c);
+            this.writeNode(where);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void collectibleCollected(final Collectible c, final Player p, final Node where, final int points) {
+        this.collectibles.remove(where);
+        this.addPoints(p, points);
+        try {
+            this.output.writeByte(BinaryReplayFormat.COLLECTIBLE_COLLECTED);
+            this.writeCollectible(c);
+            this.writePlayer(p);
+            this.writeNode(where);
+            BinaryReplayFormat.writeSignedVarInt(this.output, points);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void collectibleRemoved(final Collectible c, final Node where) {
+        this.collectibles.remove(where);
+        try {
+            this.output.writeByte(BinaryReplayFormat.COLLECTIBLE_REMOVED);
+            this.writeCollectible(c);
+            this.writeNode(where);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    private void deactivatePlayer(final Player p) {
+        this.inactivePlayers.add(p);
+        this.positions.remove(p);
+    }
+
+    /**
+     * How many bytes have been written so far.
+     */
+    private int getOffset() {
+        final int offset = this.output.size();
+        if (offset == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Replay too large to be indexed: " + this.replayFile);
+        }
+        return offset;
+    }
+
+    /**
+     * Whether the new position of the worm is the previous one with at most
+     * a new head and without some of the tail, as it is after a regular move.
+     */
+    private boolean isDelta(final Node[] previous, final Node[] current, final int headsAdded) {
+        final int kept = current.length - headsAdded;
+        if (kept < 1 || kept > previous.length) {
+            return false;
+        }
+        for (int i = 0; i < kept; i++) {
+            if (current[i + headsAdded] != previous[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void nextTurn() {
+        this.turnOffsets.add(this.getOffset());
+        try {
+            this.output.writeByte(BinaryReplayFormat.TURN);
+            if (this.turnNumber % this.keyframeInterval == 0) {
+                this.writeState();
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+        this.turnNumber++;
+    }
+
+    @Override
+    public void playerCrashed(final Player p) {
+        this.deactivatePlayer(p);
+        try {
+            this.output.writeByte(BinaryReplayFormat.PLAYER_CRASHED);
+            this.writePlayer(p);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void playerDeactivated(final Player p) {
+        this.deactivatePlayer(p);
+        try {
+            this.output.writeByte(BinaryReplayFormat.PLAYER_DEACTIVATED);
+            this.writePlayer(p);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void playerMoved(final Player p, final Move m, final Node... nodes) {
+        final Node[] previous = this.positions.put(p, nodes);
+        try {
+            if (previous != null && nodes.length > 0) {
+                final int headsAdded = nodes[0] == previous[0] ? 0 : 1;
+                if (this.isDelta(previous, nodes, headsAdded)) {
+                    this.output.writeByte(BinaryReplayFormat.MOVE_DELTA);
+                    this.writePlayer(p);
+                    BinaryReplayFormat.writeSignedVarInt(this.output, nodes[0].getX() - previous[0].getX());
+                    BinaryReplayFormat.writeSignedVarInt(this.output, nodes[0].getY() - previous[0].getY());
+                    BinaryReplayFormat.writeVarInt(this.output, previous.length + headsAdded - nodes.length);
+                    return;
+                }
+            }
+            this.output.writeByte(BinaryReplayFormat.MOVE_KEYFRAME);
+            this.writePlayer(p);
+            this.writeBody(nodes);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void playerSurvived(final Player p, final int points) {
+        this.addPoints(p, points);
+        try {
+            this.output.writeByte(BinaryReplayFormat.PLAYER_SURVIVED);
+            this.writePlayer(p);
+            BinaryReplayFormat.writeSignedVarInt(this.output, points);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed writing the replay: " + this.replayFile, e);
+        }
+    }
+
+    @Override
+    public void turnPlayed(final Turn turn) {
+        turn.report(this);
+    }
+
+    /**
+     * Finish the replay and copy it, converted to the XML report.
+     */
+    @Override
+    public void write(final Writer w) throws IOException {
+        this.close();
+        final File xml = File.createTempFile("drooms-replay-", ".xml");
+        try {
+            BinaryReplayConverter.convert(this.replayFile, xml);
+            try (Reader r = new InputStreamReader(new FileInputStream(xml), BinaryReplayFormat.CHARSET)) {
+                final char[] buffer = new char[8192];
+                int read;
+                while ((read = r.read(buffer)) >= 0) {
+                    w.write(buffer, 0, read);
+                }
+            }
+        } finally {
+            xml.delete();
+        }
+    }
+
+    private void writeBody(final Node[] nodes) throws IOException {
+        BinaryReplayFormat.writeVarInt(this.output, nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            if (i == 0) {
+                this.writeNode(nodes[i]);
+            } else {
+                BinaryReplayFormat.writeSignedVarInt(this.output, nodes[i].getX() - nodes[i - 1].getX());
+                BinaryReplayFormat.writeSignedVarInt(this.output, nodes[i].getY() - nodes[i - 1].getY());
+            }
+        }
+    }
+
+    private void writeCollectible(final Collectible c) throws IOException {
+        BinaryReplayFormat.writeSignedVarInt(this.output, c.getPoints());
+        BinaryReplayFormat.writeSignedVarInt(this.output, c.expiresInTurn());
+    }
+
+    private void writeNode(final Node n) throws IOException {
+        BinaryReplayFormat.writeSignedVarInt(this.output, n.getX());
+        BinaryReplayFormat.writeSignedVarInt(this.output, n.getY());
+    }
+
+    private void writePlayer(final Player p) throws IOException {
+        final Integer index = this.playerIndexes.get(p);
+        if (index == null) {
+            throw new IllegalArgumentException("Player not in the game: " + p);
+        }
+        BinaryReplayFormat.writeVarInt(this.output, index);
+    }
+
+    private void writeState() throws IOException {
+        this.output.writeByte(BinaryReplayFormat.STATE);
+        for (final Player player : this.players) {
+            final Integer points = this.playerPoints.get(player);
+            BinaryReplayFormat.writeSignedVarInt(this.output, points == null ? 0 : points);
+            this.output.writeBoolean(!this.inactivePlayers.contains(player));
+            final Node[] nodes = this.positions.get(player);
+            this.writeBody(nodes == null ? new Node[0] : nodes);
+        }
+        BinaryReplayFormat.writeVarInt(this.output, this.collectibles.size());
+        for (final Map.Entry<Node, Collectible> entry : this.collectibles.entrySet()) {
+            this.writeCollectible(entry.getValue());
+            this.writeNode(entry.getKey());
+        }
+    }
+
+}
@@ -0,0 +1,491 @@
+package org.drooms.impl;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.Node;
+
+/**
+ * Reads the state of the game in any turn from the replays written by
+ * {@link BinaryReplayListener}, without reading the whole replay. The index at
+ * the end of the replay tells where the nearest keyframe is, and only the
+ * turns between the keyframe and the requested turn are read. The turns can
+ * also be read one after another, by a {@link Visitor}.
+ * 
+ * <p>
+ * Not thread-safe.
+ * </p>
+ */
+public class BinaryReplayReader implements Closeable {
+
+    /**
+     * State of the game after a turn.
+     */
+    public static class State {
+
+        private final int turnNumber;
+        private final List<String> players;
+        private final Map<String, Integer> playerPoints = new HashMap<>();
+        private final Map<String, Deque<Node>> positions = new HashMap<>();
+        private final Set<String> inactivePlayers = new HashSet<>();
+        private final Map<Node, Collectible> collectibles = new LinkedHashMap<>();
+
+        private State(final int turnNumber, final List<String> players) {
+            this.turnNumber = turnNumber;
+            this.players = players;
+            for (final String player : players) {
+                this.playerPoints.put(player, 0);
+                this.positions.put(player, new ArrayDeque<Node>());
+            }
+        }
+
+        private void addPoints(final int player, final int points) {
+            final String name = this.players.get(player);
+            this.playerPoints.put(name, this.playerPoints.get(name) + points);
+        }
+
+        private void deactivatePlayer(final int player) {
+            final String name = this.players.get(player);
+            this.inactivePlayers.add(name);
+            this.positions.get(name).clear();
+        }
+
+        /**
+         * Retrieve the collectibles on the playground.
+         * 
+         * @return Unmodifiable map of collectibles by where they are.
+         */
+        public Map<Node, Collectible> getCollectibles() {
+            return Collections.unmodifiableMap(this.collectibles);
+        }
+
+        private Deque<Node> getPlayerPosition(final int player) {
+            return this.positions.get(this.players.get(player));
+        }
+
+        /**
+         * Retrieve where the player's worm is.
+         * 
+         * @param player
+         *            Name of the player.
+         * @return Nodes of the worm, head first. Empty if the worm isn't in
+         *         the game.
+         */
+        public List<Node> getPlayerPosition(final String player) {
+            final Deque<Node> position = this.positions.get(player);
+            if (position == null) {
+                throw new IllegalArgumentException("Player not in the game: " + player);
+            }
+            return Collections.unmodifiableList(new ArrayList<>(position));
+        }
+
+        /**
+         * Retrieve the points the player has so far.
+         * 
+         * @param player
+         *            Name of the player.
+         * @return The points.
+         */
+        public int getPlayerPoints(final String player) {
+            final Integer points = this.playerPoints.get(player);
+            if (points == null) {
+                throw new IllegalArgumentException("Player not in the game: " + player);
+            }
+            return points;
+        }
+
+        public int getTurnNumber() {
+            return this.turnNumber;
+        }
+
+        /**
+         * Whether the player's worm is still in the game.
+         * 
+         * @param player
+         *            Name of the player.
+         * @return False if it crashed or was deactivated.
+         */
+        public boolean isPlayerActive(final String player) {
+            if (!this.playerPoints.containsKey(player)) {
+                throw new IllegalArgumentException("Player not in the game: " + player);
+            }
+            return !this.inactivePlayers.contains(player);
+        }
+
+    }
+
+    /**
+     * Receives the events of the turns as they are read from the replay, with
+     * the players referred to by their names.
+     */
+    public interface Visitor {
+
+        void collectibleAdded(Collectible c, Node where);
+
+        void collectibleCollected(Collectible c, String p, Node where, int points);
+
+        void collectibleRemoved(Collectible c, Node where);
+
+        /**
+         * The events that follow belong to the next turn, the first one
+         * starting with 0.
+         */
+        void nextTurn();
+
+        void playerCrashed(String p);
+
+        void playerDeactivated(String p);
+
+        /**
+         * @param nodes
+         *            Where the worm is after the move, head first.
+         */
+        void playerMoved(String p, Node... nodes);
+
+        void playerSurvived(String p, int points);
+
+    }
+
+    /**
+     * Read a {@link BinaryReplayFormat#STATE} record, without the tag.
+     * 
+     * @param in
+     *            Where to read from.
+     * @param players
+     *            Players in the game, in the order of the header.
+     * @param turnNumber
+     *            The turn that the state will describe.
+     * @return The state.
+     * @throws IOException
+     *             When it cannot be read.
+     */
+    static State readState(final DataInput in, final List<String> players, final int turnNumber)
+            throws IOException {
+        final State state = new State(turnNumber, players);
+        for (int i = 0; i < players.size(); i++) {
+            state.addPoints(i, BinaryReplayFormat.readSignedVarInt(in));
+            final boolean isActive = in.readBoolean();
+            final Node[] nodes = BinaryReplayFormat.readBody(in);
+            if (isActive) {
+                state.getPlayerPosition(i).addAll(Arrays.asList(nodes));
+            } else {
+                state.deactivatePlayer(i);
+            }
+        }
+        final int collectibleCount = BinaryReplayFormat.readVarInt(in);
+        for (int i = 0; i < collectibleCount; i++) {
+            final Collectible c = BinaryReplayFormat.readCollectible(in);
+            state.collectibles.put(BinaryReplayFormat.readNode(in), c);
+        }
+        return state;
+    }
+
+    /**
+     * Read the turns, from the first record of a turn to the
+     * {@link BinaryReplayFormat#END} of the replay.
+     * 
+     * @param in
+     *            Where to read from.
+     * @param players
+     *            Players in the game, in the order of the header.
+     * @param visitor
+     *            Receives the events of the turns.
+     * @throws IOException
+     *             When the turns cannot be read.
+     */
+    static void readTurns(final DataInputStream in, final List<String> players, final Visitor visitor)
+            throws IOException {
+        final List<Deque<Node>> positions = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            positions.add(new ArrayDeque<Node>());
+        }
+        while (true) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case BinaryReplayFormat.TURN:
+                    visitor.nextTurn();
+                    break;
+                case BinaryReplayFormat.MOVE_KEYFRAME: {
+                    final int player = BinaryReplayFormat.readVarInt(in);
+                    final Deque<Node> position = positions.get(player);
+                    position.clear();
+                    position.addAll(Arrays.asList(BinaryReplayFormat.readBody(in)));
+                    visitor.playerMoved(players.get(player), position.toArray(new Node[position.size()]));
+                    break;
+                }
+                case BinaryReplayFormat.MOVE_DELTA: {
+                    final int player = BinaryReplayFormat.readVarInt(in);
+                    final Deque<Node> position = positions.get(player);
+                    final int dx = BinaryReplayFormat.readSignedVarInt(in);
+                    final int dy = BinaryReplayFormat.readSignedVarInt(in);
+                    if (dx != 0 || dy != 0) {
+                        final Node head = position.getFirst();
+                        position.addFirst(Node.getNode(head.getX() + dx, head.getY() + dy));
+                    }
+                    final int removedFromTail = BinaryReplayFormat.readVarInt(in);
+                    for (int i = 0; i < removedFromTail; i++) {
+                        position.removeLast();
+                    }
+                    visitor.playerMoved(players.get(player), position.toArray(new Node[position.size()]));
+                    break;
+                }
+                case BinaryReplayFormat.COLLECTIBLE_ADDED:
+                    visitor.collectibleAdded(BinaryReplayFormat.readCollectible(in), BinaryReplayFormat.readNode(in));
+                    break;
+                case BinaryReplayFormat.COLLECTIBLE_COLLECTED: {
+                    final Collectible c = BinaryReplayFormat.readCollectible(in);
+                    final String player = players.get(BinaryReplayFormat.readVarInt(in));
+                    final Node where = BinaryReplayFormat.readNode(in);
+                    visitor.collectibleCollected(c, player, where, BinaryReplayFormat.readSignedVarInt(in));
+                    break;
+                }
+                case BinaryReplayFormat.COLLECTIBLE_REMOVED:
+                    visitor.collectibleRemoved(BinaryReplayFormat.readCollectible(in),
+                            BinaryReplayFormat.readNode(in));
+                    break;
+                case BinaryReplayFormat.PLAYER_CRASHED:
+                    visitor.playerCrashed(players.get(BinaryReplayFormat.readVarInt(in)));
+                    break;
+                case BinaryReplayFormat.PLAYER_DEACTIVATED:
+                    visitor.playerDeactivated(players.get(BinaryReplayFormat.readVarInt(in)));
+                    break;
+                case BinaryReplayFormat.PLAYER_SURVIVED: {
+                    final String player = players.get(BinaryReplayFormat.readVarInt(in));
+                    visitor.playerSurvived(player, BinaryReplayFormat.readSignedVarInt(in));
+                    break;
+                }
+                case BinaryReplayFormat.STATE:
+                    // only needed when not reading from the start
+                    BinaryReplayReader.readState(in, players, 0);
+                    break;
+                case BinaryReplayFormat.END:
+                    return;
+                default:
+                    throw new IOException("Unknown replay record: " + tag);
+            }
+        }
+    }
+
+    private final File replayFile;
+
+    private final RandomAccessFile file;
+
+    private final BinaryReplayFormat.Header header;
+
+    private final int indexOffset;
+
+    private final int turnCount;
+
+    private final int keyframeInterval;
+
+    /**
+     * Open the replay.
+     * 
+     * @param replayFile
+     *            The replay to read. Must have been completely written.
+     * @throws IOException
+     *             When the replay cannot be read, or has no index.
+     */
+    public BinaryReplayReader(final File replayFile) throws IOException {
+        this.replayFile = replayFile;
+        this.file = new RandomAccessFile(replayFile, "r");
+        try {
+            this.header = BinaryReplayFormat.Header.read(this.open(0), replayFile.toString());
+            final long length = this.file.length();
+            if (this.header.getVersion() < 2 || length < BinaryReplayFormat.INDEX_TRAILER_SIZE) {
+                throw new IOException("Replay has no index: " + replayFile);
+            }
+            this.file.seek(length - BinaryReplayFormat.INDEX_TRAILER_SIZE);
+            this.indexOffset = this.file.readInt();
+            if (this.file.readInt() != BinaryReplayFormat.MAGIC) {
+                throw new IOException("Replay incomplete or damaged: " + replayFile);
+            }
+            this.file.seek(this.indexOffset);
+            this.turnCount = this.file.readInt();
+            this.keyframeInterval = this.file.readInt();
+        } catch (final IOException e) {
+            this.file.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    public List<Map.Entry<Object, Object>> getConfig() {
+        return this.header.getConfig();
+    }
+
+    /**
+     * Retrieve how many turns there are between two keyframes. Reading any
+     * turn never requires reading more turns than that.
+     * 
+     * @return The interval.
+     */
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * Retrieve the players in the game.
+     * 
+     * @return Names of the players.
+     */
+    public List<String> getPlayers() {
+        return this.header.getPlayers();
+    }
+
+    /**
+     * Retrieve the nodes of the playground.
+     * 
+     * @return Nodes available to the worms, including those in the
+     *         surrounding walls.
+     */
+    public List<Node> getPlayground() {
+        return this.header.getPlayground();
+    }
+
+    /**
+     * Retrieve the state of the game after a turn.
+     * 
+     * @param turnNumber
+     *            Number of the turn, starting from 0.
+     * @return The state.
+     * @throws IOException
+     *             When the replay cannot be read.
+     */
+    public State getState(final int turnNumber) throws IOException {
+        if (turnNumber < 0 || turnNumber >= this.turnCount) {
+            throw new IllegalArgumentException("Turn " + turnNumber + " not in the replay, which has "
+                    + this.turnCount + " turns.");
+        }
+        final int keyframe = turnNumber - turnNumber % this.keyframeInterval;
+        final DataInputStream in = this.open(this.getTurnOffset(keyframe));
+        if (in.readUnsignedByte() != BinaryReplayFormat.TURN || in.readUnsignedByte() != BinaryReplayFormat.STATE) {
+            throw new IOException("No keyframe in turn " + keyframe + ": " + this.replayFile);
+        }
+        final State state = BinaryReplayReader.readState(in, this.getPlayers(), turnNumber);
+        int currentTurn = keyframe;
+        while (true) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case BinaryReplayFormat.TURN:
+                    if (currentTurn == turnNumber) {
+                        return state;
+                    }
+                    currentTurn++;
+                    break;
+                case BinaryReplayFormat.MOVE_KEYFRAME: {
+                    final Deque<Node> position = state.getPlayerPosition(BinaryReplayFormat.readVarInt(in));
+                    position.clear();
+                    position.addAll(Arrays.asList(BinaryReplayFormat.readBody(in)));
+                    break;
+                }
+                case BinaryReplayFormat.MOVE_DELTA: {
+                    final Deque<Node> position = state.getPlayerPosition(BinaryReplayFormat.readVarInt(in));
+                    final int dx = BinaryReplayFormat.readSignedVarInt(in);
+                    final int dy = BinaryReplayFormat.readSignedVarInt(in);
+                    if (dx != 0 || dy != 0) {
+                        final Node head = position.getFirst();
+                        position.addFirst(Node.getNode(head.getX() + dx, head.getY() + dy));
+                    }
+                    final int removedFromTail = BinaryReplayFormat.readVarInt(in);
+                    for (int i = 0; i < removedFromTail; i++) {
+                        position.removeLast();
+                    }
+                    break;
+                }
+                case BinaryReplayFormat.COLLECTIBLE_ADDED: {
+                    final Collectible c = BinaryReplayFormat.readCollectible(in);
+                    state.collectibles.put(BinaryReplayFormat.readNode(in), c);
+                    break;
+                }
+                case BinaryReplayFormat.COLLECTIBLE_COLLECTED: {
+                    BinaryReplayFormat.readCollectible(in);
+                    final int player = BinaryReplayFormat.readVarInt(in);
+                    state.collectibles.remove(BinaryReplayFormat.readNode(in));
+                    state.addPoints(player, BinaryReplayFormat.readSignedVarInt(in));
+                    break;
+                }
+                case BinaryReplayFormat.COLLECTIBLE_REMOVED:
+                    BinaryReplayFormat.readCollectible(in);
+                    state.collectibles.remove(BinaryReplayFormat.readNode(in));
+                    break;
+                case BinaryReplayFormat.PLAYER_CRASHED:
+                case BinaryReplayFormat.PLAYER_DEACTIVATED:
+                    state.deactivatePlayer(BinaryReplayFormat.readVarInt(in));
+                    break;
+                case BinaryReplayFormat.PLAYER_SURVIVED: {
+                    final int player = BinaryReplayFormat.readVarInt(in);
+                    state.addPoints(player, BinaryReplayFormat.readSignedVarInt(in));
+                    break;
+                }
+                case BinaryReplayFormat.END:
+                    return state;
+                default:
+                    throw new IOException("Unknown replay record: " + tag);
+            }
+        }
+    }
+
+    /**
+     * Retrieve the number of turns in the replay.
+     * 
+     * @return The number of turns.
+     */
+    public int getTurnCount() {
+        return this.turnCount;
+    }
+
+    private int getTurnOffset(final int turnNumber) throws IOException {
+        // skip the turn count and the keyframe interval
+        this.file.seek(this.indexOffset + (2L + turnNumber) * BinaryReplayFormat.INDEX_ENTRY_SIZE);
+        return this.file.readInt();
+    }
+
+    /**
+     * Start reading the replay at a given position.
+     */
+    private DataInputStream open(final long offset) throws IOException {
+        this.file.seek(offset);
+        // not to be closed, it would close the file
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.file.getChannel())));
+    }
+
+    /**
+     * Read all the turns, in order. Unlike {@link #getState(int)}, this reads
+     * the whole replay; it is meant for going through the game turn by turn.
+     * 
+     * @param visitor
+     *            Receives the events of the turns.
+     * @throws IOException
+     *             When the replay cannot be read.
+     */
+    public void visitTurns(final Visitor visitor) throws IOException {
+        if (this.turnCount == 0) {
+            return;
+        }
+        BinaryReplayReader.readTurns(this.open(this.getTurnOffset(0)), this.getPlayers(), visitor);
+    }
+
+}
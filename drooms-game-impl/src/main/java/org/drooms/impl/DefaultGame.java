@@ -7,7 +7,6 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,8 +26,9 @@ import org.drooms.impl.util.properties.GameProperties.CollectibleType;
  * <dt>Collision detection</dt>
  * <dd>When a worm reaches a node at the same time as another worm, both are
  * terminated. When a worm moves into a body of another worm or into a wall,
- * only this worm is terminated. Specific probabilities and values come from the
- * game config.</dd>
+ * only this worm is terminated. Bodies of the worms that crash into a wall in
+ * the same turn are not considered. Specific probabilities and values come
+ * from the game config.</dd>
  * <dt>Various types of collectibles</dt>
  * <dd>This class implements three types of collectibles with varying
  * probabilities of appearance, expirations and valuations. There are cheap ones
@@ -50,6 +50,11 @@ import org.drooms.impl.util.properties.GameProperties.CollectibleType;
  */
 public class DefaultGame extends GameController {
 
+    private static void increment(final Map<Node, Integer> counts, final Node n) {
+        final Integer count = counts.get(n);
+        counts.put(n, (count == null) ? 1 : count + 1);
+    }
+
     @Override
     protected Map<Collectible, Player> performCollectibleCollection(final Collection<Player> players) {
         final Map<Collectible, Player> collections = new HashMap<Collectible, Player>();
@@ -75,8 +80,12 @@ public class DefaultGame extends GameController {
                 final double turnsToLast = expirationAdjustmentRate * ct.getExpiration();
                 final int expiresIn = (int) Math.round(currentTurnNumber + turnsToLast);
                 final int points = ct.getPoints();
-                final Collectible c = new Collectible(points, expiresIn);
-                collectibles.put(c, this.pickRandomUnusedNode(playground, players));
+                final Node n = this.getRandomUnusedNode();
+                if (n == null) {
+                    // no space left on the playground
+                    continue;
+                }
+                collectibles.put(new Collectible(points, expiresIn), n);
             }
         }
         return Collections.unmodifiableMap(collectibles);
@@ -85,36 +94,41 @@ public class DefaultGame extends GameController {
     @Override
     protected Set<Player> performCollisionDetection(final Playground playground, final Collection<Player> currentPlayers) {
         final Set<Player> collisions = new HashSet<Player>();
-        for (final Player p1 : currentPlayers) {
-            final Deque<Node> position = this.getPlayerPosition(p1);
-            final Node firstPosition = position.getFirst();
-            if (!playground.isAvailable(firstPosition.getX(), firstPosition.getY())) {
-                collisions.add(p1);
-                continue;
-            } else {
-                // make sure the worm didn't crash into itself
-                final Set<Node> nodes = new HashSet<Node>(position);
-                if (nodes.size() < position.size()) {
-                    // a worm occupies one node twice = a crash into itself
-                    collisions.add(p1);
-                }
-            }
-            for (final Player p2 : currentPlayers) {
-                if (p1 == p2) {
-                    // the same worm
-                    continue;
+        // count worm heads in every node where there are any
+        final Map<Node, Integer> heads = new HashMap<Node, Integer>();
+        // the bodies of worms that crashed into a wall can be moved into without crashing
+        Map<Node, Integer> crashedBodies = Collections.emptyMap();
+        for (final Player p : currentPlayers) {
+            final Deque<Node> position = this.getPlayerPosition(p);
+            final Node head = position.getFirst();
+            DefaultGame.increment(heads, head);
+            if (!playground.isAvailable(head.getX(), head.getY())) {
+                // crash into a wall
+                collisions.add(p);
+                if (crashedBodies.isEmpty()) {
+                    crashedBodies = new HashMap<Node, Integer>();
                 }
-                final Node secondPosition = this.getPlayerPosition(p2).getFirst();
-                if (firstPosition.equals(secondPosition)) {
-                    // head-on-head collision
-                    collisions.add(p1);
-                    collisions.add(p2);
-                } else if (position.contains(secondPosition)) {
-                    // head-on-body collision
-                    collisions.add(p2);
+                for (final Node n : position) {
+                    DefaultGame.increment(crashedBodies, n);
                 }
             }
         }
+        for (final Player p : currentPlayers) {
+            if (collisions.contains(p)) {
+                continue;
+            }
+            final Node head = this.getPlayerPosition(p).getFirst();
+            final int headsInNode = heads.get(head);
+            final Integer crashedInNode = crashedBodies.get(head);
+            final int occupancy = this.getOccupancy(head) - (crashedInNode == null ? 0 : crashedInNode);
+            if (headsInNode > 1) {
+                // head-on-head collision
+                collisions.add(p);
+            } else if (occupancy > headsInNode) {
+                // head-on-body collision, the body possibly being the worm's own
+                collisions.add(p);
+            }
+        }
         return Collections.unmodifiableSet(collisions);
     }
 
@@ -124,14 +138,7 @@ public class DefaultGame extends GameController {
         final Set<Player> inactiveWorms = new HashSet<Player>();
         if (currentTurnNumber > allowedInactiveTurns) {
             for (final Player p : currentPlayers) {
-                final List<Move> allMoves = this.getDecisionRecord(p);
-                final int size = allMoves.size();
-                final List<Move> relevantMoves = allMoves.subList(Math.max(0, size - allowedInactiveTurns - 1), size);
-                if (!relevantMoves.contains(Move.STAY)) {
-                    continue;
-                }
-                final Set<Move> uniqueMoves = new HashSet<Move>(relevantMoves);
-                if (uniqueMoves.size() == 1) {
+                if (this.getInactiveTurns(p) > allowedInactiveTurns) {
                     inactiveWorms.add(p);
                 }
             }
@@ -190,32 +197,4 @@ public class DefaultGame extends GameController {
         }
         return Collections.unmodifiableMap(result);
     }
-
-    private Node pickRandomUnusedNode(final Playground p, final Collection<Player> players) {
-        final List<Node> nodes = new LinkedList<Node>();
-        // locate available nodes
-        for (int x = 0; x < p.getWidth(); x++) {
-            for (int y = 0; y < p.getHeight(); y++) {
-                if (p.isAvailable(x, y)) {
-                    nodes.add(Node.getNode(x, y));
-                }
-            }
-        }
-        // exclude nodes where worms are
-        for (final Player player : players) {
-            nodes.removeAll(this.getPlayerPosition(player));
-        }
-        // exclude nodes where collectibles are
-        final List<Node> nodesCopy = new LinkedList<Node>(nodes);
-        for (final Node n : nodesCopy) {
-            if (this.getCollectible(n) != null) {
-                nodes.remove(n);
-            }
-        }
-        if (nodes.size() == 0) {
-            return null;
-        } else {
-            return nodes.get(GameController.RANDOM.nextInt(nodes.size()));
-        }
-    }
 }
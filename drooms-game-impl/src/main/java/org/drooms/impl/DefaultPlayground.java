@@ -6,10 +6,9 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -17,10 +16,10 @@ import org.apache.commons.io.IOUtils;
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
 import org.drooms.api.Playground;
+import org.drooms.impl.util.graph.GridGraph;
+import org.drooms.impl.util.shortestpath.DistanceOracle;
 
 import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.UndirectedSparseGraph;
-import edu.uci.ics.jung.graph.util.Graphs;
 
 public class DefaultPlayground implements Playground {
 
@@ -47,13 +46,12 @@ public class DefaultPlayground implements Playground {
         return new DefaultPlayground(name, lines);
     }
 
-    private final Set<Node> nodes = new HashSet<Node>();
-
     private final List<Node[]> nodeLocations = new ArrayList<Node[]>();
 
     private static final Node WALL_NODE = Node.getNode(-1, -1);
 
-    private final Graph<Node, Edge> graph = new UndirectedSparseGraph<Node, Edge>();
+    private final GridGraph graph;
+    private DistanceOracle distanceOracle;
     private final SortedMap<Character, Node> startingNodes = new TreeMap<Character, Node>();
     private final int width;
     private final String name;
@@ -80,7 +78,6 @@ public class DefaultPlayground implements Playground {
                         this.startingNodes.put(nodeLabel, n);
                         break;
                 }
-                this.nodes.add(n);
                 locations[x] = n;
                 maxX = Math.max(maxX, x);
             }
@@ -88,37 +85,37 @@ public class DefaultPlayground implements Playground {
             y++;
         }
         this.width = maxX + 1;
-        // link nodes
-        for (final Node n : this.nodes) {
-            if (n == DefaultPlayground.WALL_NODE) {
-                // don't link wall node to any other node
-                continue;
-            }
-            final int y = n.getY();
-            final int x = n.getX();
-            // link upwards
-            if (y > 0) {
-                this.link(x, y, x, y - 1);
-            }
-            // link downwards
-            if (y < this.nodeLocations.size() - 1) {
-                this.link(x, y, x, y + 1);
-            }
-            final Node[] nodes = this.nodeLocations.get(y);
-            // link to the left
-            if (x > 0) {
-                this.link(x, y, x - 1, y);
-            }
-            // link to the right
-            if (x < nodes.length - 1) {
-                this.link(x, y, x + 1, y);
+        // the graph only needs to know which nodes are not walls
+        final BitSet available = new BitSet();
+        for (int y = 0; y < this.nodeLocations.size(); y++) {
+            final Node[] locations = this.nodeLocations.get(y);
+            for (int x = 0; x < locations.length; x++) {
+                if (locations[x] != DefaultPlayground.WALL_NODE) {
+                    available.set(y * this.width + x);
+                }
             }
         }
+        this.graph = new GridGraph(this.width, this.nodeLocations.size(), available);
     }
 
     @Override
     public Graph<Node, Edge> getGraph() {
-        return Graphs.unmodifiableGraph(this.graph);
+        return this.graph;
+    }
+
+    /**
+     * Retrieve the distances between nodes of this playground, ignoring the
+     * worms. They are calculated on first use, which {@link GameController}
+     * makes sure happens before the first turn, and then shared by all the
+     * games played on this playground.
+     * 
+     * @return The distances.
+     */
+    public synchronized DistanceOracle getDistanceOracle() {
+        if (this.distanceOracle == null) {
+            this.distanceOracle = DistanceOracle.forGraph(this.graph);
+        }
+        return this.distanceOracle;
     }
 
     @Override
@@ -162,20 +159,6 @@ public class DefaultPlayground implements Playground {
         }
     }
 
-    private Edge link(final int x, final int y, final int otherX, final int otherY) {
-        if (!this.isAvailable(x, y) || !this.isAvailable(otherX, otherY)) {
-            return null;
-        }
-        final Node node1 = this.getNode(x, y);
-        final Node node2 = this.getNode(otherX, otherY);
-        Edge e = this.graph.findEdge(node1, node2);
-        if (e == null) {
-            e = new Edge(node1, node2);
-            this.graph.addEdge(e, node1, node2);
-        }
-        return e;
-    }
-
     /**
      * Write out the playground into a stream, according to the spec described
      * in {@link #read(InputStream)}.
@@ -50,9 +50,9 @@ public class DroomsGame {
         try (InputStream playgroundFile = new FileInputStream(configs[0]);) {
             // play and report
             // FIXME configs[0].getName() will return file name with extension
+            final PlayerAssembly players = new PlayerAssembly(configs[2], new File(reportFolder, "strategy-cache"));
             final DroomsGame d = new DroomsGame(DefaultGame.class, DefaultPlayground.read(configs[0].getName(),
-                    playgroundFile), new PlayerAssembly(configs[2]).assemblePlayers(), GameProperties.read(configs[1]),
-                    reportFolder);
+                    playgroundFile), players.assemblePlayers(), GameProperties.read(configs[1]), reportFolder);
             d.play(configs[0].getName());
         } catch (final IOException e) {
             throw new IllegalStateException("Failed reading config files.", e);
@@ -76,24 +76,50 @@ public class DroomsGame {
         this.players = players;
     }
 
+    /**
+     * Play the game, storing the reports in a timestamped sub-folder of the
+     * report folder.
+     * 
+     * @param name
+     *            Name of the game.
+     * @return Points gained by each player.
+     */
     public Map<Player, Integer> play(final String name) {
+        return this.play(name, new File(this.f, name + "-" + DroomsGame.getTimestamp()));
+    }
+
+    /**
+     * Play the game, storing the reports in the given folder.
+     * 
+     * @param name
+     *            Name of the game.
+     * @param gameFolder
+     *            Where to store the reports for this particular game.
+     * @return Points gained by each player.
+     */
+    public Map<Player, Integer> play(final String name, final File gameFolder) {
         Game g;
         try {
             g = this.cls.newInstance();
         } catch (InstantiationException | IllegalAccessException e1) {
             throw new IllegalStateException("Cannot find game class.", e1);
         }
-        final File f = new File(this.f, name + "-" + DroomsGame.getTimestamp());
-        if (!f.exists()) {
-            f.mkdirs();
+        if (!gameFolder.exists()) {
+            gameFolder.mkdirs();
         }
         g.setContext(this.c);
-        final Map<Player, Integer> result = g.play(this.p, this.players, f);
-        // report
-        try (Writer w = new FileWriter(new File(f, "report.xml"))) {
-            g.getReport().write(w);
-        } catch (final IOException e) {
-            DroomsGame.LOGGER.info("Failed writing report for game: {}.", name);
+        final Map<Player, Integer> result = g.play(this.p, this.players, gameFolder);
+        /*
+         * report, unless the game has already written it while being played,
+         * or unless only the replay is wanted
+         */
+        final File report = new File(gameFolder, "report.xml");
+        if (this.c.isXmlReportEnabled() && !report.exists()) {
+            try (Writer w = new FileWriter(report)) {
+                g.getReport().write(w);
+            } catch (final IOException e) {
+                DroomsGame.LOGGER.info("Failed writing report for game: {}.", name);
+            }
         }
         return result;
     }
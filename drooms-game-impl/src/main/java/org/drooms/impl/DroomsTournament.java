@@ -11,6 +11,10 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.drooms.api.Game;
@@ -57,21 +61,42 @@ public class DroomsTournament {
         final Collection<Player> players = props.getPlayers();
         // prepare a result tracker
         final TournamentResults result = new DroomsTournamentResults(id, players);
+        // schedule the games, as many at a time as the configuration allows
+        final ExecutorService executor = Executors.newFixedThreadPool(props.getParallelism());
+        final List<Future<?>> games = new ArrayList<>();
         // for each playground...
         for (final ImmutablePair<Playground, GameProperties> gameConfig : props.getPlaygrounds()) {
             final String playgroundName = gameConfig.getLeft().getName();
             // run N games on the playground
-            DroomsTournament.LOGGER.info("Starting games on playground {}.", playgroundName);
+            DroomsTournament.LOGGER.info("Scheduling games on playground {}.", playgroundName);
             for (int i = 1; i <= Integer.valueOf(props.getNumberOfRunsPerPlayground()); i++) {
-                DroomsTournament.LOGGER.info("Starting game #{} on playground {}.", i, playgroundName);
                 // randomize player order
                 final List<Player> randomPlayers = new ArrayList<>(players);
                 Collections.shuffle(randomPlayers);
                 // play the game
                 final DroomsGame dg = new DroomsGame(game, gameConfig.getLeft(), randomPlayers, gameConfig.getRight(),
                         reports);
-                result.addResults(playgroundName, dg.play(playgroundName + "_" + i));
+                final int gameNumber = i;
+                games.add(executor.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        DroomsTournament.LOGGER.info("Starting game #{} on playground {}.", gameNumber, playgroundName);
+                        final String gameName = playgroundName + "_" + gameNumber;
+                        result.addResults(playgroundName, dg.play(gameName, new File(reports, gameName)));
+                    }
+
+                }));
+            }
+        }
+        executor.shutdown();
+        try {
+            for (final Future<?> g : games) {
+                g.get();
             }
+        } catch (final InterruptedException | ExecutionException e) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Failed playing the tournament.", e);
         }
         System.out.println("Tournament results:");
         int i = 1;
@@ -1,7 +1,10 @@
 package org.drooms.impl;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -11,8 +14,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.drooms.api.Collectible;
@@ -22,6 +23,7 @@ import org.drooms.api.Move;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
+import org.drooms.api.TurnListener;
 import org.drooms.impl.logic.CommandDistributor;
 import org.drooms.impl.logic.commands.AddCollectibleCommand;
 import org.drooms.impl.logic.commands.CollectCollectibleCommand;
@@ -31,6 +33,9 @@ import org.drooms.impl.logic.commands.DeactivatePlayerCommand;
 import org.drooms.impl.logic.commands.MovePlayerCommand;
 import org.drooms.impl.logic.commands.RemoveCollectibleCommand;
 import org.drooms.impl.logic.commands.RewardSurvivalCommand;
+import org.drooms.impl.util.FreeNodes;
+import org.drooms.impl.util.OccupancyGrid;
+import org.drooms.impl.util.PositionChange;
 import org.drooms.impl.util.properties.GameProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,10 +79,67 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class GameController implements Game {
 
+    /**
+     * Remembers a limited number of a player's most recent decisions, in a
+     * circular buffer. Also keeps count of how many of the most recent
+     * decisions in a row were STAY, so that inactivity can be checked without
+     * going through the decisions.
+     */
+    static class DecisionRecord {
+
+        private final Move[] decisions;
+        private int next = 0;
+        private int size = 0;
+        private int inactiveTurns = 0;
+
+        public DecisionRecord(final int capacity) {
+            this.decisions = new Move[capacity];
+        }
+
+        public void add(final Move m) {
+            this.decisions[this.next] = m;
+            this.next = (this.next + 1) % this.decisions.length;
+            this.size = Math.min(this.size + 1, this.decisions.length);
+            this.inactiveTurns = (m == Move.STAY) ? this.inactiveTurns + 1 : 0;
+        }
+
+        public List<Move> getDecisions() {
+            final List<Move> moves = new ArrayList<Move>(this.size);
+            final int first = this.next - this.size + this.decisions.length;
+            for (int i = 0; i < this.size; i++) {
+                moves.add(this.decisions[(first + i) % this.decisions.length]);
+            }
+            return Collections.unmodifiableList(moves);
+        }
+
+        public int getInactiveTurns() {
+            return this.inactiveTurns;
+        }
+
+    }
+
     private final AtomicBoolean played = new AtomicBoolean(false);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GameController.class);
 
+    /**
+     * Finish a report, without letting a failure stop the other reports from
+     * being finished.
+     * 
+     * @param report
+     *            The report; null if none.
+     */
+    private static void closeReport(final Closeable report) {
+        if (report == null) {
+            return;
+        }
+        try {
+            report.close();
+        } catch (final IOException | RuntimeException e) {
+            GameController.LOGGER.warn("Failed finishing the game report.", e);
+        }
+    }
+
     private GameProgressListener reporter;
 
     protected static final SecureRandom RANDOM = new SecureRandom();
@@ -92,32 +154,87 @@ public abstract class GameController implements Game {
 
     private final Map<Node, Collectible> collectiblesByNode = new HashMap<Node, Collectible>();
 
-    private final Map<Player, SortedMap<Integer, Move>> decisionRecord = new HashMap<Player, SortedMap<Integer, Move>>();
+    private final Map<Player, DecisionRecord> decisionRecord = new HashMap<Player, DecisionRecord>();
+
+    private int decisionRecordLength;
+
+    private OccupancyGrid occupancy;
+
+    private FreeNodes freeNodes;
 
     private GameProperties gameConfig;
 
     private void addCollectible(final Collectible c, final Node n) {
         this.collectiblesByNode.put(n, c);
         this.nodesByCollectible.put(c, n);
+        this.freeNodes.remove(n);
     }
 
-    private void addDecision(final Player p, final Move m, final int turnNumber) {
+    private void addDecision(final Player p, final Move m) {
         if (!this.decisionRecord.containsKey(p)) {
-            this.decisionRecord.put(p, new TreeMap<Integer, Move>());
+            this.decisionRecord.put(p, new DecisionRecord(this.decisionRecordLength));
+        }
+        this.decisionRecord.get(p).add(m);
+    }
+
+    private void changePlayerPosition(final Player p, final Deque<Node> position, final PositionChange change) {
+        this.positions.put(p, position);
+        if (change.getAddedHead() != null) {
+            this.occupy(change.getAddedHead());
+        }
+        if (change.getRemovedTail() != null) {
+            this.vacate(change.getRemovedTail());
         }
-        this.decisionRecord.get(p).put(turnNumber, m);
     }
 
     protected Collectible getCollectible(final Node n) {
         return this.collectiblesByNode.get(n);
     }
 
+    /**
+     * Retrieve the player's most recent decisions. Only as many decisions are
+     * remembered as is necessary to decide on inactivity.
+     * 
+     * @param p
+     *            The player in question.
+     * @return Unmodifiable list of decisions, from the oldest to the latest.
+     */
     protected List<Move> getDecisionRecord(final Player p) {
-        final LinkedList<Move> moves = new LinkedList<Move>();
-        for (final SortedMap.Entry<Integer, Move> entry : this.decisionRecord.get(p).entrySet()) {
-            moves.add(entry.getKey(), entry.getValue());
-        }
-        return moves;
+        return this.decisionRecord.get(p).getDecisions();
+    }
+
+    /**
+     * Retrieve the number of the player's most recent consecutive decisions
+     * which were all STAY.
+     * 
+     * @param p
+     *            The player in question.
+     * @return Number >= 0.
+     */
+    protected int getInactiveTurns(final Player p) {
+        return this.decisionRecord.get(p).getInactiveTurns();
+    }
+
+    /**
+     * How many pieces of worms still in the game are there in a particular
+     * node.
+     * 
+     * @param n
+     *            The node in question.
+     * @return Number >= 0. When > 1, worms have collided in that node.
+     */
+    protected int getOccupancy(final Node n) {
+        return this.occupancy.getOccupancy(n);
+    }
+
+    /**
+     * Pick a random node that is not a wall, is not occupied by any worm still
+     * in the game and doesn't hold any collectible.
+     * 
+     * @return The node, or null if there is no such node.
+     */
+    protected Node getRandomUnusedNode() {
+        return this.freeNodes.pickRandom(GameController.RANDOM);
     }
 
     protected Node getNode(final Collectible c) {
@@ -198,7 +315,9 @@ public abstract class GameController implements Game {
             final int currentTurnNumber, final int allowedInactiveTurns);
 
     /**
-     * Decide where the worm should be after it has moved.
+     * Decide where the worm should be after it has moved. The new position is
+     * expected to be the current one, with possibly a new head node added and
+     * some tail nodes removed.
      * 
      * @param player
      *            The worm.
@@ -228,6 +347,12 @@ public abstract class GameController implements Game {
     @Override
     public Map<Player, Integer> play(final Playground playground, final Collection<Player> players,
             final File reportFolder) {
+        return this.play(playground, players, reportFolder, Collections.<TurnListener> emptyList());
+    }
+
+    @Override
+    public Map<Player, Integer> play(final Playground playground, final Collection<Player> players,
+            final File reportFolder, final Collection<TurnListener> turnListeners) {
         if (this.gameConfig == null) {
             throw new IllegalStateException("Game context had not been set!");
         }
@@ -237,11 +362,12 @@ public abstract class GameController implements Game {
         }
         this.played.set(true);
         // prepare the playground
+        if (playground instanceof DefaultPlayground) {
+            // the strategies must not spend their time to decide on it
+            ((DefaultPlayground) playground).getDistanceOracle();
+        }
         final int wormLength = this.gameConfig.getStartingWormLength();
-        final int allowedInactiveTurns = this.gameConfig.getMaximumInactiveTurns();
-        final int allowedTurns = this.gameConfig.getMaximumTurns();
-        final int wormSurvivalBonus = this.gameConfig.getDeadWormBonus();
-        final int wormTimeout = this.gameConfig.getStrategyTimeoutInSeconds();
+        this.decisionRecordLength = this.gameConfig.getMaximumInactiveTurns() + 1;
         // prepare players and their starting positions
         final List<Node> startingPositions = playground.getStartingPositions();
         final int playersSupported = startingPositions.size();
@@ -250,6 +376,8 @@ public abstract class GameController implements Game {
             throw new IllegalArgumentException("The playground doesn't support " + playersAvailable + " players, only "
                     + playersSupported + "! ");
         }
+        this.occupancy = new OccupancyGrid(playground);
+        this.freeNodes = new FreeNodes(playground);
         int i = 0;
         for (final Player player : players) {
             final Deque<Node> pos = new LinkedList<Node>();
@@ -260,9 +388,65 @@ public abstract class GameController implements Game {
             i++;
         }
         // prepare situation
-        this.reporter = new XmlProgressListener(playground, players, this.gameConfig);
-        final CommandDistributor playerControl = new CommandDistributor(playground, players, this.reporter,
-                this.gameConfig, reportFolder, wormTimeout);
+        XmlProgressListener xml = null;
+        BinaryReplayListener replay = null;
+        try {
+            if (this.gameConfig.isXmlReportEnabled()) {
+                xml = new XmlProgressListener(playground, players, this.gameConfig, new File(reportFolder,
+                        "report.xml"));
+            }
+            if (this.gameConfig.isReplayEnabled()) {
+                replay = new BinaryReplayListener(playground, players, this.gameConfig, new File(reportFolder,
+                        "report.replay"));
+            }
+            // without the XML report, the replay converts to it when asked
+            this.reporter = (xml == null) ? replay : xml;
+            final CommandDistributor playerControl = new CommandDistributor(playground, players, xml,
+                    this.gameConfig, reportFolder);
+            try {
+                if (replay != null) {
+                    playerControl.addTurnListener(replay);
+                }
+                for (final TurnListener listener : turnListeners) {
+                    playerControl.addTurnListener(listener);
+                }
+                this.playTurns(playground, players, playerControl);
+            } finally {
+                playerControl.terminate(); // clean up all the sessions
+            }
+        } finally {
+            GameController.closeReport(xml);
+            GameController.closeReport(replay);
+        }
+        // output player status
+        GameController.LOGGER.info("--- Game over.");
+        for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
+            GameController.LOGGER.info("Player {} earned {} points.", entry.getKey().getName(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(this.playerPoints);
+    }
+
+    private void occupy(final Node n) {
+        this.occupancy.occupy(n);
+        this.freeNodes.remove(n);
+    }
+
+    /**
+     * Play the turns of the game, until it ends.
+     * 
+     * @param playground
+     *            The playground on which the game is happening.
+     * @param players
+     *            All the players in the game.
+     * @param playerControl
+     *            Reports the progress to the players and obtains their
+     *            decisions.
+     */
+    private void playTurns(final Playground playground, final Collection<Player> players,
+            final CommandDistributor playerControl) {
+        final int allowedInactiveTurns = this.gameConfig.getMaximumInactiveTurns();
+        final int allowedTurns = this.gameConfig.getMaximumTurns();
+        final int wormSurvivalBonus = this.gameConfig.getDeadWormBonus();
         final Set<Player> currentPlayers = new HashSet<Player>(players);
         Map<Player, Move> decisions = new HashMap<Player, Move>();
         for (final Player p : currentPlayers) { // initialize players
@@ -278,22 +462,28 @@ public abstract class GameController implements Game {
             for (final Player player : this
                     .performInactivityDetection(currentPlayers, turnNumber, allowedInactiveTurns)) {
                 currentPlayers.remove(player);
+                this.removePlayerPosition(player);
                 commands.add(new DeactivatePlayerCommand(player));
                 GameController.LOGGER.info("Player {} will be removed for inactivity.", player.getName());
             }
             // move the worms
             for (final Player p : currentPlayers) {
                 final Move m = decisions.get(p);
-                this.addDecision(p, m, turnNumber);
+                this.addDecision(p, m);
                 final Deque<Node> newPosition = this.performPlayerMove(p, m);
-                this.setPlayerPosition(p, newPosition);
-                commands.add(new MovePlayerCommand(p, m, newPosition));
+                final PositionChange change = new PositionChange(this.getPlayerPosition(p), newPosition);
+                this.changePlayerPosition(p, newPosition, change);
+                commands.add(new MovePlayerCommand(p, m, newPosition, change));
             }
             // resolve worms colliding
-            for (final Player player : this.performCollisionDetection(playground, currentPlayers)) {
+            final Set<Player> crashedPlayers = this.performCollisionDetection(playground, currentPlayers);
+            for (final Player player : crashedPlayers) {
                 currentPlayers.remove(player);
                 commands.add(new CrashPlayerCommand(player));
             }
+            for (final Player player : crashedPlayers) {
+                this.removePlayerPosition(player);
+            }
             final int postRemoval = currentPlayers.size();
             for (final Map.Entry<Player, Integer> entry : this.performSurvivalRewarding(players, currentPlayers,
                     preRemoval - postRemoval, wormSurvivalBonus).entrySet()) {
@@ -342,18 +532,27 @@ public abstract class GameController implements Game {
                 break;
             }
         } while (true);
-        playerControl.terminate(); // clean up all the sessions
-        // output player status
-        GameController.LOGGER.info("--- Game over.");
-        for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
-            GameController.LOGGER.info("Player {} earned {} points.", entry.getKey().getName(), entry.getValue());
-        }
-        return Collections.unmodifiableMap(this.playerPoints);
     }
 
     private void removeCollectible(final Collectible c) {
         final Node n = this.nodesByCollectible.remove(c);
         this.collectiblesByNode.remove(n);
+        if (!this.occupancy.isOccupied(n)) {
+            this.freeNodes.add(n);
+        }
+    }
+
+    /**
+     * Remove the player's worm from the occupied nodes. The last known position
+     * of the worm is still retained.
+     * 
+     * @param p
+     *            The player whose worm is leaving the game.
+     */
+    private void removePlayerPosition(final Player p) {
+        for (final Node n : this.getPlayerPosition(p)) {
+            this.vacate(n);
+        }
     }
 
     private void reward(final Player p, final int points) {
@@ -380,6 +579,16 @@ public abstract class GameController implements Game {
 
     private void setPlayerPosition(final Player p, final Deque<Node> position) {
         this.positions.put(p, position);
+        for (final Node n : position) {
+            this.occupy(n);
+        }
+    }
+
+    private void vacate(final Node n) {
+        this.occupancy.vacate(n);
+        if (!this.occupancy.isOccupied(n) && !this.collectiblesByNode.containsKey(n)) {
+            this.freeNodes.add(n);
+        }
     }
 
 }
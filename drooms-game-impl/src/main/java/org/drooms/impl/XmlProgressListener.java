@@ -1,73 +1,153 @@
 package org.drooms.impl;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.drooms.api.Collectible;
 import org.drooms.api.GameProgressListener;
 import org.drooms.api.Move;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
-import org.drooms.impl.util.XmlUtil;
 import org.drooms.impl.util.properties.GameProperties;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-public class XmlProgressListener implements GameProgressListener {
-    private static Logger logger = LoggerFactory.getLogger(XmlProgressListener.class);
+/**
+ * Writes the XML report of the game to a file as the game goes on, so that
+ * the report doesn't need to be kept in memory. The report is only complete
+ * once the listener is {@link #close()}d.
+ */
+public class XmlProgressListener implements GameProgressListener, BinaryReplayReader.Visitor, Closeable {
 
-    private static String collectibleXml(final Collectible c) {
-        return "<collectible points='" + c.getPoints() + "' expiresInTurn='" + c.expiresInTurn() + "' />";
-    }
+    private static final Charset CHARSET = Charset.forName("UTF-8");
 
-    private static String nodeXml(final Node c) {
-        return "<node x='" + c.getX() + "' y='" + c.getY() + "' />";
-    }
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
 
-    private static String playerXml(final Player p) {
-        return "<player name='" + p.getName() + "' />";
-    }
+    private final File reportFile;
+
+    private final Writer output;
+
+    private final XMLStreamWriter xml;
 
-    private final StringBuilder report = new StringBuilder();
+    /**
+     * How many elements are currently open, for the indentation.
+     */
+    private int depth = 0;
+
+    /**
+     * Whether the element being closed has no children, so that the closing
+     * tag can go on the same line.
+     */
+    private boolean isElementEmpty = false;
+
+    private boolean isClosed = false;
 
     private int turnNumber = 0;
 
-    private final Map<Player, Integer> playerPoints = new HashMap<>();
+    private final Map<String, Integer> playerPoints = new HashMap<>();
 
-    public XmlProgressListener(final Playground p, final Collection<Player> players, final GameProperties gameConfig) {
-        this.report.append("<game>");
-        // report game config
-        this.report.append("<config>");
-        for (final Map.Entry<Object, Object> pair : gameConfig.getTextEntries()) {
-            final String key = (String) pair.getKey();
-            final String value = (String) pair.getValue();
-            this.report.append("<property name='" + key + "' value='" + value + "' />");
-        }
-        this.report.append("</config>");
-        // report players
-        this.report.append("<players>");
-        for (final Player player : players) {
-            this.report.append(XmlProgressListener.playerXml(player));
-        }
-        this.report.append("</players>");
-        // report playground
-        this.report.append("<playground>");
+    private static Collection<Node> getNodes(final Playground p) {
+        final Collection<Node> nodes = new ArrayList<>();
         for (int x = -1; x <= p.getWidth(); x++) {
             for (int y = -1; y <= p.getHeight(); y++) {
                 if (p.isAvailable(x, y)) {
-                    this.report.append(XmlProgressListener.nodeXml(Node.getNode(x, y)));
+                    nodes.add(Node.getNode(x, y));
                 }
             }
         }
-        this.report.append("</playground>");
-        this.report.append("<turns>");
+        return nodes;
     }
 
-    private void addPoints(final Player p, final int points) {
+    private static Collection<String> getPlayerNames(final Collection<Player> players) {
+        final Collection<String> names = new ArrayList<>();
+        for (final Player player : players) {
+            names.add(player.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Start the report.
+     * 
+     * @param config
+     *            Configuration of the game.
+     * @param players
+     *            Names of the players in the game.
+     * @param playground
+     *            Nodes of the playground that are available to the worms.
+     * @param reportFile
+     *            Where to write the report.
+     */
+    XmlProgressListener(final Collection<Map.Entry<Object, Object>> config, final Collection<String> players,
+            final Collection<Node> playground, final File reportFile) {
+        this.reportFile = reportFile;
+        try {
+            this.output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile),
+                    XmlProgressListener.CHARSET));
+            this.xml = XmlProgressListener.FACTORY.createXMLStreamWriter(this.output);
+            this.xml.writeStartDocument(XmlProgressListener.CHARSET.name(), "1.0");
+            this.startElement("game");
+            // report game config
+            this.startElement("config");
+            for (final Map.Entry<Object, Object> pair : config) {
+                this.emptyElement("property");
+                this.xml.writeAttribute("name", (String) pair.getKey());
+                this.xml.writeAttribute("value", (String) pair.getValue());
+            }
+            this.endElement();
+            // report players
+            this.startElement("players");
+            for (final String player : players) {
+                this.writePlayer(player);
+            }
+            this.endElement();
+            // report playground
+            this.startElement("playground");
+            for (final Node node : playground) {
+                this.writeNode(node);
+            }
+            this.endElement();
+            this.startElement("turns");
+        } catch (IOException | XMLStreamException e) {
+            throw new IllegalStateException("Failed starting the report: " + reportFile, e);
+        }
+    }
+
+    /**
+     * Start the report.
+     * 
+     * @param p
+     *            The playground on which the game is being played.
+     * @param players
+     *            The players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     * @param reportFile
+     *            Where to write the report.
+     */
+    public XmlProgressListener(final Playground p, final Collection<Player> players, final GameProperties gameConfig,
+            final File reportFile) {
+        this(gameConfig.getTextEntries(), XmlProgressListener.getPlayerNames(players), XmlProgressListener
+                .getNodes(p), reportFile);
+    }
+
+    private void addPoints(final String p, final int points) {
         if (this.playerPoints.containsKey(p)) {
             this.playerPoints.put(p, this.playerPoints.get(p) + points);
         } else {
@@ -75,98 +155,226 @@ public class XmlProgressListener implements GameProgressListener {
         }
     }
 
+    /**
+     * Finish the report, adding the results of the game. Afterwards, the
+     * report file is complete and no more progress can be reported.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) {
+            return;
+        }
+        try {
+            if (this.turnNumber > 0) {
+                this.endElement(); // turn
+            }
+            this.endElement(); // turns
+            this.startElement("results");
+            for (final Map.Entry<String, Integer> entry : this.playerPoints.entrySet()) {
+                this.startElement("score");
+                this.xml.writeAttribute("points", String.valueOf(entry.getValue()));
+                this.writePlayer(entry.getKey());
+                this.endElement();
+            }
+            this.endElement();
+            this.endElement(); // game
+            this.xml.writeCharacters("\n");
+            this.xml.writeEndDocument();
+            this.xml.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException("Failed finishing the report: " + this.reportFile, e);
+        } finally {
+            this.isClosed = true;
+            this.output.close();
+        }
+    }
+
     @Override
     public void collectibleAdded(final Collectible c, final Node where) {
-        this.report.append("<newCollectible>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.nodeXml(where));
-        this.report.append("</newCollectible>");
+        try {
+            this.startElement("newCollectible");
+            this.writeCollectible(c);
+            this.writeNode(where);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
     }
 
     @Override
     public void collectibleCollected(final Collectible c, final Player p, final Node where, final int points) {
+        this.collectibleCollected(c, p.getName(), where, points);
+    }
+
+    @Override
+    public void collectibleCollected(final Collectible c, final String p, final Node where, final int points) {
         this.addPoints(p, points);
-        this.report.append("<collectedCollectible points='" + points + "'>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append(XmlProgressListener.nodeXml(where));
-        this.report.append("</collectedCollectible>");
+        try {
+            this.startElement("collectedCollectible");
+            this.xml.writeAttribute("points", String.valueOf(points));
+            this.writeCollectible(c);
+            this.writePlayer(p);
+            this.writeNode(where);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
     }
 
     @Override
     public void collectibleRemoved(final Collectible c, final Node where) {
-        this.report.append("<removedCollectible>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.nodeXml(where));
-        this.report.append("</removedCollectible>");
+        try {
+            this.startElement("removedCollectible");
+            this.writeCollectible(c);
+            this.writeNode(where);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
+    }
+
+    private void emptyElement(final String name) throws XMLStreamException {
+        this.newLine();
+        this.xml.writeEmptyElement(name);
+        this.isElementEmpty = false;
+    }
+
+    private void endElement() throws XMLStreamException {
+        this.depth--;
+        if (!this.isElementEmpty) {
+            this.newLine();
+        }
+        this.xml.writeEndElement();
+        this.isElementEmpty = false;
+    }
+
+    private void newLine() throws XMLStreamException {
+        this.xml.writeCharacters("\n");
+        for (int i = 0; i < this.depth; i++) {
+            this.xml.writeCharacters("  ");
+        }
     }
 
     @Override
     public void nextTurn() {
-        if (this.turnNumber > 0) {
-            this.report.append("</turn>");
+        try {
+            if (this.turnNumber > 0) {
+                this.endElement();
+            }
+            this.startElement("turn");
+            this.xml.writeAttribute("number", String.valueOf(this.turnNumber));
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
         }
-        this.report.append("<turn number='" + this.turnNumber + "'>");
         this.turnNumber += 1;
     }
 
     @Override
     public void playerCrashed(final Player p) {
-        this.report.append("<crashedPlayer>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</crashedPlayer>");
+        this.playerCrashed(p.getName());
+    }
+
+    @Override
+    public void playerCrashed(final String p) {
+        try {
+            this.startElement("crashedPlayer");
+            this.writePlayer(p);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
     }
 
     @Override
     public void playerDeactivated(final Player p) {
-        this.report.append("<deactivatedPlayer>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</deactivatedPlayer>");
+        this.playerDeactivated(p.getName());
+    }
+
+    @Override
+    public void playerDeactivated(final String p) {
+        try {
+            this.startElement("deactivatedPlayer");
+            this.writePlayer(p);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
     }
 
     @Override
     public void playerMoved(final Player p, final Move m, final Node... nodes) {
-        this.report.append("<playerPosition>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        for (final Node n : nodes) {
-            this.report.append(XmlProgressListener.nodeXml(n));
+        this.playerMoved(p.getName(), nodes);
+    }
+
+    @Override
+    public void playerMoved(final String p, final Node... nodes) {
+        try {
+            this.startElement("playerPosition");
+            this.writePlayer(p);
+            for (final Node n : nodes) {
+                this.writeNode(n);
+            }
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
         }
-        this.report.append("</playerPosition>");
     }
 
     @Override
     public void playerSurvived(final Player p, final int points) {
+        this.playerSurvived(p.getName(), points);
+    }
+
+    @Override
+    public void playerSurvived(final String p, final int points) {
         this.addPoints(p, points);
-        this.report.append("<survivedPlayer points='" + points + "'>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</survivedPlayer>");
+        try {
+            this.startElement("survivedPlayer");
+            this.xml.writeAttribute("points", String.valueOf(points));
+            this.writePlayer(p);
+            this.endElement();
+        } catch (final XMLStreamException e) {
+            throw new IllegalStateException("Failed writing the report: " + this.reportFile, e);
+        }
+    }
+
+    private void startElement(final String name) throws XMLStreamException {
+        this.newLine();
+        this.xml.writeStartElement(name);
+        this.depth++;
+        this.isElementEmpty = true;
     }
 
+    /**
+     * Finish the report and copy it from the report file.
+     */
     @Override
     public void write(final Writer w) throws IOException {
-        final StringBuilder result = new StringBuilder(this.report);
-        if (this.turnNumber > 0) {
-            result.append("</turn>");
-        }
-        result.append("</turns>");
-        result.append("<results>");
-        for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
-            result.append("<score points='" + entry.getValue() + "'>");
-            result.append(XmlProgressListener.playerXml(entry.getKey()));
-            result.append("</score>");
-        }
-        result.append("</results>");
-        result.append("</game>");
-        String resultingXml = result.toString();
-        /*
-         * make the XML pretty; if it fails, error is logged and original string
-         * will be returned
-         */
-        try {
-            resultingXml = XmlUtil.prettyPrint(result.toString());
-        } catch (final RuntimeException re) {
-            XmlProgressListener.logger.error("Error while pretty printing XML report, !\n", re);
+        this.close();
+        try (Reader r = new InputStreamReader(new FileInputStream(this.reportFile), XmlProgressListener.CHARSET)) {
+            final char[] buffer = new char[8192];
+            int read;
+            while ((read = r.read(buffer)) >= 0) {
+                w.write(buffer, 0, read);
+            }
         }
-        w.write(resultingXml);
     }
+
+    private void writeCollectible(final Collectible c) throws XMLStreamException {
+        this.emptyElement("collectible");
+        this.xml.writeAttribute("points", String.valueOf(c.getPoints()));
+        this.xml.writeAttribute("expiresInTurn", String.valueOf(c.expiresInTurn()));
+    }
+
+    private void writeNode(final Node n) throws XMLStreamException {
+        this.emptyElement("node");
+        this.xml.writeAttribute("x", String.valueOf(n.getX()));
+        this.xml.writeAttribute("y", String.valueOf(n.getY()));
+    }
+
+    private void writePlayer(final String p) throws XMLStreamException {
+        this.emptyElement("player");
+        this.xml.writeAttribute("name", p);
+    }
+
 }
@@ -1,17 +1,19 @@
 package org.drooms.impl.logic;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -24,6 +26,7 @@ import org.drooms.api.Move;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
+import org.drooms.api.TurnListener;
 import org.drooms.impl.GameController;
 import org.drooms.impl.logic.commands.Command;
 import org.drooms.impl.logic.commands.DeactivatePlayerCommand;
@@ -43,6 +46,8 @@ public class CommandDistributor {
 
         private final DecisionMaker playerLogic;
         private final List<Command> commands;
+        private volatile long startCpuTime;
+        private volatile Thread thread;
 
         public DecisionMakerUnit(final DecisionMaker m, final List<Command> commands) {
             this.playerLogic = m;
@@ -51,16 +56,45 @@ public class CommandDistributor {
 
         @Override
         public Move call() throws Exception {
+            if (CommandDistributor.THREADS.isThreadCpuTimeSupported()) {
+                this.startCpuTime = CommandDistributor.THREADS.getCurrentThreadCpuTime();
+            }
+            this.thread = Thread.currentThread();
             for (final Command command : this.commands) {
                 command.perform(this.playerLogic);
             }
             return this.playerLogic.decideNextMove();
         }
 
+        public DecisionMaker getPlayerLogic() {
+            return this.playerLogic;
+        }
+
+        /**
+         * How much CPU time the decision has taken so far.
+         * 
+         * @return In nanoseconds. 0 if not yet started.
+         */
+        public long getCpuTime() {
+            final Thread thread = this.thread;
+            if (thread == null) {
+                return 0;
+            }
+            return Math.max(0, CommandDistributor.THREADS.getThreadCpuTime(thread.getId()) - this.startCpuTime);
+        }
+
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CommandDistributor.class);
 
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * When waiting for a decision measured in CPU time, don't check it more
+     * often than this.
+     */
+    private static final long MINIMUM_CPU_TIME_CHECK_INTERVAL = TimeUnit.MILLISECONDS.toNanos(1);
+
     private static Map<Player, Deque<Node>> retrieveNewPlayerPositions(final List<Command> commands) {
         final Map<Player, Deque<Node>> positions = new HashMap<>();
         for (final Command command : commands) {
@@ -86,11 +120,21 @@ public class CommandDistributor {
     private final Map<Player, DecisionMaker> players = new LinkedHashMap<>();
     private final Map<Player, PathTracker> trackers = new LinkedHashMap<>();
 
-    private final List<GameProgressListener> listeners = new LinkedList<GameProgressListener>();
+    private final List<GameProgressListener> listeners = new CopyOnWriteArrayList<GameProgressListener>();
+
+    private final List<TurnListener> turnListeners = new CopyOnWriteArrayList<TurnListener>();
+
+    private final ProgressReporter reporter = new ProgressReporter(this.listeners, this.turnListeners);
+
+    private final long playerTimeout;
+
+    private final long playerWallTimeout;
+
+    private final boolean timeoutInCpuTime;
 
-    private final int playerTimeoutInSeconds;
+    private final boolean concurrentDecisions;
 
-    private final ExecutorService e = Executors.newFixedThreadPool(1);
+    private final ExecutorService e;
 
     /**
      * Initialize the class.
@@ -100,25 +144,51 @@ public class CommandDistributor {
      * @param players
      *            The players taking part in the game.
      * @param report
-     *            The game listener.
+     *            The game listener; null if the game is only reported to the
+     *            listeners added later.
      * @param properties
-     *            Configuration of the game.
+     *            Configuration of the game, including how much time the player
+     *            strategies should be given to make move decisions.
      * @param reportFolder
      *            Where to report to.
-     * @param playerTimeoutInSeconds
-     *            How much time the player strategies should be given to make
-     *            move decisions.
      */
     public CommandDistributor(final Playground playground, final Collection<Player> players,
-            final GameProgressListener report, final GameProperties properties, final File reportFolder,
-            final int playerTimeoutInSeconds) {
-        for (final Player player : players) {
-            final PathTracker tracker = new PathTracker(playground, player);
-            this.trackers.put(player, tracker);
-            this.players.put(player, new DecisionMaker(player, tracker, properties, reportFolder));
-        }
-        this.listeners.add(report);
-        this.playerTimeoutInSeconds = playerTimeoutInSeconds;
+            final GameProgressListener report, final GameProperties properties, final File reportFolder) {
+        try {
+            for (final Player player : players) {
+                final PathTracker tracker = new PathTracker(playground, player);
+                this.trackers.put(player, tracker);
+                this.players.put(player, new DecisionMaker(player, tracker, properties, reportFolder));
+            }
+        } catch (final RuntimeException ex) {
+            // don't leave the reporting thread and the sessions behind
+            try {
+                this.terminate();
+            } catch (final RuntimeException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        if (report != null) {
+            this.listeners.add(report);
+        }
+        this.playerTimeout = TimeUnit.MILLISECONDS.toNanos(properties.getStrategyTimeoutInMillis());
+        if (properties.isStrategyTimeoutInCpuTime() && !CommandDistributor.THREADS.isThreadCpuTimeSupported()) {
+            CommandDistributor.LOGGER.warn("Thread CPU time not supported by the JVM, will use wall-clock time.");
+            this.timeoutInCpuTime = false;
+        } else {
+            this.timeoutInCpuTime = properties.isStrategyTimeoutInCpuTime();
+        }
+        if (this.timeoutInCpuTime) {
+            this.playerWallTimeout = TimeUnit.MILLISECONDS.toNanos(properties.getStrategyWallTimeoutInMillis());
+            if (!CommandDistributor.THREADS.isThreadCpuTimeEnabled()) {
+                CommandDistributor.THREADS.setThreadCpuTimeEnabled(true);
+            }
+        } else {
+            this.playerWallTimeout = this.playerTimeout;
+        }
+        this.concurrentDecisions = properties.isConcurrentDecisions();
+        this.e = Executors.newFixedThreadPool(this.concurrentDecisions ? Math.max(1, players.size()) : 1);
     }
 
     /**
@@ -136,6 +206,21 @@ public class CommandDistributor {
         }
     }
 
+    /**
+     * Add another listener, to be told about every turn in a single call.
+     * 
+     * @param listener
+     * @return True if added, false if already added.
+     */
+    public boolean addTurnListener(final TurnListener listener) {
+        if (!this.turnListeners.contains(listener)) {
+            this.turnListeners.add(listener);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     /**
      * Execute the commands.
      * 
@@ -147,47 +232,40 @@ public class CommandDistributor {
     public Map<Player, Move> execute(final List<Command> commands) {
         // hint GC to potentially not interrupt decision making later
         System.gc();
-        CommandDistributor.LOGGER.info("First reporting what happens in this turn.");
-        for (final GameProgressListener listener : this.listeners) {
-            listener.nextTurn();
-        }
-        for (final Command command : commands) {
-            CommandDistributor.LOGGER.info("Will process command: {}", command);
-            for (final GameProgressListener listener : this.listeners) {
-                command.report(listener);
-            }
-        }
+        CommandDistributor.LOGGER.info("First queueing what happens in this turn for the listeners.");
+        this.reporter.report(commands);
         CommandDistributor.LOGGER.info("Now passing these changes to players.");
-        final Map<Player, Deque<Node>> positions = CommandDistributor.retrieveNewPlayerPositions(commands);
+        final OccupancySnapshot snapshot = new OccupancySnapshot(
+                CommandDistributor.retrieveNewPlayerPositions(commands));
         final Set<Player> playersToRemove = CommandDistributor.retrievePlayersToRemove(commands);
         final Map<Player, Move> moves = new HashMap<Player, Move>();
+        final Map<Player, Future<Move>> pendingMoves = new LinkedHashMap<>();
+        final Map<Player, DecisionMakerUnit> units = new HashMap<>();
+        final Map<Player, Long> deadlines = new HashMap<>();
         for (final Map.Entry<Player, DecisionMaker> entry : this.players.entrySet()) {
             final Player player = entry.getKey();
             if (playersToRemove.contains(player)) {
                 continue;
             }
             final DecisionMaker playerLogic = entry.getValue();
-            this.trackers.get(player).movePlayers(positions);
+            this.trackers.get(player).movePlayers(snapshot);
             CommandDistributor.LOGGER.debug("Processing player {}.", player.getName());
             final DecisionMakerUnit dmu = new DecisionMakerUnit(playerLogic, commands);
             // begin the time-box for a player strategy
             final Future<Move> move = this.e.submit(dmu);
-            try {
-                moves.put(player, move.get(this.playerTimeoutInSeconds, TimeUnit.SECONDS));
-            } catch (InterruptedException | ExecutionException e) {
-                CommandDistributor.LOGGER.warn("Player {} error during decision-making, STAY forced.",
-                        player.getName(), e);
-                moves.put(player, Move.STAY);
-            } catch (final TimeoutException e) {
-                CommandDistributor.LOGGER.warn("Player {}, didn't reach a decision in time, STAY forced.",
-                        player.getName());
-                moves.put(player, Move.STAY);
-            } finally {
-                move.cancel(true);
-                playerLogic.halt(); // otherwise other players' are slowed down
+            final long deadline = System.nanoTime() + this.playerWallTimeout;
+            if (this.concurrentDecisions) {
+                // other players are starting their decisions in the meantime
+                pendingMoves.put(player, move);
+                units.put(player, dmu);
+                deadlines.put(player, deadline);
+            } else {
+                moves.put(player, this.waitForDecision(player, dmu, move, deadline));
             }
-            // end the time-box for a player strategy
-            CommandDistributor.LOGGER.debug("Player {} processed.", player.getName());
+        }
+        for (final Map.Entry<Player, Future<Move>> entry : pendingMoves.entrySet()) {
+            final Player player = entry.getKey();
+            moves.put(player, this.waitForDecision(player, units.get(player), entry.getValue(), deadlines.get(player)));
         }
         // purge dead players
         for (final Player p : playersToRemove) {
@@ -200,21 +278,88 @@ public class CommandDistributor {
         return Collections.unmodifiableMap(moves);
     }
 
+    /**
+     * Wait for the player's strategy to make a decision, enforcing the
+     * time-box.
+     * 
+     * @param player
+     *            The player whose decision it is.
+     * @param dmu
+     *            The player's strategy in action.
+     * @param move
+     *            The decision being made.
+     * @param deadline
+     *            {@link System#nanoTime()} by which the decision must be made,
+     *            regardless of the CPU time spent.
+     * @return The decision. STAY when none was made in time.
+     */
+    private Move waitForDecision(final Player player, final DecisionMakerUnit dmu, final Future<Move> move,
+            final long deadline) {
+        try {
+            while (true) {
+                final long wallTimeLeft = Math.max(0, deadline - System.nanoTime());
+                if (!this.timeoutInCpuTime) {
+                    return move.get(wallTimeLeft, TimeUnit.NANOSECONDS);
+                }
+                /*
+                 * the strategy can't spend more CPU time than the time we wait,
+                 * so there is no need to check any sooner
+                 */
+                final long cpuTimeLeft = this.playerTimeout - dmu.getCpuTime();
+                if (cpuTimeLeft <= 0 || wallTimeLeft == 0) {
+                    throw new TimeoutException();
+                }
+                try {
+                    return move.get(Math.min(wallTimeLeft,
+                            Math.max(cpuTimeLeft, CommandDistributor.MINIMUM_CPU_TIME_CHECK_INTERVAL)),
+                            TimeUnit.NANOSECONDS);
+                } catch (final TimeoutException e) {
+                    // check the CPU time again
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            CommandDistributor.LOGGER.warn("Player {} error during decision-making, STAY forced.", player.getName(), e);
+            return Move.STAY;
+        } catch (final TimeoutException e) {
+            CommandDistributor.LOGGER.warn("Player {}, didn't reach a decision in time, STAY forced.",
+                    player.getName());
+            return Move.STAY;
+        } finally {
+            move.cancel(true);
+            dmu.getPlayerLogic().halt(); // otherwise other players' are slowed down
+            // end the time-box for a player strategy
+            CommandDistributor.LOGGER.debug("Player {} processed.", player.getName());
+        }
+    }
+
+    /**
+     * Retrieve the game listener given when this instance was created.
+     * 
+     * @return The first of the listeners; null if none.
+     */
     public GameProgressListener getReport() {
-        return this.listeners.get(0);
+        return this.listeners.isEmpty() ? null : this.listeners.get(0);
     }
 
     /**
      * Clean up when the game is over. This instance shouldn't be used anymore
      * after this method is called. Not calling this method after the game may
      * result in the JVM not terminating, since the executors will still be
-     * active.
+     * active. Once this method returns, all the listeners have been told
+     * everything about the game.
      */
     public void terminate() {
         for (final Map.Entry<Player, DecisionMaker> entry : this.players.entrySet()) {
-            entry.getValue().terminate();
+            try {
+                entry.getValue().terminate();
+            } catch (final RuntimeException ex) {
+                CommandDistributor.LOGGER.warn("Failed terminating player {}.", entry.getKey().getName(), ex);
+            }
+        }
+        if (this.e != null) { // not there when the constructor failed
+            this.e.shutdownNow();
         }
-        this.e.shutdownNow();
+        this.reporter.flush();
     }
 
 }
@@ -1,10 +1,10 @@
 package org.drooms.impl.logic;
 
 import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.drools.KnowledgeBaseFactory;
@@ -17,6 +17,7 @@ import org.drools.runtime.conf.ClockTypeOption;
 import org.drools.runtime.rule.FactHandle;
 import org.drools.runtime.rule.WorkingMemoryEntryPoint;
 import org.drools.time.SessionPseudoClock;
+import org.drooms.api.Collectible;
 import org.drooms.api.Move;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
@@ -97,9 +98,80 @@ import org.slf4j.LoggerFactory;
  * never modified.</li>
  * </ul>
  * 
+ * <p>
+ * Events are retracted from the working memory once they are older than
+ * {@link GameProperty.Name#EVENT_RETENTION_TURNS}, with the exception of the
+ * latest {@link PlayerMoveEvent} of every living worm and of the
+ * {@link CollectibleAdditionEvent} of every collectible still on the
+ * playground.
+ * </p>
+ * 
  */
 public class DecisionMaker implements Channel {
 
+    /**
+     * An event in the working memory, to be retracted once it gets too old.
+     */
+    private static class InsertedEvent {
+
+        private final int turn;
+        private final WorkingMemoryEntryPoint entryPoint;
+        private final FactHandle handle;
+        /**
+         * Whether the event is the latest move of a living worm, or the
+         * addition of a collectible still on the playground.
+         */
+        private boolean retained = false;
+        /**
+         * Whether the event is already too old, to be retracted as soon as it
+         * is no longer retained.
+         */
+        private boolean overdue = false;
+
+        public InsertedEvent(final int turn, final WorkingMemoryEntryPoint entryPoint, final FactHandle handle) {
+            this.turn = turn;
+            this.entryPoint = entryPoint;
+            this.handle = handle;
+        }
+
+        public int getTurn() {
+            return this.turn;
+        }
+
+        /**
+         * Retract the event once it is too old.
+         */
+        public void expire() {
+            if (this.retained) {
+                this.overdue = true;
+            } else {
+                this.entryPoint.retract(this.handle);
+            }
+        }
+
+        /**
+         * Keep the event in the working memory, no matter how old it gets.
+         * 
+         * @return This.
+         */
+        public InsertedEvent retain() {
+            this.retained = true;
+            return this;
+        }
+
+        /**
+         * Stop retaining the event; retract it if it is already too old.
+         */
+        public void release() {
+            this.retained = false;
+            if (this.overdue) {
+                this.overdue = false;
+                this.entryPoint.retract(this.handle);
+            }
+        }
+
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DecisionMaker.class);
 
     private static KnowledgeSessionConfiguration getSessionConfiguration() {
@@ -123,13 +195,24 @@ public class DecisionMaker implements Channel {
     private final WorkingMemoryEntryPoint gameEvents, playerEvents, rewardEvents;
     private Move latestDecision = null;
     private final FactHandle currentTurn;
+    private final int eventRetentionTurns;
+    private final Deque<InsertedEvent> events = new ArrayDeque<>();
+    /**
+     * The latest move of every living worm, retained.
+     */
+    private final Map<Player, InsertedEvent> latestMoves = new HashMap<>();
+    /**
+     * The addition of every collectible still on the playground, retained.
+     */
+    private final Map<Collectible, InsertedEvent> collectibleAdditions = new HashMap<>();
 
     private final Map<Player, Map<Node, FactHandle>> handles = new HashMap<Player, Map<Node, FactHandle>>();
 
     public DecisionMaker(final Player p, final PathTracker tracker, final GameProperties properties,
             final File reportFolder) {
         this.player = p;
-        this.session = p.constructKnowledgeBase().newStatefulKnowledgeSession(DecisionMaker.getSessionConfiguration(),
+        this.eventRetentionTurns = properties.getEventRetentionTurns();
+        this.session = p.getKnowledgeBase().newStatefulKnowledgeSession(DecisionMaker.getSessionConfiguration(),
                 null);
         if (p.auditSession()) {
             DecisionMaker.LOGGER.info("Auditing the Drools session is enabled.");
@@ -179,6 +262,9 @@ public class DecisionMaker implements Channel {
         this.session.insert(new GameProperty(GameProperty.Name.DEAD_WORM_BONUS, properties.getDeadWormBonus()));
         this.session.insert(new GameProperty(GameProperty.Name.TIMEOUT_IN_SECONDS, properties
                 .getStrategyTimeoutInSeconds()));
+        this.session.insert(new GameProperty(GameProperty.Name.TIMEOUT_IN_MILLISECONDS, (int) Math.min(
+                Integer.MAX_VALUE, properties.getStrategyTimeoutInMillis())));
+        this.session.insert(new GameProperty(GameProperty.Name.EVENT_RETENTION_TURNS, this.eventRetentionTurns));
         // insert info about the game status
         this.currentTurn = this.session.insert(new CurrentTurn(0));
         this.session.insert(new CurrentPlayer(p));
@@ -195,6 +281,7 @@ public class DecisionMaker implements Channel {
         DecisionMaker.LOGGER.trace("Player {} advancing time. ", new Object[] { this.player.getName() });
         final SessionPseudoClock clock = this.session.getSessionClock();
         clock.advanceTime(1, TimeUnit.MINUTES);
+        this.expireEvents();
         // decide
         DecisionMaker.LOGGER.trace("Player {} deciding. ", new Object[] { this.player.getName() });
         this.latestDecision = null;
@@ -212,10 +299,28 @@ public class DecisionMaker implements Channel {
         }
     }
 
+    /**
+     * Retract the events that have been in the working memory for too long.
+     */
+    private void expireEvents() {
+        final int oldestRetainedTurn = this.getTurnNumber() - this.eventRetentionTurns + 1;
+        while (!this.events.isEmpty() && this.events.peek().getTurn() < oldestRetainedTurn) {
+            /*
+             * strategies look for the latest move to find where the worm is,
+             * and for the additions to find the collectibles; those stay
+             */
+            this.events.poll().expire();
+        }
+    }
+
     public Player getPlayer() {
         return this.player;
     }
 
+    private int getTurnNumber() {
+        return ((CurrentTurn) this.session.getObject(this.currentTurn)).getNumber();
+    }
+
     /**
      * Stop the decision-making process, no matter where it currently is.
      */
@@ -232,52 +337,93 @@ public class DecisionMaker implements Channel {
         return this.isDisposed;
     }
 
+    private InsertedEvent insertEvent(final WorkingMemoryEntryPoint entryPoint, final Object evt) {
+        final InsertedEvent event = new InsertedEvent(this.getTurnNumber(), entryPoint, entryPoint.insert(evt));
+        this.events.add(event);
+        return event;
+    }
+
     public void notifyOfCollectibleAddition(final CollectibleAdditionEvent evt) {
-        this.gameEvents.insert(evt);
+        this.collectibleAdditions.put(evt.getCollectible(), this.insertEvent(this.gameEvents, evt).retain());
     }
 
     public void notifyOfCollectibleRemoval(final CollectibleRemovalEvent evt) {
-        this.gameEvents.insert(evt);
+        this.insertEvent(this.gameEvents, evt);
+        this.releaseEvent(this.collectibleAdditions.remove(evt.getCollectible()));
     }
 
     public void notifyOfCollectibleReward(final CollectibleRewardEvent evt) {
-        this.rewardEvents.insert(evt);
+        this.insertEvent(this.rewardEvents, evt);
+        this.releaseEvent(this.collectibleAdditions.remove(evt.getCollectible()));
     }
 
     public void notifyOfDeath(final PlayerDeathEvent evt) {
-        this.playerEvents.insert(evt);
+        this.insertEvent(this.playerEvents, evt);
         final Player p = evt.getPlayer();
+        // dead worms don't need their latest move anymore
+        this.replaceLatestMove(p, null);
         // remove player from the WM
         for (final Map.Entry<Node, FactHandle> entry : this.handles.remove(p).entrySet()) {
             this.session.retract(entry.getValue());
         }
     }
 
-    public void notifyOfPlayerMove(final PlayerMoveEvent evt) {
+    /**
+     * Notify the strategy of a worm having moved, and update the {@link Worm}s
+     * in the working memory accordingly.
+     * 
+     * @param evt
+     *            The move.
+     * @param addedHead
+     *            The node that the worm's head moved into; null if none.
+     * @param removedTail
+     *            The node that the worm's tail no longer occupies; null if
+     *            none.
+     */
+    public void notifyOfPlayerMove(final PlayerMoveEvent evt, final Node addedHead, final Node removedTail) {
         final Player p = evt.getPlayer();
-        this.playerEvents.insert(evt);
+        this.replaceLatestMove(p, this.insertEvent(this.playerEvents, evt).retain());
         // update player positions
-        if (!this.handles.containsKey(p)) {
-            this.handles.put(p, new HashMap<Node, FactHandle>());
+        Map<Node, FactHandle> playerHandles = this.handles.get(p);
+        if (playerHandles == null) { // first move; the worm is not in the WM yet
+            playerHandles = new HashMap<Node, FactHandle>();
+            this.handles.put(p, playerHandles);
+            for (final Node n : evt.getNodes()) {
+                if (!playerHandles.containsKey(n)) {
+                    playerHandles.put(n, this.session.insert(new Worm(p, n)));
+                }
+            }
+            return;
         }
-        final Map<Node, FactHandle> playerHandles = this.handles.get(p);
-        final Set<Node> untraversedNodes = new HashSet<Node>(playerHandles.keySet());
-        for (final Node n : evt.getNodes()) {
-            if (!playerHandles.containsKey(n)) { // worm occupies a new node
-                final FactHandle fh = this.session.insert(new Worm(p, n));
-                playerHandles.put(n, fh);
+        if (removedTail != null && removedTail != addedHead) { // worm no longer occupies a node
+            final FactHandle fh = playerHandles.remove(removedTail);
+            if (fh != null) {
+                this.session.retract(fh);
             }
-            untraversedNodes.remove(n);
         }
-        for (final Node n : untraversedNodes) { // worm no longer
-                                                // occupies a node
-            final FactHandle fh = playerHandles.remove(n);
-            this.session.retract(fh);
+        if (addedHead != null && !playerHandles.containsKey(addedHead)) { // worm occupies a new node
+            playerHandles.put(addedHead, this.session.insert(new Worm(p, addedHead)));
         }
     }
 
     public void notifyOfSurvivalReward(final SurvivalRewardEvent evt) {
-        this.rewardEvents.insert(evt);
+        this.insertEvent(this.rewardEvents, evt);
+    }
+
+    /**
+     * Stop retaining an event, retracting it if it is already too old.
+     * 
+     * @param event
+     *            The event; null if none.
+     */
+    private void releaseEvent(final InsertedEvent event) {
+        if (event != null) {
+            event.release();
+        }
+    }
+
+    private void replaceLatestMove(final Player p, final InsertedEvent move) {
+        this.releaseEvent(move == null ? this.latestMoves.remove(p) : this.latestMoves.put(p, move));
     }
 
     @Override
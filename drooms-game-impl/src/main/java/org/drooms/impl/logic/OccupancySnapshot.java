@@ -0,0 +1,143 @@
+package org.drooms.impl.logic;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+/**
+ * Immutable record of where all the worms are at the beginning of a turn. It is
+ * built once per turn by the {@link CommandDistributor} and shared by all the
+ * {@link PathTracker}s.
+ */
+public class OccupancySnapshot {
+
+    /**
+     * All the occupied nodes, except for one worm's head.
+     */
+    private class ObstacleSet extends AbstractSet<Node> {
+
+        private final Node head;
+
+        public ObstacleSet(final Node head) {
+            this.head = head;
+        }
+
+        @Override
+        public boolean contains(final Object o) {
+            return !this.head.equals(o) && OccupancySnapshot.this.occupied.contains(o);
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            final Iterator<Node> it = OccupancySnapshot.this.occupied.iterator();
+            return new Iterator<Node>() {
+
+                private Node next = this.findNext();
+
+                private Node findNext() {
+                    while (it.hasNext()) {
+                        final Node n = it.next();
+                        if (!ObstacleSet.this.head.equals(n)) {
+                            return n;
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public Node next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    final Node n = this.next;
+                    this.next = this.findNext();
+                    return n;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("The snapshot is immutable.");
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            final int size = OccupancySnapshot.this.occupied.size();
+            return OccupancySnapshot.this.occupied.contains(this.head) ? size - 1 : size;
+        }
+
+    }
+
+    private final Map<Player, Node> heads = new HashMap<>();
+
+    private final Set<Node> occupied = new HashSet<>();
+
+    /**
+     * Take the snapshot.
+     * 
+     * @param positions
+     *            Current positions of all the worms, heads first.
+     */
+    public OccupancySnapshot(final Map<Player, Deque<Node>> positions) {
+        for (final Map.Entry<Player, Deque<Node>> entry : positions.entrySet()) {
+            final Deque<Node> playerNodes = entry.getValue();
+            this.heads.put(entry.getKey(), playerNodes.getFirst());
+            this.occupied.addAll(playerNodes);
+        }
+    }
+
+    /**
+     * Retrieve the position of a worm's head.
+     * 
+     * @param p
+     *            The player whose worm it is.
+     * @return The position, or null if the player's worm is not known.
+     */
+    public Node getHead(final Player p) {
+        return this.heads.get(p);
+    }
+
+    /**
+     * Retrieve the nodes that a worm cannot move through. That is all the
+     * nodes occupied by any worm, except for the worm's own head - otherwise
+     * there would be no path between the worm's current position and any
+     * other position.
+     * 
+     * @param p
+     *            The player whose worm it is.
+     * @return Unmodifiable view of the snapshot.
+     */
+    public Set<Node> getObstaclesFor(final Player p) {
+        final Node head = this.getHead(p);
+        if (head == null) {
+            return this.getOccupiedNodes();
+        }
+        return new ObstacleSet(head);
+    }
+
+    /**
+     * Retrieve all the nodes occupied by any worm.
+     * 
+     * @return Unmodifiable set.
+     */
+    public Set<Node> getOccupiedNodes() {
+        return Collections.unmodifiableSet(this.occupied);
+    }
+
+}
@@ -1,25 +1,22 @@
 package org.drooms.impl.logic;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
+import org.drooms.impl.DefaultPlayground;
+import org.drooms.impl.util.graph.MaskedGraph;
+import org.drooms.impl.util.shortestpath.DistanceOracle;
+import org.drooms.impl.util.shortestpath.PointToPointShortestPath;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath;
 
 import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
 import edu.uci.ics.jung.algorithms.shortestpath.ShortestPathUtils;
-import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.UndirectedGraph;
-import edu.uci.ics.jung.graph.UndirectedSparseGraph;
-import edu.uci.ics.jung.graph.util.Graphs;
 
 /**
  * A helper class for the strategies to be able to quickly and easily find paths
@@ -27,27 +24,13 @@ import edu.uci.ics.jung.graph.util.Graphs;
  */
 public class PathTracker {
 
-    private static UndirectedGraph<Node, Edge> cloneGraph(final Graph<Node, Edge> src,
-            final Collection<Node> removeNodes) {
-        final UndirectedGraph<Node, Edge> clone = new UndirectedSparseGraph<>();
-        for (final Edge e : src.getEdges()) {
-            final boolean isEdgeAdded = clone.addEdge(e, src.getIncidentVertices(e));
-            if (!isEdgeAdded) {
-                throw new IllegalStateException("Failed cloning graph. This surely is a bug in Drooms.");
-            }
-        }
-        for (final Node node : removeNodes) {
-            clone.removeVertex(node);
-        }
-        return Graphs.unmodifiableUndirectedGraph(clone);
-    }
-
     private final Playground playground;
     private final Player player;
     private UndirectedGraph<Node, Edge> currentGraph;
 
     private ShortestPath<Node, Edge> currentPath;
     private Node currentPosition;
+    private DistanceOracle distanceOracle;
 
     /**
      * Initialize the class.
@@ -64,15 +47,37 @@ public class PathTracker {
 
     /**
      * Retrieve the current position of the player's worm's head, that is the
-     * one found during the last {@link #movePlayers(Map)} call.
+     * one found during the last {@link #movePlayers(OccupancySnapshot)} call.
      * 
-     * @return The position, or null if {@link #movePlayers(Map)} had never been
-     *         called before.
+     * @return The position, or null if
+     *         {@link #movePlayers(OccupancySnapshot)} had never been called
+     *         before.
      */
     public Node getCurrentPosition() {
         return this.currentPosition;
     }
 
+    /**
+     * Retrieve the distances between nodes of the playground, as if there were
+     * no worms. Worms only ever make paths longer, so these distances are a
+     * lower bound for the length of any path found here and can be used as a
+     * heuristic for {@link UnweightedAStarShortestPath}. Calculating them is
+     * expensive; for a {@link DefaultPlayground}, the game does it before the
+     * first turn.
+     * 
+     * @return The distances.
+     */
+    public DistanceOracle getDistanceOracle() {
+        if (this.distanceOracle == null) {
+            if (this.playground instanceof DefaultPlayground) {
+                this.distanceOracle = ((DefaultPlayground) this.playground).getDistanceOracle();
+            } else {
+                this.distanceOracle = DistanceOracle.forGraph(this.playground.getGraph());
+            }
+        }
+        return this.distanceOracle;
+    }
+
     /**
      * Find the shortest path between two nodes.
      * 
@@ -84,7 +89,18 @@ public class PathTracker {
      *         end. Empty if path cannot be found.
      */
     public List<Edge> getPath(final Node start, final Node end) {
-        return Collections.unmodifiableList(ShortestPathUtils.getPath(this.currentGraph, this.currentPath, start, end));
+        if (!(this.currentPath instanceof PointToPointShortestPath)) {
+            return Collections.unmodifiableList(ShortestPathUtils.getPath(this.currentGraph, this.currentPath, start,
+                    end));
+        }
+        // no need to find paths to all the other nodes
+        @SuppressWarnings("unchecked")
+        final List<Node> nodes = ((PointToPointShortestPath<Node, Edge>) this.currentPath).find(start, end);
+        final List<Edge> path = new ArrayList<Edge>(Math.max(0, nodes.size() - 1));
+        for (int i = 1; i < nodes.size(); i++) {
+            path.add(this.currentGraph.findEdge(nodes.get(i - 1), nodes.get(i)));
+        }
+        return Collections.unmodifiableList(path);
     }
 
     /**
@@ -127,26 +143,15 @@ public class PathTracker {
      * Update the internal state of this class so that future paths can avoid
      * places where the worms currently reside.
      * 
-     * @param newPositions
+     * @param snapshot
      *            New current positions of all the worms.
      */
-    protected void movePlayers(final Map<Player, Deque<Node>> newPositions) {
-        final Set<Node> unavailable = new HashSet<>();
-        for (final Map.Entry<Player, Deque<Node>> entry : newPositions.entrySet()) {
-            Deque<Node> playerNodes = entry.getValue(); 
-            unavailable.addAll(playerNodes);
-            if (entry.getKey() == this.player) {
-                /*
-                 * the head node needs to remain, since otherwise there would be
-                 * no path between the current position and any other position.
-                 */
-                unavailable.remove(playerNodes.getFirst());
-            }
-        }
-        final Graph<Node, Edge> graphWithoutPlayers = this.playground.getGraph();
-        this.currentGraph = PathTracker.cloneGraph(graphWithoutPlayers, unavailable);
+    protected void movePlayers(final OccupancySnapshot snapshot) {
+        // hide the worms from the playground graph instead of copying it; the A* searches keep their structures
+        // per playground, so a new algorithm for the new mask costs next to nothing
+        this.currentGraph = new MaskedGraph(this.playground.getGraph(), snapshot.getObstaclesFor(this.player));
         this.currentPath = this.player.getShortestPathAlgorithm(this.currentGraph);
-        this.currentPosition = newPositions.get(this.player).getFirst();
+        this.currentPosition = snapshot.getHead(this.player);
     }
 
 }
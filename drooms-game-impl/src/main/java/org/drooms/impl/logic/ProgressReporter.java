@@ -0,0 +1,226 @@
+package org.drooms.impl.logic;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Move;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Turn;
+import org.drooms.api.TurnListener;
+import org.drooms.impl.logic.commands.Command;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the progress of the game to the {@link GameProgressListener}s and
+ * {@link TurnListener}s on a thread of its own, so that slow listeners don't
+ * hold up the game. Turns are delivered one by one, in the order in which they
+ * were played. When the listeners fall too far behind, reporting another turn
+ * blocks until they catch up.
+ */
+class ProgressReporter implements Runnable {
+
+    /**
+     * Collects the events of a single turn into a {@link Turn}.
+     */
+    private static class TurnAssembler implements GameProgressListener {
+
+        private final Turn.Builder builder;
+
+        public TurnAssembler(final int turnNumber) {
+            this.builder = new Turn.Builder(turnNumber);
+        }
+
+        public Turn build() {
+            return this.builder.build();
+        }
+
+        @Override
+        public void collectibleAdded(final Collectible c, final Node where) {
+            this.builder.addCollectible(c, where);
+        }
+
+        @Override
+        public void collectibleCollected(final Collectible c, final Player p, final Node where, final int points) {
+            this.builder.collectCollectible(c, p, where, points);
+        }
+
+        @Override
+        public void collectibleRemoved(final Collectible c, final Node where) {
+            this.builder.removeCollectible(c, where);
+        }
+
+        @Override
+        public void nextTurn() {
+            // the turn number is known up front
+        }
+
+        @Override
+        public void playerCrashed(final Player p) {
+            this.builder.crashPlayer(p);
+        }
+
+        @Override
+        public void playerDeactivated(final Player p) {
+            this.builder.deactivatePlayer(p);
+        }
+
+        @Override
+        public void playerMoved(final Player p, final Move m, final Node... nodes) {
+            this.builder.movePlayer(p, m, nodes);
+        }
+
+        @Override
+        public void playerSurvived(final Player p, final int points) {
+            this.builder.rewardSurvival(p, points);
+        }
+
+        @Override
+        public void write(final Writer w) {
+            // the turn is the only output
+        }
+
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProgressReporter.class);
+
+    /**
+     * How many turns may wait for the listeners before the game is held up.
+     */
+    private static final int MAXIMUM_PENDING_TURNS = 16;
+
+    /**
+     * Placed in the queue after the last turn.
+     */
+    private static final List<Command> END = Collections.unmodifiableList(new ArrayList<Command>());
+
+    private final BlockingQueue<List<Command>> turns = new ArrayBlockingQueue<>(
+            ProgressReporter.MAXIMUM_PENDING_TURNS);
+
+    private final List<GameProgressListener> listeners;
+
+    private final List<TurnListener> turnListeners;
+
+    private final Thread thread;
+
+    private int turnNumber = 0;
+
+    private volatile RuntimeException failure = null;
+
+    /**
+     * Start the reporting thread.
+     * 
+     * @param listeners
+     *            Listeners to report to event by event. Must be safe to
+     *            iterate over while other threads add to it.
+     * @param turnListeners
+     *            Listeners to report to turn by turn. Must be safe to iterate
+     *            over while other threads add to it.
+     */
+    public ProgressReporter(final List<GameProgressListener> listeners, final List<TurnListener> turnListeners) {
+        this.listeners = listeners;
+        this.turnListeners = turnListeners;
+        this.thread = new Thread(this, "drooms-progress-reporter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void checkFailure() {
+        if (this.failure != null) {
+            throw new IllegalStateException("Failed reporting the progress of the game.", this.failure);
+        }
+    }
+
+    private void enqueue(final List<Command> turn) {
+        try {
+            this.turns.put(turn);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reporting the progress of the game.", e);
+        }
+    }
+
+    /**
+     * Wait until all the turns reported so far are delivered to the
+     * listeners, and stop the reporting thread. No more turns can be reported
+     * afterwards.
+     */
+    public void flush() {
+        if (!this.thread.isAlive()) {
+            return;
+        }
+        this.enqueue(ProgressReporter.END);
+        try {
+            this.thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reporting the progress of the game.", e);
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Queue a turn to be reported.
+     * 
+     * @param commands
+     *            State changes that happened in the turn, in this exact order.
+     */
+    public void report(final List<Command> commands) {
+        this.checkFailure();
+        this.enqueue(Collections.unmodifiableList(new ArrayList<>(commands)));
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            final List<Command> commands;
+            try {
+                commands = this.turns.take();
+            } catch (final InterruptedException e) {
+                ProgressReporter.LOGGER.warn("Reporting interrupted, the reports will be incomplete.");
+                return;
+            }
+            if (commands == ProgressReporter.END) {
+                return;
+            }
+            final int currentTurn = this.turnNumber++;
+            if (this.failure != null) {
+                // keep taking the turns, so that the game isn't held up
+                continue;
+            }
+            try {
+                for (final GameProgressListener listener : this.listeners) {
+                    listener.nextTurn();
+                }
+                for (final Command command : commands) {
+                    ProgressReporter.LOGGER.info("Will process command: {}", command);
+                    for (final GameProgressListener listener : this.listeners) {
+                        command.report(listener);
+                    }
+                }
+                if (!this.turnListeners.isEmpty()) {
+                    // assemble the turn only once, no matter how many listen
+                    final TurnAssembler assembler = new TurnAssembler(currentTurn);
+                    for (final Command command : commands) {
+                        command.report(assembler);
+                    }
+                    final Turn turn = assembler.build();
+                    for (final TurnListener listener : this.turnListeners) {
+                        listener.turnPlayed(turn);
+                    }
+                }
+            } catch (final RuntimeException e) {
+                ProgressReporter.LOGGER.error("Failed reporting the progress of the game.", e);
+                this.failure = e;
+            }
+        }
+    }
+
+}
@@ -9,6 +9,7 @@ import org.drooms.api.Player;
 import org.drooms.impl.logic.DecisionMaker;
 import org.drooms.impl.logic.PlayerRelated;
 import org.drooms.impl.logic.events.PlayerMoveEvent;
+import org.drooms.impl.util.PositionChange;
 
 public class MovePlayerCommand implements Command, PlayerRelated {
 
@@ -16,13 +17,27 @@ public class MovePlayerCommand implements Command, PlayerRelated {
     private final Move whichMove;
     private final Deque<Node> nodes;
     private final PlayerMoveEvent event;
+    private final PositionChange change;
 
+    /**
+     * Prepare the command.
+     * 
+     * @param p
+     *            The player whose worm is moving.
+     * @param m
+     *            The move.
+     * @param nodes
+     *            Position of the worm after the move, head first.
+     * @param change
+     *            How the move changed the position of the worm.
+     */
     public MovePlayerCommand(final Player p, final Move m,
-            final Deque<Node> nodes) {
+            final Deque<Node> nodes, final PositionChange change) {
         this.toMove = p;
         this.whichMove = m;
         this.nodes = nodes;
         this.event = new PlayerMoveEvent(p, m, nodes);
+        this.change = change;
     }
 
     public Deque<Node> getNodes() {
@@ -36,7 +51,8 @@ public class MovePlayerCommand implements Command, PlayerRelated {
 
     @Override
     public void perform(final DecisionMaker logic) {
-        logic.notifyOfPlayerMove(this.event);
+        logic.notifyOfPlayerMove(this.event, this.change.getAddedHead(),
+                this.change.getRemovedTail());
     }
 
     @Override
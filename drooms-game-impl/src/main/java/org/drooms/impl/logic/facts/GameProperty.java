@@ -29,7 +29,17 @@ public class GameProperty {
          * How much time the strategy has to decide on a move. After that, the
          * strategy will be terminated.
          */
-        TIMEOUT_IN_SECONDS
+        TIMEOUT_IN_SECONDS,
+        /**
+         * The same as {@link #TIMEOUT_IN_SECONDS}, only more precise.
+         */
+        TIMEOUT_IN_MILLISECONDS,
+        /**
+         * For how many turns the events stay in the working memory. The
+         * latest move of every worm and the addition of every collectible
+         * still on the playground are kept regardless.
+         */
+        EVENT_RETENTION_TURNS
 
     }
 
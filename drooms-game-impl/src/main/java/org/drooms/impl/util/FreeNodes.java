@@ -0,0 +1,138 @@
+package org.drooms.impl.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+
+/**
+ * Keeps track of the {@link Node}s of a {@link Playground} that are not
+ * currently used by anything, so that a random one can be picked in constant
+ * time. Nodes are kept in an array; when a node is removed, the last node in
+ * the array takes its place.
+ * 
+ * Wall nodes and nodes outside of the playground are never considered free.
+ */
+public class FreeNodes {
+
+    private final Playground playground;
+
+    private final int width, height;
+
+    private final Node[] nodes;
+
+    /**
+     * For every node on the playground, its position in {@link #nodes}; -1
+     * when the node is not free.
+     */
+    private final int[] positions;
+
+    private int size = 0;
+
+    /**
+     * Prepare the index with all the non-wall nodes of a given playground
+     * being free.
+     * 
+     * @param playground
+     *            The playground to track.
+     */
+    public FreeNodes(final Playground playground) {
+        this.playground = playground;
+        this.width = playground.getWidth();
+        this.height = playground.getHeight();
+        this.nodes = new Node[this.width * this.height];
+        this.positions = new int[this.width * this.height];
+        Arrays.fill(this.positions, -1);
+        for (int x = 0; x < this.width; x++) {
+            for (int y = 0; y < this.height; y++) {
+                this.add(Node.getNode(x, y));
+            }
+        }
+    }
+
+    /**
+     * Mark the node as free.
+     * 
+     * @param n
+     *            The node in question.
+     * @return True if the node wasn't free before.
+     */
+    public boolean add(final Node n) {
+        final int index = this.getIndex(n);
+        if (index < 0 || this.positions[index] >= 0) {
+            return false;
+        }
+        this.nodes[this.size] = n;
+        this.positions[index] = this.size;
+        this.size++;
+        return true;
+    }
+
+    /**
+     * Whether or not the node is free.
+     * 
+     * @param n
+     *            The node in question.
+     * @return True if free.
+     */
+    public boolean contains(final Node n) {
+        final int index = this.getIndex(n);
+        return index >= 0 && this.positions[index] >= 0;
+    }
+
+    private int getIndex(final Node n) {
+        final int x = n.getX();
+        final int y = n.getY();
+        if (!this.playground.isAvailable(x, y)) {
+            return -1;
+        }
+        return y * this.width + x;
+    }
+
+    /**
+     * Pick one of the free nodes, each of them with the same probability.
+     * 
+     * @param random
+     *            The source of randomness.
+     * @return The node, or null if there are no free nodes.
+     */
+    public Node pickRandom(final Random random) {
+        if (this.size == 0) {
+            return null;
+        }
+        return this.nodes[random.nextInt(this.size)];
+    }
+
+    /**
+     * Mark the node as no longer free.
+     * 
+     * @param n
+     *            The node in question.
+     * @return True if the node was free before.
+     */
+    public boolean remove(final Node n) {
+        final int index = this.getIndex(n);
+        if (index < 0 || this.positions[index] < 0) {
+            return false;
+        }
+        final int position = this.positions[index];
+        final Node last = this.nodes[this.size - 1];
+        this.nodes[position] = last;
+        this.positions[this.getIndex(last)] = position;
+        this.nodes[this.size - 1] = null;
+        this.positions[index] = -1;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * How many nodes are free.
+     * 
+     * @return Number >= 0.
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
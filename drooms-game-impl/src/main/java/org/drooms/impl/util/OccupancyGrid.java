@@ -0,0 +1,88 @@
+package org.drooms.impl.util;
+
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+
+/**
+ * Keeps track of how many pieces of worms there are in each {@link Node} of a
+ * {@link Playground}. Meant to be updated incrementally, as the worms move -
+ * when a worm's head enters a node, the node is {@link #occupy(Node)}ed; when
+ * the worm's tail leaves a node, it is {@link #vacate(Node)}d.
+ * 
+ * The grid also covers the nodes immediately surrounding the playground, since
+ * that is where the worms may end up when they crash into the outer walls.
+ */
+public class OccupancyGrid {
+
+    private final int width, height;
+
+    private final int[] occupancy;
+
+    /**
+     * Prepare an empty grid for a given playground.
+     * 
+     * @param playground
+     *            The playground to track.
+     */
+    public OccupancyGrid(final Playground playground) {
+        this.width = playground.getWidth() + 2;
+        this.height = playground.getHeight() + 2;
+        this.occupancy = new int[this.width * this.height];
+    }
+
+    /**
+     * How many pieces of worms are there in the given node.
+     * 
+     * @param n
+     *            The node in question.
+     * @return Number >= 0. When > 1, some worms have collided there.
+     */
+    public int getOccupancy(final Node n) {
+        return this.occupancy[this.getIndex(n)];
+    }
+
+    private int getIndex(final Node n) {
+        final int x = n.getX() + 1;
+        final int y = n.getY() + 1;
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            throw new IllegalArgumentException("Node outside of the playground: " + n);
+        }
+        return y * this.width + x;
+    }
+
+    /**
+     * Whether or not there are any worms in the given node.
+     * 
+     * @param n
+     *            The node in question.
+     * @return True if at least one piece of a worm is there.
+     */
+    public boolean isOccupied(final Node n) {
+        return this.getOccupancy(n) > 0;
+    }
+
+    /**
+     * Record a piece of a worm entering the node.
+     * 
+     * @param n
+     *            The node in question.
+     */
+    public void occupy(final Node n) {
+        this.occupancy[this.getIndex(n)]++;
+    }
+
+    /**
+     * Record a piece of a worm leaving the node.
+     * 
+     * @param n
+     *            The node in question.
+     */
+    public void vacate(final Node n) {
+        final int index = this.getIndex(n);
+        if (this.occupancy[index] == 0) {
+            throw new IllegalStateException("Node not occupied: " + n);
+        }
+        this.occupancy[index]--;
+    }
+
+}
@@ -1,27 +1,51 @@
 package org.drooms.impl.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.drools.builder.KnowledgeBuilder;
+import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.core.util.DroolsStreamUtils;
+import org.drools.definition.KnowledgePackage;
 import org.drooms.api.CustomPathBasedStrategy;
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Strategy;
 import org.drooms.impl.GameController;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
 import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
@@ -30,6 +54,11 @@ import edu.uci.ics.jung.graph.Graph;
 /**
  * A helper class to load {@link Strategy} implementations for all requested
  * {@link Player}s.
+ * 
+ * Compiling strategies takes a lot of time. When given a cache folder, the
+ * compiled knowledge packages are stored there, under a key derived from the
+ * contents of the strategy JAR file and of the game classes, and they are
+ * loaded from there the next time the same strategy is requested.
  */
 public class PlayerAssembly {
 
@@ -84,6 +113,123 @@ public class PlayerAssembly {
 
     }
 
+    private static class CompiledStrategy {
+
+        private final CustomPathBasedStrategy strategy;
+        private final ClassLoader classLoader;
+        private final Collection<KnowledgePackage> packages;
+
+        public CompiledStrategy(final CustomPathBasedStrategy strategy, final ClassLoader classLoader,
+                final Collection<KnowledgePackage> packages) {
+            this.strategy = strategy;
+            this.classLoader = classLoader;
+            this.packages = packages;
+        }
+
+        public ClassLoader getClassLoader() {
+            return this.classLoader;
+        }
+
+        public Collection<KnowledgePackage> getPackages() {
+            return this.packages;
+        }
+
+        public CustomPathBasedStrategy getStrategy() {
+            return this.strategy;
+        }
+
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlayerAssembly.class);
+
+    /**
+     * Hash of the game API and implementation classes that the strategies are
+     * compiled against; lazily computed by {@link #getEngineDigest()}.
+     */
+    private static byte[] engineDigest = null;
+
+    /**
+     * Feed the contents of a file into the digest; if it is a folder, feed
+     * the names and the contents of all the files inside, in a stable order.
+     */
+    private static void digestFile(final MessageDigest digest, final File file, final String name)
+            throws IOException {
+        if (file.isDirectory()) {
+            final File[] children = file.listFiles();
+            if (children == null) {
+                throw new IOException("Cannot list folder: " + file);
+            }
+            Arrays.sort(children);
+            for (final File child : children) {
+                PlayerAssembly.digestFile(digest, child, name + "/" + child.getName());
+            }
+            return;
+        }
+        digest.update(name.getBytes("UTF-8"));
+        try (InputStream is = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), digest)) {
+            final byte[] buffer = new byte[8192];
+            while (is.read(buffer) >= 0) {
+                // just reading updates the digest
+            }
+        }
+    }
+
+    /**
+     * Hash the JARs (or class folders) of drooms-api and drooms-game-impl, so
+     * that compiled strategies are not reused once the facts and events they
+     * refer to change. The artifacts carry no version that could be relied
+     * upon instead.
+     * 
+     * @return SHA-1 of the contents.
+     */
+    private static synchronized byte[] getEngineDigest() {
+        if (PlayerAssembly.engineDigest == null) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                for (final Class<?> cls : new Class<?>[] { Player.class, PlayerAssembly.class }) {
+                    final CodeSource source = cls.getProtectionDomain().getCodeSource();
+                    if (source == null || source.getLocation() == null) {
+                        throw new IllegalStateException("Cannot locate the classes of " + cls.getName());
+                    }
+                    final File location = new File(source.getLocation().toURI());
+                    PlayerAssembly.digestFile(digest, location, location.getName());
+                }
+                PlayerAssembly.engineDigest = digest.digest();
+            } catch (final IOException | NoSuchAlgorithmException | URISyntaxException e) {
+                throw new IllegalStateException("Cannot read the game classes.", e);
+            }
+        }
+        return PlayerAssembly.engineDigest;
+    }
+
+    /**
+     * Derive a key for the compiled strategy, so that it changes whenever the
+     * strategy or the libraries it is compiled against change.
+     * 
+     * @param strategyClass
+     *            Class name of the strategy.
+     * @param strategyJar
+     *            The JAR with the strategy.
+     * @return SHA-1 hash in hexadecimal.
+     */
+    private static String getCacheKey(final String strategyClass, final URI strategyJar) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            try (InputStream is = new DigestInputStream(PlayerAssembly.uriToUrl(strategyJar).openStream(), digest)) {
+                final byte[] buffer = new byte[8192];
+                while (is.read(buffer) >= 0) {
+                    // just reading updates the digest
+                }
+            }
+            final String versions = strategyClass + "|" + KnowledgeBuilder.class.getPackage().getImplementationVersion();
+            digest.update(versions.getBytes("UTF-8"));
+            digest.update(PlayerAssembly.getEngineDigest());
+            return String.format("%040x", new BigInteger(1, digest.digest()));
+        } catch (final IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot read strategy JAR: " + strategyJar, e);
+        }
+    }
+
     private static URL uriToUrl(final URI uri) {
         try {
             return uri.toURL();
@@ -94,12 +240,14 @@ public class PlayerAssembly {
 
     private final Properties config;
 
+    private final File cacheFolder;
+
     private final Map<URI, ClassLoader> strategyClassloaders = new HashMap<>();
 
     private final Map<String, Strategy> strategyInstances = new HashMap<>();
 
     /**
-     * Initialize the class.
+     * Initialize the class. Strategies will always be compiled.
      * 
      * @param f
      *            Game config as described in
@@ -107,12 +255,31 @@ public class PlayerAssembly {
      *            .
      */
     public PlayerAssembly(final File f) {
+        this(f, null);
+    }
+
+    /**
+     * Initialize the class.
+     * 
+     * @param f
+     *            Game config as described in
+     *            {@link GameController#play(org.drooms.api.Playground, Properties, Collection, File)}
+     *            .
+     * @param cacheFolder
+     *            Where to store compiled strategies. If it doesn't exist, it is
+     *            created. Null if strategies should always be compiled.
+     */
+    public PlayerAssembly(final File f, final File cacheFolder) {
         try (FileReader fr = new FileReader(f)) {
             this.config = new Properties();
             this.config.load(fr);
         } catch (final Exception e) {
             throw new IllegalArgumentException("Cannot read player config file.", e);
         }
+        this.cacheFolder = cacheFolder;
+        if (this.cacheFolder != null && !this.cacheFolder.exists()) {
+            this.cacheFolder.mkdirs();
+        }
     }
 
     /**
@@ -144,28 +311,70 @@ public class PlayerAssembly {
                 throw new IllegalArgumentException("Invalid URL in the strategy descriptor: " + strategyDescr, e);
             }
         }
-        // load strategies for players
-        final List<Player> players = new ArrayList<>();
-        for (final Map.Entry<String, String> entry : playerStrategies.entrySet()) {
-            final String playerName = entry.getKey();
-            final String strategyClass = entry.getValue();
-            final URI strategyJar = strategyJars.get(strategyClass);
-            CustomPathBasedStrategy strategy;
-            try {
-                final Strategy s = this.loadStrategy(strategyClass, strategyJar);
-                if (s instanceof CustomPathBasedStrategy) {
-                    strategy = (CustomPathBasedStrategy) s;
-                } else {
-                    // if the strategy doesn't care about path, provide the
-                    // default one
-                    strategy = new DefaultPathBasedStrategy(s);
+        // load and compile every distinct strategy only once, all at the same time
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1,
+                Math.min(strategyJars.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            final Map<String, Future<CompiledStrategy>> strategies = new HashMap<>();
+            for (final Map.Entry<String, URI> entry : strategyJars.entrySet()) {
+                final String strategyClass = entry.getKey();
+                final URI strategyJar = entry.getValue();
+                strategies.put(strategyClass, executor.submit(new Callable<CompiledStrategy>() {
+
+                    @Override
+                    public CompiledStrategy call() {
+                        return PlayerAssembly.this.compileStrategy(strategyClass, strategyJar);
+                    }
+
+                }));
+            }
+            // players with the same strategy share the compiled packages
+            final List<Player> players = new ArrayList<>();
+            for (final Map.Entry<String, String> entry : playerStrategies.entrySet()) {
+                final String playerName = entry.getKey();
+                final String strategyClass = entry.getValue();
+                final CompiledStrategy compiled;
+                try {
+                    compiled = strategies.get(strategyClass).get();
+                } catch (final ExecutionException e) {
+                    throw new IllegalArgumentException("Failed loading: " + strategyClass, e.getCause());
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException("Interrupted while loading: " + strategyClass, e);
                 }
-            } catch (final Exception e) {
-                throw new IllegalArgumentException("Failed loading: " + strategyClass, e);
+                players.add(new Player(playerName, compiled.getStrategy(), compiled.getClassLoader(), compiled
+                        .getPackages()));
             }
-            players.add(new Player(playerName, strategy, this.loadJar(strategyJar)));
+            return Collections.unmodifiableList(players);
+        } finally {
+            executor.shutdownNow();
         }
-        return Collections.unmodifiableList(players);
+    }
+
+    /**
+     * Load the strategy and compile it.
+     * 
+     * @param strategyClass
+     *            Class name of the strategy.
+     * @param strategyJar
+     *            The JAR with the strategy.
+     * @return The strategy, ready to be used by players.
+     */
+    private CompiledStrategy compileStrategy(final String strategyClass, final URI strategyJar) {
+        CustomPathBasedStrategy strategy;
+        try {
+            final Strategy s = this.loadStrategy(strategyClass, strategyJar);
+            if (s instanceof CustomPathBasedStrategy) {
+                strategy = (CustomPathBasedStrategy) s;
+            } else {
+                // if the strategy doesn't care about path, provide the
+                // default one
+                strategy = new DefaultPathBasedStrategy(s);
+            }
+        } catch (final Exception e) {
+            throw new IllegalArgumentException("Failed loading: " + strategyClass, e);
+        }
+        final ClassLoader loader = this.loadJar(strategyJar);
+        return new CompiledStrategy(strategy, loader, this.loadPackages(strategy, strategyClass, strategyJar, loader));
     }
 
     /**
@@ -176,7 +385,7 @@ public class PlayerAssembly {
      *            The JAR coming from the player config.
      * @return The class-loader used to load the strategy jar.
      */
-    private ClassLoader loadJar(final URI strategyJar) {
+    private synchronized ClassLoader loadJar(final URI strategyJar) {
         if (!this.strategyClassloaders.containsKey(strategyJar)) {
             @SuppressWarnings("resource")
             final ClassLoader loader = URLClassLoader.newInstance(new URL[] { PlayerAssembly.uriToUrl(strategyJar) },
@@ -186,7 +395,61 @@ public class PlayerAssembly {
         return this.strategyClassloaders.get(strategyJar);
     }
 
-    private Strategy loadStrategy(final String strategyClass, final URI strategyJar) throws Exception {
+    /**
+     * Compile the strategy, or load it from the cache if it has been compiled
+     * before.
+     * 
+     * @param strategy
+     *            The strategy to compile.
+     * @param strategyClass
+     *            Class name of the strategy.
+     * @param strategyJar
+     *            The JAR with the strategy.
+     * @param loader
+     *            The class-loader used to load the strategy jar.
+     * @return Compiled knowledge packages.
+     */
+    private Collection<KnowledgePackage> loadPackages(final CustomPathBasedStrategy strategy,
+            final String strategyClass, final URI strategyJar, final ClassLoader loader) {
+        if (this.cacheFolder == null) {
+            return strategy.getKnowledgeBuilder(loader).getKnowledgePackages();
+        }
+        final File cached = new File(this.cacheFolder, PlayerAssembly.getCacheKey(strategyClass, strategyJar) + ".pkg");
+        if (cached.exists()) {
+            /*
+             * operators such as 'after' are only registered with Drools once
+             * the evaluators are configured; until then, they deserialize as
+             * nulls.
+             */
+            KnowledgeBuilderFactory.newKnowledgeBuilderConfiguration(null, loader);
+            try (InputStream is = new BufferedInputStream(new FileInputStream(cached))) {
+                @SuppressWarnings("unchecked")
+                final Collection<KnowledgePackage> packages = (Collection<KnowledgePackage>) DroolsStreamUtils
+                        .streamIn(is, loader);
+                PlayerAssembly.LOGGER.info("Loaded compiled strategy {} from {}.", strategyClass, cached);
+                return packages;
+            } catch (final IOException | ClassNotFoundException | ClassCastException e) {
+                PlayerAssembly.LOGGER.warn("Failed loading compiled strategy {} from {}, will compile again.",
+                        strategyClass, cached, e);
+            }
+        }
+        final Collection<KnowledgePackage> packages = strategy.getKnowledgeBuilder(loader).getKnowledgePackages();
+        // write to a temporary file first, so that no one ever reads half of it
+        final File temp = new File(this.cacheFolder, cached.getName() + "." + UUID.randomUUID() + ".tmp");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(temp))) {
+            DroolsStreamUtils.streamOut(os, new ArrayList<>(packages));
+        } catch (final IOException e) {
+            PlayerAssembly.LOGGER.warn("Failed storing compiled strategy {} in {}.", strategyClass, cached, e);
+            temp.delete();
+            return packages;
+        }
+        if (!temp.renameTo(cached)) {
+            temp.delete();
+        }
+        return packages;
+    }
+
+    private synchronized Strategy loadStrategy(final String strategyClass, final URI strategyJar) throws Exception {
         if (!this.strategyInstances.containsKey(strategyClass)) {
             final Class<?> clz = Class.forName(strategyClass, true, this.loadJar(strategyJar));
             final Strategy strategy = (Strategy) clz.newInstance();
@@ -0,0 +1,65 @@
+package org.drooms.impl.util;
+
+import java.util.Deque;
+
+import org.drooms.api.Node;
+
+/**
+ * How a worm's position changed in a move: a worm may have gained a new head
+ * and lost the last node of its tail, and the rest of it stays where it was.
+ * Worms never get shorter, so they can lose at most one node in a move.
+ */
+public class PositionChange {
+
+    private final Node addedHead;
+    private final Node removedTail;
+
+    /**
+     * Compare the positions of the worm before and after the move.
+     * 
+     * @param previousPosition
+     *            Position of the worm before the move, head first.
+     * @param position
+     *            Position of the worm after the move, head first.
+     * @throws IllegalArgumentException
+     *             When the worm got shorter by more than one node.
+     */
+    public PositionChange(final Deque<Node> previousPosition, final Deque<Node> position) {
+        // the worm may have gained a new head...
+        int removedFromTail = previousPosition.size() - position.size();
+        if (position.getFirst() != previousPosition.getFirst()) {
+            this.addedHead = position.getFirst();
+            removedFromTail++;
+        } else {
+            this.addedHead = null;
+        }
+        // ... and lost the end of its tail
+        if (removedFromTail > 1) {
+            throw new IllegalArgumentException("Worm can not lose " + removedFromTail + " nodes in a move.");
+        } else if (removedFromTail == 1) {
+            this.removedTail = previousPosition.getLast();
+        } else {
+            this.removedTail = null;
+        }
+    }
+
+    /**
+     * The node that the worm's head moved into.
+     * 
+     * @return Null when the head didn't move.
+     */
+    public Node getAddedHead() {
+        return this.addedHead;
+    }
+
+    /**
+     * The node that the worm's tail no longer occupies. It may be the node that
+     * the head moved into.
+     * 
+     * @return Null when the tail didn't move.
+     */
+    public Node getRemovedTail() {
+        return this.removedTail;
+    }
+
+}
@@ -19,6 +19,10 @@ import freemarker.ext.beans.BeansWrapper;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
 
+/**
+ * Collects results of all the games played in a tournament. Results may be
+ * added from multiple threads at once, as the games may be played in parallel.
+ */
 public abstract class TournamentResults {
 
     public static class GameResults {
@@ -96,7 +100,7 @@ public abstract class TournamentResults {
         this.players = Collections.unmodifiableCollection(players);
     }
 
-    public void addResults(final String game, final Map<Player, Integer> result) {
+    public synchronized void addResults(final String game, final Map<Player, Integer> result) {
         if (!this.results.containsKey(game)) {
             this.results.put(game, new GameResults());
         }
@@ -136,7 +140,7 @@ public abstract class TournamentResults {
         return Collections.unmodifiableMap(result);
     }
 
-    public Map<Long, Collection<Player>> evaluate() {
+    public synchronized Map<Long, Collection<Player>> evaluate() {
         final Collection<List<Collection<Player>>> gameResults = new LinkedList<>();
         for (final String game : this.getGameNames()) {
             gameResults.add(this.evaluateGame(this.players,
@@ -156,7 +160,7 @@ public abstract class TournamentResults {
         return Collections.unmodifiableSet(this.results.keySet());
     }
 
-    public void write(final Writer w) throws IOException {
+    public synchronized void write(final Writer w) throws IOException {
         final Configuration freemarker = new Configuration();
         freemarker.setClassForTemplateLoading(TournamentResults.class, "");
         freemarker.setObjectWrapper(new BeansWrapper());
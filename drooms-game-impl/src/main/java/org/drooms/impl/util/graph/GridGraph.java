@@ -0,0 +1,304 @@
+package org.drooms.impl.util.graph;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+
+import edu.uci.ics.jung.graph.AbstractTypedGraph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * An unmodifiable graph of a rectangular grid of {@link Node}s, where every
+ * node is connected to its immediate horizontal and vertical neighbors. Only
+ * a bitmap of which nodes exist is stored; adjacency is calculated from the
+ * co-ordinates and {@link Edge}s are created when asked for.
+ */
+public class GridGraph extends AbstractTypedGraph<Node, Edge> implements UndirectedGraph<Node, Edge> {
+
+    private static final long serialVersionUID = -2817453208421342468L;
+
+    private static final int[][] DIRECTIONS = new int[][] { { 0, 1 }, { 0, -1 }, { -1, 0 }, { 1, 0 } };
+
+    private final int width, height;
+
+    private final BitSet vertices;
+
+    private final int vertexCount, edgeCount;
+
+    /**
+     * Create the graph.
+     * 
+     * @param width
+     *            Width of the grid.
+     * @param height
+     *            Height of the grid.
+     * @param vertices
+     *            Which nodes in the grid exist. Node [x, y] exists when bit
+     *            (y * width + x) is set.
+     */
+    public GridGraph(final int width, final int height, final BitSet vertices) {
+        super(EdgeType.UNDIRECTED);
+        this.width = width;
+        this.height = height;
+        this.vertices = (BitSet) vertices.clone();
+        this.vertexCount = this.vertices.cardinality();
+        int edgeCount = 0;
+        for (int i = this.vertices.nextSetBit(0); i >= 0; i = this.vertices.nextSetBit(i + 1)) {
+            final int x = i % width;
+            final int y = i / width;
+            // count every edge only once, from its left or bottom node
+            if (this.isVertex(x + 1, y)) {
+                edgeCount++;
+            }
+            if (this.isVertex(x, y + 1)) {
+                edgeCount++;
+            }
+        }
+        this.edgeCount = edgeCount;
+    }
+
+    @Override
+    public boolean addEdge(final Edge edge, final Pair<? extends Node> endpoints, final EdgeType edgeType) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean addVertex(final Node vertex) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean containsEdge(final Edge edge) {
+        final Node first = edge.getNodes().getLeft();
+        final Node second = edge.getNodes().getRight();
+        return this.containsVertex(first) && this.containsVertex(second) && GridGraph.areAdjacent(first, second);
+    }
+
+    private static boolean areAdjacent(final Node first, final Node second) {
+        return Math.abs(first.getX() - second.getX()) + Math.abs(first.getY() - second.getY()) == 1;
+    }
+
+    @Override
+    public boolean containsVertex(final Node vertex) {
+        return this.isVertex(vertex.getX(), vertex.getY());
+    }
+
+    @Override
+    public Edge findEdge(final Node v1, final Node v2) {
+        if (!this.containsVertex(v1) || !this.containsVertex(v2) || !GridGraph.areAdjacent(v1, v2)) {
+            return null;
+        }
+        return new Edge(v1, v2);
+    }
+
+    @Override
+    public Collection<Edge> findEdgeSet(final Node v1, final Node v2) {
+        if (!this.containsVertex(v1) || !this.containsVertex(v2)) {
+            return null;
+        }
+        final Edge e = this.findEdge(v1, v2);
+        if (e == null) {
+            return Collections.emptyList();
+        } else {
+            return Collections.singletonList(e);
+        }
+    }
+
+    @Override
+    public Node getDest(final Edge directedEdge) {
+        return null;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return this.edgeCount;
+    }
+
+    @Override
+    public Collection<Edge> getEdges() {
+        final List<Edge> edges = new ArrayList<Edge>(this.edgeCount);
+        for (int i = this.vertices.nextSetBit(0); i >= 0; i = this.vertices.nextSetBit(i + 1)) {
+            final int x = i % this.width;
+            final int y = i / this.width;
+            final Node n = Node.getNode(x, y);
+            if (this.isVertex(x + 1, y)) {
+                edges.add(new Edge(n, Node.getNode(x + 1, y)));
+            }
+            if (this.isVertex(x, y + 1)) {
+                edges.add(new Edge(n, Node.getNode(x, y + 1)));
+            }
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public Pair<Node> getEndpoints(final Edge edge) {
+        if (!this.containsEdge(edge)) {
+            return null;
+        }
+        return new Pair<Node>(edge.getNodes().getLeft(), edge.getNodes().getRight());
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public Collection<Edge> getIncidentEdges(final Node vertex) {
+        if (!this.containsVertex(vertex)) {
+            return null;
+        }
+        final Collection<Node> neighbors = this.getNeighbors(vertex);
+        final List<Edge> edges = new ArrayList<Edge>(neighbors.size());
+        for (final Node neighbor : neighbors) {
+            edges.add(new Edge(vertex, neighbor));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public Collection<Edge> getInEdges(final Node vertex) {
+        return this.getIncidentEdges(vertex);
+    }
+
+    @Override
+    public Collection<Node> getNeighbors(final Node vertex) {
+        if (!this.containsVertex(vertex)) {
+            return null;
+        }
+        final int x = vertex.getX();
+        final int y = vertex.getY();
+        final List<Node> neighbors = new ArrayList<Node>(GridGraph.DIRECTIONS.length);
+        for (final int[] direction : GridGraph.DIRECTIONS) {
+            final int neighborX = x + direction[0];
+            final int neighborY = y + direction[1];
+            if (this.isVertex(neighborX, neighborY)) {
+                neighbors.add(Node.getNode(neighborX, neighborY));
+            }
+        }
+        return Collections.unmodifiableList(neighbors);
+    }
+
+    @Override
+    public Collection<Edge> getOutEdges(final Node vertex) {
+        return this.getIncidentEdges(vertex);
+    }
+
+    @Override
+    public Collection<Node> getPredecessors(final Node vertex) {
+        return this.getNeighbors(vertex);
+    }
+
+    @Override
+    public Node getSource(final Edge directedEdge) {
+        return null;
+    }
+
+    @Override
+    public Collection<Node> getSuccessors(final Node vertex) {
+        return this.getNeighbors(vertex);
+    }
+
+    @Override
+    public int getVertexCount() {
+        return this.vertexCount;
+    }
+
+    @Override
+    public Collection<Node> getVertices() {
+        return new AbstractCollection<Node>() {
+
+            @Override
+            public boolean contains(final Object o) {
+                return (o instanceof Node) && GridGraph.this.containsVertex((Node) o);
+            }
+
+            @Override
+            public Iterator<Node> iterator() {
+                return new Iterator<Node>() {
+
+                    private int next = GridGraph.this.vertices.nextSetBit(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next >= 0;
+                    }
+
+                    @Override
+                    public Node next() {
+                        if (this.next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        final Node n = Node.getNode(this.next % GridGraph.this.width, this.next
+                                / GridGraph.this.width);
+                        this.next = GridGraph.this.vertices.nextSetBit(this.next + 1);
+                        return n;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("The graph is unmodifiable.");
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return GridGraph.this.vertexCount;
+            }
+
+        };
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public boolean isDest(final Node vertex, final Edge edge) {
+        return false;
+    }
+
+    @Override
+    public boolean isSource(final Node vertex, final Edge edge) {
+        return false;
+    }
+
+    /**
+     * Whether or not a node with the given co-ordinates is in the graph.
+     * 
+     * @param x
+     *            Horizontal co-ordinate.
+     * @param y
+     *            Vertical co-ordinate.
+     * @return True if the node exists.
+     */
+    public boolean isVertex(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return false;
+        }
+        return this.vertices.get(y * this.width + x);
+    }
+
+    @Override
+    public boolean removeEdge(final Edge edge) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean removeVertex(final Node vertex) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+}
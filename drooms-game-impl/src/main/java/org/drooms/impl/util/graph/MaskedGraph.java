@@ -0,0 +1,280 @@
+package org.drooms.impl.util.graph;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+
+import edu.uci.ics.jung.graph.AbstractTypedGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * An unmodifiable view of another graph, where some of the {@link Node}s are
+ * hidden. Hidden nodes, and all the {@link Edge}s leading to them, appear not
+ * to be in the graph at all. Nothing is copied, so the view is cheap to create;
+ * it reflects any changes made to the set of hidden nodes.
+ */
+public class MaskedGraph extends AbstractTypedGraph<Node, Edge> implements UndirectedGraph<Node, Edge> {
+
+    private static final long serialVersionUID = 4930718836398407231L;
+
+    private final Graph<Node, Edge> graph;
+
+    private final Set<Node> hidden;
+
+    /**
+     * Create the view.
+     * 
+     * @param graph
+     *            The graph to look at.
+     * @param hidden
+     *            The nodes to hide from the graph.
+     */
+    public MaskedGraph(final Graph<Node, Edge> graph, final Set<Node> hidden) {
+        super(EdgeType.UNDIRECTED);
+        this.graph = graph;
+        this.hidden = hidden;
+    }
+
+    @Override
+    public boolean addEdge(final Edge edge, final Pair<? extends Node> endpoints, final EdgeType edgeType) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean addVertex(final Node vertex) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean containsEdge(final Edge edge) {
+        return this.isVisible(edge) && this.graph.containsEdge(edge);
+    }
+
+    @Override
+    public boolean containsVertex(final Node vertex) {
+        return !this.hidden.contains(vertex) && this.graph.containsVertex(vertex);
+    }
+
+    @Override
+    public Edge findEdge(final Node v1, final Node v2) {
+        if (this.hidden.contains(v1) || this.hidden.contains(v2)) {
+            return null;
+        }
+        return this.graph.findEdge(v1, v2);
+    }
+
+    @Override
+    public Collection<Edge> findEdgeSet(final Node v1, final Node v2) {
+        if (!this.containsVertex(v1) || !this.containsVertex(v2)) {
+            return null;
+        }
+        return this.graph.findEdgeSet(v1, v2);
+    }
+
+    @Override
+    public Node getDest(final Edge directedEdge) {
+        return null;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return this.getEdges().size();
+    }
+
+    @Override
+    public Collection<Edge> getEdges() {
+        final List<Edge> edges = new ArrayList<Edge>();
+        for (final Edge e : this.graph.getEdges()) {
+            if (this.isVisible(e)) {
+                edges.add(e);
+            }
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public Pair<Node> getEndpoints(final Edge edge) {
+        if (!this.isVisible(edge)) {
+            return null;
+        }
+        return this.graph.getEndpoints(edge);
+    }
+
+    /**
+     * Retrieve the graph that this is a view of.
+     * 
+     * @return The graph, including the hidden nodes.
+     */
+    public Graph<Node, Edge> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Retrieve the nodes hidden from the graph.
+     * 
+     * @return Unmodifiable; reflects the changes made to the set of hidden
+     *         nodes.
+     */
+    public Set<Node> getHiddenNodes() {
+        return Collections.unmodifiableSet(this.hidden);
+    }
+
+    @Override
+    public Collection<Edge> getIncidentEdges(final Node vertex) {
+        if (!this.containsVertex(vertex)) {
+            return null;
+        }
+        final Collection<Edge> incident = this.graph.getIncidentEdges(vertex);
+        final List<Edge> edges = new ArrayList<Edge>(incident.size());
+        for (final Edge e : incident) {
+            if (this.isVisible(e)) {
+                edges.add(e);
+            }
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public Collection<Edge> getInEdges(final Node vertex) {
+        return this.getIncidentEdges(vertex);
+    }
+
+    @Override
+    public Collection<Node> getNeighbors(final Node vertex) {
+        if (!this.containsVertex(vertex)) {
+            return null;
+        }
+        final Collection<Node> all = this.graph.getNeighbors(vertex);
+        final List<Node> neighbors = new ArrayList<Node>(all.size());
+        for (final Node n : all) {
+            if (!this.hidden.contains(n)) {
+                neighbors.add(n);
+            }
+        }
+        return Collections.unmodifiableList(neighbors);
+    }
+
+    @Override
+    public Collection<Edge> getOutEdges(final Node vertex) {
+        return this.getIncidentEdges(vertex);
+    }
+
+    @Override
+    public Collection<Node> getPredecessors(final Node vertex) {
+        return this.getNeighbors(vertex);
+    }
+
+    @Override
+    public Node getSource(final Edge directedEdge) {
+        return null;
+    }
+
+    @Override
+    public Collection<Node> getSuccessors(final Node vertex) {
+        return this.getNeighbors(vertex);
+    }
+
+    @Override
+    public int getVertexCount() {
+        return this.getVertices().size();
+    }
+
+    @Override
+    public Collection<Node> getVertices() {
+        return new AbstractCollection<Node>() {
+
+            @Override
+            public boolean contains(final Object o) {
+                return (o instanceof Node) && MaskedGraph.this.containsVertex((Node) o);
+            }
+
+            @Override
+            public Iterator<Node> iterator() {
+                final Iterator<Node> it = MaskedGraph.this.graph.getVertices().iterator();
+                return new Iterator<Node>() {
+
+                    private Node next = this.findNext();
+
+                    private Node findNext() {
+                        while (it.hasNext()) {
+                            final Node n = it.next();
+                            if (!MaskedGraph.this.hidden.contains(n)) {
+                                return n;
+                            }
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next != null;
+                    }
+
+                    @Override
+                    public Node next() {
+                        if (this.next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        final Node n = this.next;
+                        this.next = this.findNext();
+                        return n;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("The graph is unmodifiable.");
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (final Node n : MaskedGraph.this.hidden) {
+                    if (MaskedGraph.this.graph.containsVertex(n)) {
+                        size++;
+                    }
+                }
+                return MaskedGraph.this.graph.getVertexCount() - size;
+            }
+
+        };
+    }
+
+    @Override
+    public boolean isDest(final Node vertex, final Edge edge) {
+        return false;
+    }
+
+    @Override
+    public boolean isSource(final Node vertex, final Edge edge) {
+        return false;
+    }
+
+    private boolean isVisible(final Edge edge) {
+        return !this.hidden.contains(edge.getNodes().getLeft()) && !this.hidden.contains(edge.getNodes().getRight());
+    }
+
+    @Override
+    public boolean removeEdge(final Edge edge) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+    @Override
+    public boolean removeVertex(final Node vertex) {
+        throw new UnsupportedOperationException("The graph is unmodifiable.");
+    }
+
+}
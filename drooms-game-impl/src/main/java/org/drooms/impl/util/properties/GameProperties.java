@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 import org.drooms.api.Player;
 import org.drooms.api.Strategy;
@@ -46,9 +47,39 @@ import org.drooms.api.Strategy;
  * to make a decision on the next movement of the worm. If it doesn't make it in
  * time, STAY is enforced, potentially leading to the worm being terminated for
  * inactivity.</dd>
+ * <dt>worm.timeout.millis (defaults to worm.timeout.seconds)</dt>
+ * <dd>The same as worm.timeout.seconds, only in milliseconds. Takes precedence
+ * when both are given. Must be positive.</dd>
+ * <dt>worm.timeout.cpu (defaults to false)</dt>
+ * <dd>Whether the time limit should be measured in CPU time of the thread
+ * making the decision, instead of wall-clock time. That way, the
+ * {@link Strategy} isn't penalized for garbage collection or for other
+ * strategies deciding at the same time.</dd>
+ * <dt>worm.timeout.wall.millis (defaults to 4 times worm.timeout.millis)</dt>
+ * <dd>When the time limit is measured in CPU time, the {@link Strategy} will
+ * still never get more than this much wall-clock time. Must not be less than
+ * worm.timeout.millis.</dd>
+ * <dt>worm.concurrent.decisions (defaults to false)</dt>
+ * <dd>Whether the {@link Player}s' {@link Strategy}s should all make their
+ * decisions at the same time, each within its own time limit. Otherwise, the
+ * strategies are asked one after another.</dd>
  * <dt>worm.survival.bonus (defaults to 5)</dt>
  * <dd>The amount of points that the worm will be awarded upon surviving another
  * worm.</dd>
+ * <dt>worm.events.retention.turns (defaults to 10)</dt>
+ * <dd>For how many turns the events will stay in the {@link Strategy}'s working
+ * memory. Older events are retracted, so that the working memory doesn't keep
+ * growing as the game goes on. The latest move of every worm and the addition
+ * of every collectible still on the playground are kept regardless.</dd>
+ * <dt>report.xml (defaults to true)</dt>
+ * <dd>Whether to write the XML report of the game. Without it, only the replay
+ * is written, and the XML report can be derived from it with
+ * {@link org.drooms.impl.BinaryReplayConverter} whenever it is needed.</dd>
+ * <dt>report.replay (defaults to true)</dt>
+ * <dd>Whether to also write a compact binary replay of the game, next to the
+ * XML report. Unlike the XML report, the replay can be seeked to any turn
+ * without reading the turns before it. At least one of report.xml and
+ * report.replay must be enabled.</dd>
  * </dl>
  */
 public class GameProperties extends CommonProperties {
@@ -95,15 +126,48 @@ public class GameProperties extends CommonProperties {
     private final int maximumTurns;
     private final int deadWormBonus;
     private final int strategyTimeoutInSeconds;
+    private final long strategyTimeoutInMillis;
+    private final boolean strategyTimeoutInCpuTime;
+    private final long strategyWallTimeoutInMillis;
+    private final boolean concurrentDecisions;
+    private final int eventRetentionTurns;
+    private final boolean xmlReportEnabled;
+    private final boolean replayEnabled;
     private final Collection<CollectibleType> collectibleTypes;
 
     private GameProperties(final Properties p) {
         super(p);
         this.startingWormLength = Integer.valueOf(this.getOptionalProperty("worm.length.start", "3"));
         this.maximumInactiveTurns = Integer.valueOf(this.getOptionalProperty("worm.max.inactive.turns", "3"));
+        if (this.maximumInactiveTurns < 0) {
+            throw new IllegalArgumentException("Maximum number of inactive turns must not be negative.");
+        }
         this.maximumTurns = Integer.valueOf(this.getOptionalProperty("worm.max.turns", "1000"));
         this.deadWormBonus = Integer.valueOf(this.getOptionalProperty("worm.survival.bonus", "5"));
-        this.strategyTimeoutInSeconds = Integer.valueOf(this.getOptionalProperty("worm.timeout.seconds", "1"));
+        final int timeoutInSeconds = Integer.valueOf(this.getOptionalProperty("worm.timeout.seconds", "1"));
+        this.strategyTimeoutInMillis = Long.valueOf(this.getOptionalProperty("worm.timeout.millis",
+                String.valueOf(TimeUnit.SECONDS.toMillis(timeoutInSeconds))));
+        if (this.strategyTimeoutInMillis <= 0) {
+            throw new IllegalArgumentException("Strategies must be given some time to decide.");
+        }
+        // round up, so that strategies aren't told there is no time at all
+        this.strategyTimeoutInSeconds = (int) ((this.strategyTimeoutInMillis + 999) / 1000);
+        this.strategyTimeoutInCpuTime = Boolean.valueOf(this.getOptionalProperty("worm.timeout.cpu", "false"));
+        this.strategyWallTimeoutInMillis = Long.valueOf(this.getOptionalProperty("worm.timeout.wall.millis",
+                String.valueOf(4 * this.strategyTimeoutInMillis)));
+        if (this.strategyWallTimeoutInMillis < this.strategyTimeoutInMillis) {
+            throw new IllegalArgumentException("Wall-clock time limit must not be shorter than the time limit.");
+        }
+        this.concurrentDecisions = Boolean.valueOf(this.getOptionalProperty("worm.concurrent.decisions", "false"));
+        this.eventRetentionTurns = Integer.valueOf(this.getOptionalProperty("worm.events.retention.turns", "10"));
+        if (this.eventRetentionTurns < 1) {
+            throw new IllegalArgumentException("Events must be retained for at least 1 turn.");
+        }
+        this.xmlReportEnabled = Boolean.valueOf(this.getOptionalProperty("report.xml", "true"));
+        this.replayEnabled = Boolean.valueOf(this.getOptionalProperty("report.replay", "true"));
+        if (!this.xmlReportEnabled && !this.replayEnabled) {
+            throw new IllegalArgumentException("The game must be reported, either in XML or as a replay.");
+        }
         final Collection<CollectibleType> collectibleTypes = new ArrayList<CollectibleType>();
         for (final String collectibleName : this.getMandatoryProperty("collectibles").split("\\Q,\\E")) {
             final int expiration = Integer.valueOf(this.getMandatoryProperty("collectible.expiration."
@@ -124,6 +188,10 @@ public class GameProperties extends CommonProperties {
         return this.deadWormBonus;
     }
 
+    public int getEventRetentionTurns() {
+        return this.eventRetentionTurns;
+    }
+
     public int getMaximumInactiveTurns() {
         return this.maximumInactiveTurns;
     }
@@ -136,8 +204,32 @@ public class GameProperties extends CommonProperties {
         return this.startingWormLength;
     }
 
+    public long getStrategyTimeoutInMillis() {
+        return this.strategyTimeoutInMillis;
+    }
+
     public int getStrategyTimeoutInSeconds() {
         return this.strategyTimeoutInSeconds;
     }
 
+    public long getStrategyWallTimeoutInMillis() {
+        return this.strategyWallTimeoutInMillis;
+    }
+
+    public boolean isConcurrentDecisions() {
+        return this.concurrentDecisions;
+    }
+
+    public boolean isReplayEnabled() {
+        return this.replayEnabled;
+    }
+
+    public boolean isStrategyTimeoutInCpuTime() {
+        return this.strategyTimeoutInCpuTime;
+    }
+
+    public boolean isXmlReportEnabled() {
+        return this.xmlReportEnabled;
+    }
+
 }
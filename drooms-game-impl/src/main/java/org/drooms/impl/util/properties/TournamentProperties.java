@@ -52,6 +52,13 @@ import org.drooms.impl.util.PlayerAssembly;
  * <dd>Where to write all output data, relative to the current working
  * directory. If it doesn't exist, it is created. Default value is
  * "target/drooms".</dd>
+ * <dt>folder.cache</dt>
+ * <dd>Where to keep compiled player strategies between tournaments, relative
+ * to the current working directory. If it doesn't exist, it is created.
+ * Default value is "strategy-cache" inside the target folder.</dd>
+ * <dt>tournament.parallelism</dt>
+ * <dd>How many games should be played at the same time. Number > 0, default
+ * value is 1, meaning that the games are played one after another.</dd>
  * </dl>
  * 
  * FIXME document player config file format.
@@ -87,12 +94,18 @@ public class TournamentProperties extends CommonProperties {
 
     private final int numberOfRunsPerPlayground;
 
+    private final int parallelism;
+
     private final Collection<Player> players;
 
     private TournamentProperties(final Properties p) {
         super(p);
         this.gameClass = TournamentProperties.getGameImpl(this.getMandatoryProperty("game.class"));
         this.numberOfRunsPerPlayground = Integer.valueOf(this.getOptionalProperty("runs", "1"));
+        this.parallelism = Integer.valueOf(this.getOptionalProperty("tournament.parallelism", "1"));
+        if (this.parallelism < 1) {
+            throw new IllegalArgumentException("Tournament parallelism must be a positive number.");
+        }
         // prepare folders
         this.resourceFolder = new File(this.getOptionalProperty("folder.resources", "src/main/resources"));
         if (!this.resourceFolder.exists()) {
@@ -104,7 +117,10 @@ public class TournamentProperties extends CommonProperties {
         }
         // prepare a list of players
         final File playerConfigFile = new File(this.getMandatoryProperty("players"));
-        this.players = Collections.unmodifiableList(new PlayerAssembly(playerConfigFile).assemblePlayers());
+        final File cacheFolder = new File(this.getOptionalProperty("folder.cache",
+                new File(this.targetFolder, "strategy-cache").getPath()));
+        this.players = Collections.unmodifiableList(new PlayerAssembly(playerConfigFile, cacheFolder)
+                .assemblePlayers());
         // parse the playgrounds
         final Collection<ImmutablePair<Playground, GameProperties>> playgrounds = new ArrayList<>();
         for (final String playgroundName : this.getMandatoryProperty("playgrounds").split("\\Q,\\E")) {
@@ -123,6 +139,10 @@ public class TournamentProperties extends CommonProperties {
         return this.numberOfRunsPerPlayground;
     }
 
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
     public Collection<Player> getPlayers() {
         return this.players;
     }
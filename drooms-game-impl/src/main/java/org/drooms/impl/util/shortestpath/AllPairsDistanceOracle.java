@@ -0,0 +1,74 @@
+package org.drooms.impl.util.shortestpath;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Stores the distances between all pairs of vertices, so that both
+ * {@link #getDistance(Node, Node)} and {@link #estimateDistance(Node, Node)}
+ * are exact and take constant time. Memory grows with the square of the number
+ * of vertices; only meant for small graphs.
+ */
+public class AllPairsDistanceOracle extends DistanceOracle {
+
+    private final short[] distances;
+
+    /**
+     * Find all the distances.
+     * 
+     * @param graph
+     *            The graph. Must not change afterwards.
+     */
+    public AllPairsDistanceOracle(final Graph<Node, Edge> graph) {
+        super(graph);
+        final int count = this.getVertexCount();
+        if (count > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph too large: " + count + " vertices.");
+        }
+        this.distances = new short[count * count];
+        final int[] row = new int[count];
+        final int[] queue = new int[count];
+        for (int source = 0; source < count; source++) {
+            this.findDistances(source, row, queue);
+            for (int target = 0; target < count; target++) {
+                this.distances[source * count + target] = (short) row[target];
+            }
+        }
+    }
+
+    /**
+     * The exact distance.
+     * 
+     * @return {@link Double#POSITIVE_INFINITY} when there is no path between
+     *         the two vertices. Manhattan distance when either of the nodes is
+     *         not in the graph.
+     */
+    @Override
+    public double estimateDistance(final Node source, final Node target) {
+        final int sourceIndex = this.getIndex(source);
+        final int targetIndex = this.getIndex(target);
+        if (sourceIndex < 0 || targetIndex < 0) {
+            return Math.abs(source.getX() - target.getX()) + Math.abs(source.getY() - target.getY());
+        }
+        final int distance = this.distances[sourceIndex * this.getVertexCount() + targetIndex];
+        return (distance < 0) ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    @Override
+    public int getDistance(final Node source, final Node target) {
+        final int sourceIndex = this.getIndex(source);
+        final int targetIndex = this.getIndex(target);
+        if (sourceIndex < 0 || targetIndex < 0) {
+            return -1;
+        }
+        return this.distances[sourceIndex * this.getVertexCount() + targetIndex];
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.drooms.impl.util.shortestpath;
+
+import java.util.Arrays;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.astar.DistanceHeuristic;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Knows the distances between {@link Node}s of a graph that never changes,
+ * such as the graph of a playground without any worms, or at least lower
+ * bounds of them; see {@link #isExact()}. Since worms only ever
+ * make paths longer, these distances never overestimate the real ones and
+ * therefore the oracle can serve as a heuristic for the A* algorithm.
+ * 
+ * Instances are expensive to create, but safe to share between threads.
+ */
+public abstract class DistanceOracle implements DistanceHeuristic<Node> {
+
+    /**
+     * Up to this many vertices, distances between all pairs of them are
+     * stored. That takes 2 bytes per pair.
+     */
+    private static final int ALL_PAIRS_MAX_VERTICES = 2048;
+
+    private static final int LANDMARKS = 16;
+
+    /**
+     * Create the best oracle for the given graph.
+     * 
+     * @param graph
+     *            The graph. Must not change afterwards.
+     * @return {@link AllPairsDistanceOracle} for small graphs,
+     *         {@link LandmarkDistanceOracle} for larger ones.
+     */
+    public static DistanceOracle forGraph(final Graph<Node, Edge> graph) {
+        if (graph.getVertexCount() <= DistanceOracle.ALL_PAIRS_MAX_VERTICES) {
+            return new AllPairsDistanceOracle(graph);
+        } else {
+            return new LandmarkDistanceOracle(graph, DistanceOracle.LANDMARKS);
+        }
+    }
+
+    private final Graph<Node, Edge> graph;
+
+    private final int minX, minY, boundsWidth, boundsHeight;
+
+    /**
+     * For every node in the bounding box of the graph, its index; -1 when it
+     * is not a vertex.
+     */
+    private final int[] indices;
+
+    /**
+     * For every vertex index, where its neighbors start in {@link #neighbors};
+     * they end where the neighbors of the next vertex start.
+     */
+    private final int[] neighborOffsets;
+
+    /**
+     * Indices of the neighbors of all the vertices, one vertex after another.
+     */
+    private final int[] neighbors;
+
+    protected DistanceOracle(final Graph<Node, Edge> graph) {
+        this.graph = graph;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (final Node node : graph.getVertices()) {
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.boundsWidth = Math.max(0, maxX - minX + 1);
+        this.boundsHeight = Math.max(0, maxY - minY + 1);
+        this.indices = new int[this.boundsWidth * this.boundsHeight];
+        Arrays.fill(this.indices, -1);
+        int count = 0;
+        for (final Node node : graph.getVertices()) {
+            this.indices[this.getCell(node)] = count;
+            count++;
+        }
+        this.neighborOffsets = new int[count + 1];
+        for (final Node node : graph.getVertices()) {
+            this.neighborOffsets[this.getIndex(node) + 1] = graph.getNeighborCount(node);
+        }
+        for (int i = 0; i < count; i++) {
+            this.neighborOffsets[i + 1] += this.neighborOffsets[i];
+        }
+        this.neighbors = new int[this.neighborOffsets[count]];
+        for (final Node node : graph.getVertices()) {
+            int i = this.neighborOffsets[this.getIndex(node)];
+            for (final Node neighbor : graph.getNeighbors(node)) {
+                this.neighbors[i] = this.getIndex(neighbor);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Fill in the distances from one vertex to all the others, by a
+     * breadth-first search.
+     * 
+     * @param source
+     *            Index of the vertex to start from.
+     * @param distances
+     *            Where to store the distances, by vertex index; -1 for
+     *            unreachable vertices.
+     * @param queue
+     *            Space for the search to work in, as large as the number of
+     *            vertices.
+     */
+    protected void findDistances(final int source, final int[] distances, final int[] queue) {
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        queue[0] = source;
+        int head = 0, tail = 1;
+        while (head < tail) {
+            final int current = queue[head];
+            head++;
+            for (int i = this.neighborOffsets[current]; i < this.neighborOffsets[current + 1]; i++) {
+                final int neighbor = this.neighbors[i];
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = distances[current] + 1;
+                    queue[tail] = neighbor;
+                    tail++;
+                }
+            }
+        }
+    }
+
+    private int getCell(final Node node) {
+        final int x = node.getX() - this.minX;
+        final int y = node.getY() - this.minY;
+        if (x < 0 || x >= this.boundsWidth || y < 0 || y >= this.boundsHeight) {
+            return -1;
+        }
+        return y * this.boundsWidth + x;
+    }
+
+    /**
+     * Find the length of the shortest path between two nodes. Oracles that are
+     * not {@link #isExact()} only know a lower bound of it, and may not know
+     * that there is no path.
+     * 
+     * @param source
+     *            Beginning of the path.
+     * @param target
+     *            End of the path.
+     * @return Number of edges on the path; -1 when there is no path, or
+     *         either of the nodes is not in the graph.
+     */
+    public abstract int getDistance(Node source, Node target);
+
+    protected Graph<Node, Edge> getGraph() {
+        return this.graph;
+    }
+
+    /**
+     * Retrieve the index of a vertex.
+     * 
+     * @param node
+     *            The vertex in question.
+     * @return Number between 0 (inclusive) and {@link #getVertexCount()}
+     *         (exclusive); -1 when the node is not a vertex.
+     */
+    protected int getIndex(final Node node) {
+        final int cell = this.getCell(node);
+        return (cell < 0) ? -1 : this.indices[cell];
+    }
+
+    protected int getVertexCount() {
+        return this.neighborOffsets.length - 1;
+    }
+
+    /**
+     * Whether {@link #getDistance(Node, Node)} is exact.
+     * 
+     * @return False if it only gives a lower bound of the distance.
+     */
+    public abstract boolean isExact();
+
+}
@@ -0,0 +1,124 @@
+package org.drooms.impl.util.shortestpath;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Stores the distances from a few landmark vertices to all the others. By the
+ * triangle inequality, the distance between any two vertices is at least the
+ * difference of their distances to any landmark (the ALT technique). Memory
+ * grows linearly with the number of vertices.
+ * 
+ * Landmarks are picked one by one, each as far as possible from the ones
+ * already picked. The oracle is not {@link #isExact()}; it only knows the lower
+ * bounds.
+ */
+public class LandmarkDistanceOracle extends DistanceOracle {
+
+    /**
+     * For every landmark, the distances to all the vertices; -1 for
+     * unreachable vertices.
+     */
+    private final int[][] distances;
+
+    /**
+     * Pick the landmarks and find the distances from them.
+     * 
+     * @param graph
+     *            The graph. Must not change afterwards.
+     * @param landmarks
+     *            How many landmarks to pick, at most.
+     */
+    public LandmarkDistanceOracle(final Graph<Node, Edge> graph, final int landmarks) {
+        super(graph);
+        final int count = this.getVertexCount();
+        this.distances = new int[Math.min(landmarks, count)][];
+        final int[] queue = new int[count];
+        // distance of every vertex to the closest landmark so far; -1 if none
+        final int[] closest = new int[count];
+        int next = 0;
+        for (int landmark = 0; landmark < this.distances.length; landmark++) {
+            this.distances[landmark] = new int[count];
+            this.findDistances(next, this.distances[landmark], queue);
+            int farthest = -1;
+            for (int i = 0; i < count; i++) {
+                final int distance = this.distances[landmark][i];
+                if (landmark == 0 || closest[i] < 0) {
+                    closest[i] = distance;
+                } else if (distance >= 0) {
+                    closest[i] = Math.min(closest[i], distance);
+                }
+                // unreachable vertices are the farthest; they need a landmark too
+                if (farthest < 0 || LandmarkDistanceOracle.isFarther(closest[i], closest[farthest])) {
+                    farthest = i;
+                }
+            }
+            next = farthest;
+        }
+    }
+
+    private static boolean isFarther(final int distance, final int otherDistance) {
+        if (otherDistance < 0) {
+            return false;
+        } else if (distance < 0) {
+            return true;
+        } else {
+            return distance > otherDistance;
+        }
+    }
+
+    /**
+     * The largest lower bound that the landmarks give.
+     * 
+     * @return {@link Double#POSITIVE_INFINITY} when a landmark shows that there
+     *         is no path between the two vertices. At least the Manhattan
+     *         distance of the two nodes.
+     */
+    @Override
+    public double estimateDistance(final Node source, final Node target) {
+        int estimate = Math.abs(source.getX() - target.getX()) + Math.abs(source.getY() - target.getY());
+        final int sourceIndex = this.getIndex(source);
+        final int targetIndex = this.getIndex(target);
+        if (sourceIndex < 0 || targetIndex < 0) {
+            return estimate;
+        }
+        for (final int[] fromLandmark : this.distances) {
+            final int sourceDistance = fromLandmark[sourceIndex];
+            final int targetDistance = fromLandmark[targetIndex];
+            if (sourceDistance < 0 && targetDistance < 0) {
+                continue;
+            } else if (sourceDistance < 0 || targetDistance < 0) {
+                // one is in the landmark's component, the other is not
+                return Double.POSITIVE_INFINITY;
+            }
+            estimate = Math.max(estimate, Math.abs(sourceDistance - targetDistance));
+        }
+        return estimate;
+    }
+
+    /**
+     * The same lower bound as {@link #estimateDistance(Node, Node)}. Use it as
+     * a heuristic for {@link UnweightedAStarShortestPath} to find the exact
+     * distance.
+     * 
+     * @return -1 when either of the nodes is not in the graph, or a landmark
+     *         shows that there is no path between them.
+     */
+    @Override
+    public int getDistance(final Node source, final Node target) {
+        if (this.getIndex(source) < 0 || this.getIndex(target) < 0) {
+            return -1;
+        }
+        final double estimate = this.estimateDistance(source, target);
+        return (estimate == Double.POSITIVE_INFINITY) ? -1 : (int) estimate;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+}
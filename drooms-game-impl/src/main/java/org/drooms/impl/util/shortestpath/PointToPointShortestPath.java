@@ -0,0 +1,33 @@
+package org.drooms.impl.util.shortestpath;
+
+import java.util.List;
+
+import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
+
+/**
+ * A path-finding algorithm that can find the shortest path between two
+ * particular vertices without finding the shortest paths to all the other
+ * vertices first. Where the game finds paths for strategies, it will prefer
+ * {@link #find(Object, Object)} to {@link #getIncomingEdgeMap(Object)} with
+ * such algorithms.
+ * 
+ * @param <V>
+ *            Vertex.
+ * @param <E>
+ *            Edge.
+ */
+public interface PointToPointShortestPath<V, E> extends ShortestPath<V, E> {
+
+    /**
+     * Find the shortest path between two vertices.
+     * 
+     * @param source
+     *            Source vertex.
+     * @param target
+     *            Target vertex.
+     * @return Unmodifiable list of vertices on the path, ordered from source to
+     *         target. Empty when no path.
+     */
+    public List<V> find(V source, V target);
+
+}
@@ -0,0 +1,52 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import edu.uci.ics.jung.graph.Graph;
+
+final class BreadthFirstSearch {
+
+    /**
+     * Find the shortest paths from the source to every other reachable vertex
+     * of a graph where all the edges have the same weight.
+     * 
+     * @param graph
+     *            The graph to search.
+     * @param source
+     *            Source vertex.
+     * @return Unmodifiable map where each reachable vertex is mapped to the
+     *         edge through which the shortest path from the source enters it.
+     */
+    public static <V, E> Map<V, E> getIncomingEdgeMap(final Graph<V, E> graph,
+            final V source) {
+        final Map<V, E> result = new LinkedHashMap<>();
+        final Set<V> visited = new HashSet<>();
+        final Queue<V> queue = new ArrayDeque<>();
+        if (graph.containsVertex(source)) {
+            visited.add(source);
+            queue.add(source);
+        }
+        while (!queue.isEmpty()) {
+            final V current = queue.remove();
+            for (final E edge : graph.getIncidentEdges(current)) {
+                final V neighbor = graph.getOpposite(current, edge);
+                if (visited.add(neighbor)) {
+                    result.put(neighbor, edge);
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private BreadthFirstSearch() {
+        // prevent instantiation
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of integer ids, each with a priority. Knows where in the
+ * heap each id is, so that priorities can be decreased without searching. Ids
+ * must be within 0 (inclusive) and the capacity (exclusive).
+ */
+final class IndexedMinHeap {
+
+    private final int[] heap;
+
+    private final double[] priorities;
+
+    /**
+     * For every id, its position in {@link #heap}; -1 when not in the heap.
+     */
+    private final int[] positions;
+
+    private int size = 0;
+
+    public IndexedMinHeap(final int capacity) {
+        this.heap = new int[capacity];
+        this.priorities = new double[capacity];
+        this.positions = new int[capacity];
+        Arrays.fill(this.positions, -1);
+    }
+
+    /**
+     * Remove all the ids from the heap. Takes time proportional to the
+     * number of ids in the heap, not to its capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.positions[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+    public boolean contains(final int id) {
+        return this.positions[id] >= 0;
+    }
+
+    /**
+     * Lower the priority of an id already in the heap.
+     * 
+     * @param id
+     *            The id in question.
+     * @param priority
+     *            The new priority, not larger than the current one.
+     */
+    public void decreasePriority(final int id, final double priority) {
+        this.priorities[id] = priority;
+        this.siftUp(this.positions[id]);
+    }
+
+    /**
+     * Add an id to the heap.
+     * 
+     * @param id
+     *            The id in question, not already in the heap.
+     * @param priority
+     *            Its priority.
+     */
+    public void insert(final int id, final double priority) {
+        this.priorities[id] = priority;
+        this.heap[this.size] = id;
+        this.positions[id] = this.size;
+        this.size++;
+        this.siftUp(this.size - 1);
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private boolean isLess(final int position, final int otherPosition) {
+        return this.priorities[this.heap[position]]
+                < this.priorities[this.heap[otherPosition]];
+    }
+
+    private void place(final int id, final int position) {
+        this.heap[position] = id;
+        this.positions[id] = position;
+    }
+
+    /**
+     * Remove the id with the lowest priority from the heap.
+     * 
+     * @return The id.
+     */
+    public int poll() {
+        if (this.size == 0) {
+            throw new IllegalStateException("The heap is empty.");
+        }
+        final int top = this.heap[0];
+        this.size--;
+        if (this.size > 0) {
+            this.place(this.heap[this.size], 0);
+            this.siftDown(0);
+        }
+        this.positions[top] = -1;
+        return top;
+    }
+
+    private void siftDown(final int startPosition) {
+        int position = startPosition;
+        while (true) {
+            final int left = 2 * position + 1;
+            if (left >= this.size) {
+                return;
+            }
+            final int right = left + 1;
+            final int smaller = (right < this.size && this.isLess(right, left))
+                    ? right : left;
+            if (!this.isLess(smaller, position)) {
+                return;
+            }
+            this.swap(position, smaller);
+            position = smaller;
+        }
+    }
+
+    private void siftUp(final int startPosition) {
+        int position = startPosition;
+        while (position > 0) {
+            final int parent = (position - 1) / 2;
+            if (!this.isLess(position, parent)) {
+                return;
+            }
+            this.swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void swap(final int position, final int otherPosition) {
+        final int id = this.heap[position];
+        this.place(this.heap[otherPosition], position);
+        this.place(id, otherPosition);
+    }
+
+}
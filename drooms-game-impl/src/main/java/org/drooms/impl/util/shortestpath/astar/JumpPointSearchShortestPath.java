@@ -0,0 +1,267 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.PointToPointShortestPath;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Implements Jump Point Search, a variant of the A* algorithm for uniform-cost
+ * grids. Instead of adding every neighbor of a node to the open set, it jumps
+ * along straight lines and only stops at nodes where the shortest path may
+ * need to turn. On open playgrounds, this expands only a fraction of the nodes
+ * that {@link UnweightedAStarShortestPath} does, while finding paths of the
+ * same length.
+ * 
+ * The graph must be a 4-connected grid: two nodes are connected if and only if
+ * they are both in the graph and their {@link Node#getX()} or
+ * {@link Node#getY()} differ by one. The graphs that the game gives to the
+ * strategies are like that.
+ */
+public class JumpPointSearchShortestPath implements
+        PointToPointShortestPath<Node, Edge> {
+
+    private static final int[][] ALL_DIRECTIONS = new int[][] { { 0, 1 },
+            { 0, -1 }, { -1, 0 }, { 1, 0 } };
+
+    private final Graph<Node, Edge> graph;
+
+    private final DistanceHeuristic<Node> heuristics =
+            new ManhattanDistanceHeuristic<Node>();
+
+    private final Map<Node, Map<Node, Edge>> incomingEdgeMaps = new HashMap<>();
+
+    /**
+     * Workspace of the search in progress.
+     */
+    private SearchWorkspace workspace;
+
+    /**
+     * Which ids are vertices of the graph, taken at the first search. Jumps
+     * look at many more nodes than they stop at, so asking the graph every
+     * time would be slow.
+     */
+    private BitSet passable;
+
+    /**
+     * Prepare the algorithm.
+     * 
+     * @param graph
+     *            The grid graph to run queries on.
+     */
+    public JumpPointSearchShortestPath(final Graph<Node, Edge> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Find the shortest path between two nodes. Doesn't cache results, but
+     * reuses the internal structures of the previous searches on the same
+     * thread and the same graph, or the same graph underneath a
+     * {@link org.drooms.impl.util.graph.MaskedGraph}. The vertices of the
+     * graph must not change after the first search, not even by hiding other
+     * nodes of a mask.
+     * 
+     * @param source
+     *            Source vertex.
+     * @param target
+     *            Target vertex.
+     * @return Unmodifiable. Empty when no path.
+     */
+    @Override
+    public List<Node> find(final Node source, final Node target) {
+        if (!this.graph.containsVertex(source)
+                || !this.graph.containsVertex(target)) {
+            return Collections.emptyList();
+        }
+        this.workspace = SearchWorkspace.acquire(this.graph);
+        try {
+            if (this.passable == null) {
+                this.passable = this.workspace.getVertices(this.graph);
+            }
+            return this.search(source, target);
+        } finally {
+            this.workspace.release();
+            this.workspace = null;
+        }
+    }
+
+    private List<Node> search(final Node source, final Node target) {
+        final SearchWorkspace workspace = this.workspace;
+        final IndexedMinHeap openSet = workspace.getOpenSet();
+        final int targetId = workspace.getId(target.getX(), target.getY());
+        this.open(workspace.getId(source.getX(), source.getY()), 0, -1, target);
+        while (!openSet.isEmpty()) {
+            final int current = openSet.poll();
+            if (current == targetId) {
+                return Collections.unmodifiableList(this
+                        .reconstructPath(current));
+            }
+            workspace.markClosed(current);
+            final int x = workspace.getX(current);
+            final int y = workspace.getY(current);
+            for (final int[] direction : this.getDirections(current)) {
+                final int jumpPoint = this.jump(x, y, direction[0],
+                        direction[1], target);
+                if (jumpPoint < 0 || workspace.isClosed(jumpPoint)) {
+                    continue;
+                }
+                final int tentativeGScore = workspace.getGScore(current)
+                        + Math.abs(workspace.getX(jumpPoint) - x)
+                        + Math.abs(workspace.getY(jumpPoint) - y);
+                if (!workspace.isSeen(jumpPoint)) {
+                    this.open(jumpPoint, tentativeGScore, current, target);
+                } else if (tentativeGScore < workspace.getGScore(jumpPoint)) {
+                    workspace.reopen(jumpPoint, tentativeGScore, current,
+                            tentativeGScore
+                                    + this.getHeuristicCostEstimate(jumpPoint,
+                                            target));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Decide in which directions to look for the next jump points. Paths are
+     * only ever searched in one canonical form: they may turn horizontally
+     * from any node of a vertical line, but they only turn vertically from a
+     * horizontal line where an obstacle forces them to.
+     * 
+     * @param id
+     *            The jump point being expanded.
+     * @return Directions as [x, y] pairs.
+     */
+    private int[][] getDirections(final int id) {
+        final SearchWorkspace workspace = this.workspace;
+        final int parent = workspace.getCameFrom(id);
+        if (parent < 0) {
+            return JumpPointSearchShortestPath.ALL_DIRECTIONS;
+        }
+        final int dx = Integer.signum(workspace.getX(id)
+                - workspace.getX(parent));
+        final int dy = Integer.signum(workspace.getY(id)
+                - workspace.getY(parent));
+        if (dx != 0) {
+            return new int[][] { { dx, 0 }, { 0, 1 }, { 0, -1 } };
+        } else {
+            return new int[][] { { 0, dy }, { 1, 0 }, { -1, 0 } };
+        }
+    }
+
+    private double getHeuristicCostEstimate(final int id, final Node target) {
+        return this.heuristics.estimateDistance(
+                Node.getNode(this.workspace.getX(id), this.workspace.getY(id)),
+                target);
+    }
+
+    /**
+     * Find the shortest paths from the source to every other reachable vertex.
+     * Jump points do not help with this; it is a single breadth-first sweep of
+     * the graph. Results are cached.
+     * 
+     * @param source
+     *            Source vertex.
+     * @return Unmodifiable map where each reachable vertex is mapped to the
+     *         edge through which the shortest path from the source enters it.
+     */
+    @Override
+    public Map<Node, Edge> getIncomingEdgeMap(final Node source) {
+        if (!this.incomingEdgeMaps.containsKey(source)) {
+            this.incomingEdgeMaps.put(source,
+                    BreadthFirstSearch.getIncomingEdgeMap(this.graph, source));
+        }
+        return this.incomingEdgeMaps.get(source);
+    }
+
+    private boolean isPassable(final int x, final int y) {
+        return this.workspace.isInBounds(x, y)
+                && this.passable.get(this.workspace.getId(x, y));
+    }
+
+    /**
+     * Move from a node in a straight line until the next jump point.
+     * 
+     * @param fromX
+     *            Horizontal co-ordinate of the node to start from.
+     * @param fromY
+     *            Vertical co-ordinate of the node to start from.
+     * @param dx
+     *            Horizontal direction; 0 when moving vertically.
+     * @param dy
+     *            Vertical direction; 0 when moving horizontally.
+     * @param target
+     *            Target of the search; always a jump point.
+     * @return Id of the jump point, or -1 when the line ends without one.
+     */
+    private int jump(final int fromX, final int fromY, final int dx,
+            final int dy, final Node target) {
+        int x = fromX;
+        int y = fromY;
+        while (true) {
+            x += dx;
+            y += dy;
+            if (!this.isPassable(x, y)) {
+                return -1;
+            } else if (x == target.getX() && y == target.getY()) {
+                return this.workspace.getId(x, y);
+            }
+            if (dx != 0) {
+                // a node above or below only just became reachable
+                if ((this.isPassable(x, y + 1) && !this.isPassable(x - dx,
+                        y + 1))
+                        || (this.isPassable(x, y - 1) && !this.isPassable(x
+                                - dx, y - 1))) {
+                    return this.workspace.getId(x, y);
+                }
+            } else if (this.jump(x, y, 1, 0, target) >= 0
+                    || this.jump(x, y, -1, 0, target) >= 0) {
+                // the path may turn here
+                return this.workspace.getId(x, y);
+            }
+        }
+    }
+
+    private void open(final int id, final int gScore, final int cameFrom,
+            final Node target) {
+        this.workspace.open(id, null, gScore, cameFrom,
+                gScore + this.getHeuristicCostEstimate(id, target));
+    }
+
+    /**
+     * Walk the jump points back from the target, filling in the straight
+     * lines between them.
+     * 
+     * @param target
+     *            Id of the last jump point on the path.
+     * @return Nodes on the path, from the source to the target.
+     */
+    private List<Node> reconstructPath(final int target) {
+        final SearchWorkspace workspace = this.workspace;
+        final List<Node> path = new ArrayList<>(
+                workspace.getGScore(target) + 1);
+        int x = workspace.getX(target);
+        int y = workspace.getY(target);
+        path.add(Node.getNode(x, y));
+        for (int id = workspace.getCameFrom(target); id >= 0; id = workspace
+                .getCameFrom(id)) {
+            final int toX = workspace.getX(id);
+            final int toY = workspace.getY(id);
+            while (x != toX || y != toY) {
+                x += Integer.signum(toX - x);
+                y += Integer.signum(toY - y);
+                path.add(Node.getNode(x, y));
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+}
@@ -0,0 +1,262 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.drooms.api.Node;
+import org.drooms.impl.util.graph.MaskedGraph;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * State of the point-to-point searches on one graph. Every vertex gets an int
+ * id from its co-ordinates within the bounding box of the graph. A value in
+ * the arrays is only valid when the vertex is stamped with the current
+ * search's generation, so the arrays never need to be cleared.
+ * 
+ * The game gives the strategies a new {@link MaskedGraph} every turn, which
+ * only hides different nodes of the same playground. Therefore, the
+ * workspaces are kept per thread and per the graph underneath the mask, and
+ * the algorithms created for the following turns pick them up again.
+ */
+class SearchWorkspace {
+
+    private static final ThreadLocal<Map<Graph<?, ?>, SearchWorkspace>>
+            WORKSPACES = new ThreadLocal<Map<Graph<?, ?>, SearchWorkspace>>() {
+
+        @Override
+        protected Map<Graph<?, ?>, SearchWorkspace> initialValue() {
+            // let the playgrounds of finished games go
+            return new WeakHashMap<>();
+        }
+
+    };
+
+    /**
+     * Start a new search on the graph.
+     * 
+     * @param graph
+     *            The graph to search; if it is a {@link MaskedGraph}, the
+     *            workspace is shared with the other masks of the same graph.
+     *            The vertices of the graph must not change once it has been
+     *            searched.
+     * @return Workspace of the thread for that graph, with a new generation
+     *         started. Must be {@link #release()}d when the search is over.
+     */
+    public static SearchWorkspace acquire(
+            final Graph<? extends Node, ?> graph) {
+        final Graph<? extends Node, ?> base = (graph instanceof MaskedGraph) ?
+                ((MaskedGraph) graph).getGraph() : graph;
+        final Map<Graph<?, ?>, SearchWorkspace> workspaces =
+                SearchWorkspace.WORKSPACES.get();
+        SearchWorkspace workspace = workspaces.get(base);
+        if (workspace == null) {
+            workspace = new SearchWorkspace(base);
+            workspaces.put(base, workspace);
+        } else if (workspace.inUse) {
+            // a heuristic searching the same graph while it is being searched
+            workspace = new SearchWorkspace(base);
+        }
+        workspace.inUse = true;
+        workspace.nextGeneration();
+        return workspace;
+    }
+
+    private final int minX, minY, width, height;
+
+    /**
+     * Which ids are vertices of the underlying graph.
+     */
+    private final BitSet vertices = new BitSet();
+
+    private final IndexedMinHeap openSet;
+
+    private final Object[] nodes;
+
+    private final int[] gScores;
+
+    private final int[] cameFrom;
+
+    private final Object[] pathBuffer;
+
+    private final int[] seenInGeneration;
+
+    private final int[] closedInGeneration;
+
+    private int generation = 0;
+
+    private boolean inUse = false;
+
+    private SearchWorkspace(final Graph<? extends Node, ?> graph) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (final Node node : graph.getVertices()) {
+            minX = Math.min(minX, node.getX());
+            minY = Math.min(minY, node.getY());
+            maxX = Math.max(maxX, node.getX());
+            maxY = Math.max(maxY, node.getY());
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.width = maxX - minX + 1;
+        this.height = maxY - minY + 1;
+        final int size = this.width * this.height;
+        this.openSet = new IndexedMinHeap(size);
+        this.nodes = new Object[size];
+        this.gScores = new int[size];
+        this.cameFrom = new int[size];
+        this.pathBuffer = new Object[size];
+        this.seenInGeneration = new int[size];
+        this.closedInGeneration = new int[size];
+        for (final Node node : graph.getVertices()) {
+            this.vertices.set(this.getId(node.getX(), node.getY()));
+        }
+    }
+
+    public int getCameFrom(final int id) {
+        return this.cameFrom[id];
+    }
+
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    public int getGScore(final int id) {
+        return this.gScores[id];
+    }
+
+    /**
+     * Id of a vertex.
+     * 
+     * @param x
+     *            Horizontal co-ordinate; must be within bounds.
+     * @param y
+     *            Vertical co-ordinate; must be within bounds.
+     * @return The id.
+     */
+    public int getId(final int x, final int y) {
+        return (y - this.minY) * this.width + (x - this.minX);
+    }
+
+    public Object getNode(final int id) {
+        return this.nodes[id];
+    }
+
+    public IndexedMinHeap getOpenSet() {
+        return this.openSet;
+    }
+
+    public Object[] getPathBuffer() {
+        return this.pathBuffer;
+    }
+
+    /**
+     * Which vertices of the underlying graph are not hidden by the mask.
+     * 
+     * @param graph
+     *            The graph being searched; this workspace must have been
+     *            acquired for it.
+     * @return Ids of the vertices. Must not be modified.
+     */
+    public BitSet getVertices(final Graph<? extends Node, ?> graph) {
+        if (!(graph instanceof MaskedGraph)) {
+            return this.vertices;
+        }
+        final BitSet visible = (BitSet) this.vertices.clone();
+        for (final Node node : ((MaskedGraph) graph).getHiddenNodes()) {
+            if (this.isInBounds(node.getX(), node.getY())) {
+                visible.clear(this.getId(node.getX(), node.getY()));
+            }
+        }
+        return visible;
+    }
+
+    public int getX(final int id) {
+        return id % this.width + this.minX;
+    }
+
+    public int getY(final int id) {
+        return id / this.width + this.minY;
+    }
+
+    public boolean isClosed(final int id) {
+        return this.closedInGeneration[id] == this.generation;
+    }
+
+    public boolean isInBounds(final int x, final int y) {
+        return x >= this.minX && x < this.minX + this.width && y >= this.minY
+                && y < this.minY + this.height;
+    }
+
+    public boolean isSeen(final int id) {
+        return this.seenInGeneration[id] == this.generation;
+    }
+
+    public void markClosed(final int id) {
+        this.closedInGeneration[id] = this.generation;
+    }
+
+    /**
+     * Put a vertex into the open set for the first time in this search.
+     * 
+     * @param id
+     *            Id of the vertex.
+     * @param node
+     *            The vertex; null if the algorithm has no use for it.
+     * @param gScore
+     *            Length of the path found to the vertex.
+     * @param cameFrom
+     *            Id of the previous vertex on that path; -1 for the source.
+     * @param fScore
+     *            Priority of the vertex.
+     */
+    public void open(final int id, final Object node, final int gScore,
+            final int cameFrom, final double fScore) {
+        this.seenInGeneration[id] = this.generation;
+        this.nodes[id] = node;
+        this.gScores[id] = gScore;
+        this.cameFrom[id] = cameFrom;
+        this.openSet.insert(id, fScore);
+    }
+
+    private void nextGeneration() {
+        this.openSet.clear();
+        if (this.generation == Integer.MAX_VALUE) {
+            // stamps would repeat; start over
+            Arrays.fill(this.seenInGeneration, 0);
+            Arrays.fill(this.closedInGeneration, 0);
+            this.generation = 0;
+        }
+        this.generation++;
+    }
+
+    /**
+     * Let other searches use the workspace. The results of this search stay
+     * valid until another one is started.
+     */
+    public void release() {
+        this.inUse = false;
+    }
+
+    /**
+     * Record a shorter path to a vertex that is already in the open set.
+     * 
+     * @param id
+     *            Id of the vertex.
+     * @param gScore
+     *            Length of the shorter path.
+     * @param cameFrom
+     *            Id of the previous vertex on that path.
+     * @param fScore
+     *            New priority of the vertex.
+     */
+    public void reopen(final int id, final int gScore, final int cameFrom,
+            final double fScore) {
+        this.gScores[id] = gScore;
+        this.cameFrom[id] = cameFrom;
+        this.openSet.decreasePriority(id, fScore);
+    }
+
+}
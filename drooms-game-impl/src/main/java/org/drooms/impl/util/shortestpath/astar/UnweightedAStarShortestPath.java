@@ -1,19 +1,17 @@
 package org.drooms.impl.util.shortestpath.astar;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.RandomAccess;
 
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.PointToPointShortestPath;
 
-import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
 import edu.uci.ics.jung.graph.Graph;
 
 /**
@@ -26,13 +24,51 @@ import edu.uci.ics.jung.graph.Graph;
  *            Edge.
  */
 public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
-        implements ShortestPath<V, E> {
+        implements PointToPointShortestPath<V, E> {
 
     public static enum VertexDistanceHeuristics {
 
         MANHATTAN, EUCLIDEAN, CHEBYSHEV;
     }
 
+    /**
+     * Read-only view of a path reconstructed into the path buffer of a
+     * {@link SearchWorkspace}, valid until the next search starts.
+     */
+    private class PathView extends AbstractList<V> implements RandomAccess {
+
+        private final SearchWorkspace workspace;
+
+        private final int start;
+
+        private final int generation;
+
+        public PathView(final SearchWorkspace workspace, final int start) {
+            this.workspace = workspace;
+            this.start = start;
+            this.generation = workspace.getGeneration();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V get(final int index) {
+            if (index < 0 || index >= this.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return (V) this.workspace.getPathBuffer()[this.start + index];
+        }
+
+        @Override
+        public int size() {
+            if (this.generation != this.workspace.getGeneration()) {
+                throw new ConcurrentModificationException(
+                        "Path invalidated by a newer search.");
+            }
+            return this.workspace.getPathBuffer().length - this.start;
+        }
+
+    }
+
     /**
      * Unweighted.
      */
@@ -40,11 +76,9 @@ public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
 
     private final Graph<V, E> graph;
 
-    private final Map<V, AStarNode<V>> nodeCache = new HashMap<>();
-
     private final DistanceHeuristic<V> heuristics;
 
-    private final Map<V, Map<V, List<V>>> shortestPaths = new HashMap<>();
+    private final Map<V, Map<V, E>> incomingEdgeMaps = new HashMap<>();
 
     /**
      * Prepare the algorithm.
@@ -74,109 +108,141 @@ public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
     }
 
     /**
-     * Find the shortest path between two nodes. Doesn't cache results.
+     * Prepare the algorithm.
+     * 
+     * @param graph
+     *            The graph to run queries on.
+     * @param heuristic
+     *            The distance estimation heuristic to use. Must never
+     *            overestimate the distance, otherwise the paths found may not
+     *            be the shortest.
+     */
+    public UnweightedAStarShortestPath(final Graph<V, E> graph,
+            final DistanceHeuristic<V> heuristic) {
+        this.graph = graph;
+        this.heuristics = heuristic;
+    }
+
+    /**
+     * Find the shortest path between two nodes. Doesn't cache results, but
+     * reuses the internal structures of the previous searches on the same
+     * thread and the same graph, or the same graph underneath a
+     * {@link org.drooms.impl.util.graph.MaskedGraph}; the vertices of that
+     * graph must not change after the first search.
      * 
      * @param source
      *            Source vertex.
      * @param target
      *            Target vertex.
-     * @return Unmodifiable. Empty when no path.
+     * @return Unmodifiable. Empty when no path. The path is only a view of
+     *         the internal structures and will fail with
+     *         {@link ConcurrentModificationException} once another search is
+     *         started on the same thread and graph; copy it if it needs to be
+     *         kept.
      */
+    @Override
     public List<V> find(final V source, final V target) {
-        // prepare the data structures
-        final Set<V> closedSet = new HashSet<>();
-        final SortedSet<AStarNode<V>> openSet = new TreeSet<>();
-        openSet.add(this.getAStarNode(
-                source,
-                new AStarNode<V>(source, 0, this.getHeuristicCostEstimate(
-                        source, target))));
-        final Map<AStarNode<V>, AStarNode<V>> cameFrom = new HashMap<>();
+        if (!this.graph.containsVertex(source)
+                || !this.graph.containsVertex(target)) {
+            return Collections.emptyList();
+        }
+        final SearchWorkspace workspace = SearchWorkspace.acquire(this.graph);
+        try {
+            return this.search(workspace, source, target);
+        } finally {
+            workspace.release();
+        }
+    }
+
+    private List<V> search(final SearchWorkspace workspace, final V source,
+            final V target) {
+        final IndexedMinHeap openSet = workspace.getOpenSet();
+        final int targetId = this.getId(workspace, target);
+        this.open(workspace, this.getId(workspace, source), source, 0, -1,
+                target);
         // start the lookup
         while (!openSet.isEmpty()) {
-            final AStarNode<V> current = openSet.first();
-            if (current.getNode() == target) {
-                return Collections.unmodifiableList(this.reconstructPath(
-                        cameFrom, current));
+            final int current = openSet.poll();
+            if (current == targetId) {
+                return this.reconstructPath(workspace, current);
             }
-            openSet.remove(current);
-            closedSet.add(current.getNode());
-            for (final V neighborNode : this.graph.getNeighbors(current
-                    .getNode())) {
-                if (closedSet.contains(neighborNode)) {
+            workspace.markClosed(current);
+            final int tentativeGScore = workspace.getGScore(current)
+                    + UnweightedAStarShortestPath.DISTANCE_BETWEEN_NEIGHBORS;
+            @SuppressWarnings("unchecked")
+            final V currentNode = (V) workspace.getNode(current);
+            for (final V neighborNode : this.graph.getNeighbors(currentNode)) {
+                final int neighbor = this.getId(workspace, neighborNode);
+                if (workspace.isClosed(neighbor)) {
                     continue;
-                }
-                final double tentativeGScore = current.getG()
-                        + UnweightedAStarShortestPath.DISTANCE_BETWEEN_NEIGHBORS;
-                final AStarNode<V> neighbor = this.getAStarNode(neighborNode);
-                final boolean isNeighborOpen = openSet.contains(neighbor);
-                if (!isNeighborOpen || tentativeGScore <= neighbor.getG()) {
-                    cameFrom.put(neighbor, current);
-                    neighbor.setG(tentativeGScore);
-                    neighbor.setF(tentativeGScore
-                            + this.getHeuristicCostEstimate(neighbor.getNode(),
-                                    target));
-                    if (!isNeighborOpen) {
-                        openSet.add(neighbor);
-                    }
+                } else if (!workspace.isSeen(neighbor)) {
+                    this.open(workspace, neighbor, neighborNode,
+                            tentativeGScore, current, target);
+                } else if (tentativeGScore < workspace.getGScore(neighbor)) {
+                    workspace.reopen(neighbor, tentativeGScore, current,
+                            tentativeGScore
+                                    + this.getHeuristicCostEstimate(
+                                            neighborNode, target));
                 }
             }
         }
-        return Collections.unmodifiableList(new ArrayList<V>());
+        return Collections.emptyList();
     }
 
-    private AStarNode<V> getAStarNode(final V node) {
-        return this.getAStarNode(node, new AStarNode<V>(node, 0, 0));
-    }
-
-    private AStarNode<V> getAStarNode(final V node,
-            final AStarNode<V> returnIfNonexistent) {
-        if (!this.nodeCache.containsKey(node)) {
-            this.nodeCache.put(node, returnIfNonexistent);
-        }
-        return this.nodeCache.get(node);
+    private int getId(final SearchWorkspace workspace, final V node) {
+        return workspace.getId(node.getX(), node.getY());
     }
 
     private double getHeuristicCostEstimate(final V source, final V target) {
         return this.heuristics.estimateDistance(source, target);
     }
 
+    /**
+     * Find the shortest paths from the source to every other reachable vertex.
+     * Since all the edges have the same weight, this is a single
+     * breadth-first sweep of the graph; the heuristics are not needed here.
+     * Results are cached.
+     * 
+     * @param source
+     *            Source vertex.
+     * @return Unmodifiable map where each reachable vertex is mapped to the
+     *         edge through which the shortest path from the source enters it.
+     */
     @Override
     public Map<V, E> getIncomingEdgeMap(final V source) {
-        if (!this.shortestPaths.containsKey(source)) {
-            this.shortestPaths.put(source, new HashMap<V, List<V>>());
-        }
-        final Map<V, List<V>> relevantPaths = this.shortestPaths.get(source);
-        final Map<V, E> result = new HashMap<>();
-        for (final V target : this.graph.getVertices()) {
-            if (target == source) {
-                continue;
-            }
-            if (!relevantPaths.containsKey(target)) {
-                relevantPaths.put(target, this.find(source, target));
-            }
-            final List<V> path = relevantPaths.get(target);
-            if (path.size() == 0) {
-                continue;
-            }
-            final V next = path.get(1);
-            result.put(next, this.graph.findEdge(source, next));
+        if (!this.incomingEdgeMaps.containsKey(source)) {
+            this.incomingEdgeMaps.put(source,
+                    BreadthFirstSearch.getIncomingEdgeMap(this.graph, source));
         }
-        return Collections.unmodifiableMap(result);
+        return this.incomingEdgeMaps.get(source);
     }
 
-    private List<V> reconstructPath(
-            final Map<AStarNode<V>, AStarNode<V>> cameFrom,
-            final AStarNode<V> currentNode) {
-        if (cameFrom.containsKey(currentNode)) {
-            final List<V> path = this.reconstructPath(cameFrom,
-                    cameFrom.get(currentNode));
-            path.add(currentNode.getNode());
-            return path;
-        } else {
-            final List<V> result = new ArrayList<>();
-            result.add(currentNode.getNode());
-            return result;
+    private void open(final SearchWorkspace workspace, final int id,
+            final V node, final int gScore, final int cameFrom,
+            final V target) {
+        workspace.open(id, node, gScore, cameFrom,
+                gScore + this.getHeuristicCostEstimate(node, target));
+    }
+
+    /**
+     * Walk the predecessors back from the target, filling the path buffer
+     * from its end.
+     * 
+     * @param workspace
+     *            Workspace of the search.
+     * @param target
+     *            Id of the last vertex on the path.
+     * @return View of the path in the buffer.
+     */
+    private List<V> reconstructPath(final SearchWorkspace workspace,
+            final int target) {
+        final Object[] pathBuffer = workspace.getPathBuffer();
+        int start = pathBuffer.length;
+        for (int id = target; id >= 0; id = workspace.getCameFrom(id)) {
+            start--;
+            pathBuffer[start] = workspace.getNode(id);
         }
+        return new PathView(workspace, start);
     }
 
 }
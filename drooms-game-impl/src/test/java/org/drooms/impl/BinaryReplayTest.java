@@ -0,0 +1,270 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Move;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.impl.util.properties.GameProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes the same short game to {@link BinaryReplayListener} and
+ * {@link XmlProgressListener}, and checks what {@link BinaryReplayConverter} and
+ * {@link BinaryReplayReader} read from the replay.
+ */
+public class BinaryReplayTest {
+
+    private static final int TURNS = 12;
+
+    private static final int KEYFRAME_INTERVAL = 5;
+
+    private static Node[] advance(final Deque<Node> worm, final Node head, final boolean grow) {
+        if (worm.getFirst() != head) {
+            worm.addFirst(head);
+            if (!grow) {
+                worm.removeLast();
+            }
+        }
+        return worm.toArray(new Node[worm.size()]);
+    }
+
+    private static String describe(final BinaryReplayReader.State state, final List<String> players) {
+        final StringBuilder sb = new StringBuilder("Turn ").append(state.getTurnNumber());
+        for (final String player : players) {
+            sb.append(", ").append(player).append(": ").append(state.getPlayerPoints(player)).append(" ")
+                    .append(state.isPlayerActive(player)).append(" ").append(state.getPlayerPosition(player));
+        }
+        for (final Map.Entry<Node, Collectible> entry : state.getCollectibles().entrySet()) {
+            sb.append(", ").append(entry.getValue()).append(" at ").append(entry.getKey());
+        }
+        return sb.toString();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Player a = TestPlayers.obtainPlayer("a");
+
+    private final Player b = TestPlayers.obtainPlayer("b");
+
+    private final List<Player> players = Arrays.asList(this.a, this.b);
+
+    private final Collectible expensive = new Collectible(10, 20);
+
+    private final Collectible cheap = new Collectible(5, 8);
+
+    private DefaultPlayground playground;
+
+    private GameProperties gameConfig;
+
+    /**
+     * Report the game: "a" goes right until it crashes in turn 9, "b" goes
+     * right, collects a collectible in turn 6, goes up, stays and goes left.
+     * Another collectible appears in turn 4 and is removed in turn 8.
+     */
+    private void play(final GameProgressListener listener) {
+        final Deque<Node> wormA = new ArrayDeque<>(Arrays.asList(Node.getNode(3, 1), Node.getNode(2, 1),
+                Node.getNode(1, 1)));
+        final Deque<Node> wormB = new ArrayDeque<>(Arrays.asList(Node.getNode(3, 3), Node.getNode(2, 3),
+                Node.getNode(1, 3)));
+        for (int turn = 0; turn < BinaryReplayTest.TURNS; turn++) {
+            listener.nextTurn();
+            if (turn < 9) {
+                final Move move = turn == 0 ? Move.STAY : Move.RIGHT;
+                listener.playerMoved(this.a, move, BinaryReplayTest.advance(wormA, Node.getNode(3 + turn, 1), false));
+            }
+            if (turn < 9) {
+                final Move move = turn == 0 ? Move.STAY : Move.RIGHT;
+                listener.playerMoved(this.b, move,
+                        BinaryReplayTest.advance(wormB, Node.getNode(3 + turn, 3), turn == 6));
+            } else if (turn == 9) {
+                listener.playerMoved(this.b, Move.UP, BinaryReplayTest.advance(wormB, Node.getNode(11, 4), false));
+            } else if (turn == 10) {
+                listener.playerMoved(this.b, Move.STAY, BinaryReplayTest.advance(wormB, wormB.getFirst(), false));
+            } else {
+                listener.playerMoved(this.b, Move.LEFT, BinaryReplayTest.advance(wormB, Node.getNode(10, 4), false));
+            }
+            if (turn == 9) {
+                listener.playerCrashed(this.a);
+                listener.playerSurvived(this.b, 5);
+            } else if (turn == 8) {
+                listener.collectibleRemoved(this.cheap, Node.getNode(2, 2));
+            } else if (turn == 6) {
+                listener.collectibleCollected(this.expensive, this.b, Node.getNode(9, 3), 10);
+            } else if (turn == 4) {
+                listener.collectibleAdded(this.cheap, Node.getNode(2, 2));
+            } else if (turn == 3) {
+                listener.collectibleAdded(this.expensive, Node.getNode(9, 3));
+            }
+        }
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        final String rows = "            \n            \n            \n            \n            \n";
+        this.playground = DefaultPlayground.read("test", new ByteArrayInputStream(rows
+                .getBytes(StandardCharsets.UTF_8)));
+        final File config = this.folder.newFile("game.cfg");
+        try (OutputStream s = new FileOutputStream(config)) {
+            s.write(("collectibles=cheap\ncollectible.probability.cheap=0.1\ncollectible.expiration.cheap=8\n"
+                    + "collectible.price.cheap=5\n").getBytes(StandardCharsets.UTF_8));
+        }
+        this.gameConfig = GameProperties.read(config);
+    }
+
+    private byte[] writeReport() throws IOException {
+        final File reportFile = this.folder.newFile("report.xml");
+        try (XmlProgressListener report = new XmlProgressListener(this.playground, this.players, this.gameConfig,
+                reportFile)) {
+            this.play(report);
+        }
+        return Files.readAllBytes(reportFile.toPath());
+    }
+
+    private File writeReplay(final String name, final int keyframeInterval) throws IOException {
+        final File replayFile = this.folder.newFile(name);
+        try (BinaryReplayListener replay = new BinaryReplayListener(this.playground, this.players,
+                this.gameConfig, replayFile, keyframeInterval)) {
+            this.play(replay);
+        }
+        return replayFile;
+    }
+
+    private File writeTruncated(final File replayFile, final int length) throws IOException {
+        final byte[] bytes = Files.readAllBytes(replayFile.toPath());
+        final File truncated = this.folder.newFile("truncated-" + length + ".replay");
+        Files.write(truncated.toPath(), Arrays.copyOf(bytes, length));
+        return truncated;
+    }
+
+    @Test
+    public void testConvertedReportMatchesXml() throws IOException {
+        final byte[] expected = this.writeReport();
+        for (final int keyframeInterval : new int[] { 1, BinaryReplayTest.KEYFRAME_INTERVAL, 100 }) {
+            final File replayFile = this.writeReplay("every-" + keyframeInterval + ".replay", keyframeInterval);
+            final File converted = this.folder.newFile("every-" + keyframeInterval + ".xml");
+            BinaryReplayConverter.convert(replayFile, converted);
+            Assert.assertArrayEquals("Keyframe every " + keyframeInterval + " turns.", expected,
+                    Files.readAllBytes(converted.toPath()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testConvertTruncated() throws IOException {
+        final File replayFile = this.writeReplay("game.replay", BinaryReplayTest.KEYFRAME_INTERVAL);
+        final File truncated = this.writeTruncated(replayFile, (int) replayFile.length() / 2);
+        BinaryReplayConverter.convert(truncated, this.folder.newFile("truncated.xml"));
+    }
+
+    @Test
+    public void testGetState() throws IOException {
+        try (BinaryReplayReader reader = new BinaryReplayReader(this.writeReplay("game.replay",
+                BinaryReplayTest.KEYFRAME_INTERVAL))) {
+            Assert.assertEquals(BinaryReplayTest.TURNS, reader.getTurnCount());
+            Assert.assertEquals(BinaryReplayTest.KEYFRAME_INTERVAL, reader.getKeyframeInterval());
+            Assert.assertEquals(Arrays.asList("a", "b"), reader.getPlayers());
+            // a keyframe
+            final BinaryReplayReader.State turn5 = reader.getState(5);
+            Assert.assertEquals(5, turn5.getTurnNumber());
+            Assert.assertEquals(0, turn5.getPlayerPoints("b"));
+            Assert.assertEquals(Arrays.asList(Node.getNode(8, 1), Node.getNode(7, 1), Node.getNode(6, 1)),
+                    turn5.getPlayerPosition("a"));
+            Assert.assertEquals(2, turn5.getCollectibles().size());
+            Assert.assertEquals(this.cheap.toString(), turn5.getCollectibles().get(Node.getNode(2, 2)).toString());
+            // between keyframes
+            final BinaryReplayReader.State turn6 = reader.getState(6);
+            Assert.assertEquals(10, turn6.getPlayerPoints("b"));
+            Assert.assertEquals(Arrays.asList(Node.getNode(9, 3), Node.getNode(8, 3), Node.getNode(7, 3),
+                    Node.getNode(6, 3)), turn6.getPlayerPosition("b"));
+            Assert.assertEquals(1, turn6.getCollectibles().size());
+            Assert.assertTrue(reader.getState(8).getCollectibles().isEmpty());
+            final BinaryReplayReader.State turn9 = reader.getState(9);
+            Assert.assertFalse(turn9.isPlayerActive("a"));
+            Assert.assertTrue(turn9.getPlayerPosition("a").isEmpty());
+            Assert.assertEquals(15, turn9.getPlayerPoints("b"));
+            // a keyframe after a player crashed, and the last turn
+            Assert.assertFalse(reader.getState(10).isPlayerActive("a"));
+            Assert.assertEquals(Arrays.asList(Node.getNode(10, 4), Node.getNode(11, 4), Node.getNode(11, 3),
+                    Node.getNode(10, 3)), reader.getState(11).getPlayerPosition("b"));
+        }
+    }
+
+    @Test
+    public void testGetStateMatchesKeyframes() throws IOException {
+        try (BinaryReplayReader reader = new BinaryReplayReader(this.writeReplay("game.replay",
+                BinaryReplayTest.KEYFRAME_INTERVAL));
+                BinaryReplayReader keyframes = new BinaryReplayReader(this.writeReplay("keyframes.replay", 1))) {
+            Assert.assertEquals(1, keyframes.getKeyframeInterval());
+            // backwards, so that every turn is read from its keyframe again
+            for (int turn = BinaryReplayTest.TURNS - 1; turn >= 0; turn--) {
+                Assert.assertEquals(BinaryReplayTest.describe(keyframes.getState(turn), keyframes.getPlayers()),
+                        BinaryReplayTest.describe(reader.getState(turn), reader.getPlayers()));
+            }
+        }
+    }
+
+    @Test
+    public void testGetStateOutOfRange() throws IOException {
+        try (BinaryReplayReader reader = new BinaryReplayReader(this.writeReplay("game.replay",
+                BinaryReplayTest.KEYFRAME_INTERVAL))) {
+            for (final int turn : new int[] { -1, BinaryReplayTest.TURNS }) {
+                try {
+                    reader.getState(turn);
+                    Assert.fail("Turn " + turn + " should not be in the replay.");
+                } catch (final IllegalArgumentException ex) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadTruncated() throws IOException {
+        final File replayFile = this.writeReplay("game.replay", BinaryReplayTest.KEYFRAME_INTERVAL);
+        // the index is complete, but the trailer pointing to it is not
+        new BinaryReplayReader(this.writeTruncated(replayFile, (int) replayFile.length() - 1)).close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadWithoutIndex() throws IOException {
+        final File replayFile = this.writeReplay("game.replay", BinaryReplayTest.KEYFRAME_INTERVAL);
+        // replays of the first version have no index; the version follows the magic number
+        final byte[] bytes = Files.readAllBytes(replayFile.toPath());
+        Assert.assertEquals(2, bytes[4]);
+        bytes[4] = 1;
+        Files.write(replayFile.toPath(), bytes);
+        new BinaryReplayReader(replayFile).close();
+    }
+
+    @Test
+    public void testVisitTurns() throws IOException {
+        final byte[] expected = this.writeReport();
+        final File visited = this.folder.newFile("visited.xml");
+        try (BinaryReplayReader reader = new BinaryReplayReader(this.writeReplay("game.replay",
+                BinaryReplayTest.KEYFRAME_INTERVAL));
+                XmlProgressListener report = new XmlProgressListener(reader.getConfig(), reader.getPlayers(),
+                        reader.getPlayground(), visited)) {
+            reader.visitTurns(report);
+        }
+        Assert.assertArrayEquals(expected, Files.readAllBytes(visited.toPath()));
+    }
+
+}
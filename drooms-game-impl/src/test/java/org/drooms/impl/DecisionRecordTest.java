@@ -0,0 +1,65 @@
+package org.drooms.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.drooms.api.Move;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DecisionRecordTest {
+
+    @Test
+    public void testEmpty() {
+        final GameController.DecisionRecord record = new GameController.DecisionRecord(3);
+        Assert.assertEquals(Collections.emptyList(), record.getDecisions());
+        Assert.assertEquals(0, record.getInactiveTurns());
+    }
+
+    @Test
+    public void testInactiveTurns() {
+        final GameController.DecisionRecord record = new GameController.DecisionRecord(2);
+        record.add(Move.STAY);
+        Assert.assertEquals(1, record.getInactiveTurns());
+        record.add(Move.STAY);
+        record.add(Move.STAY);
+        // counted even beyond what the buffer holds
+        Assert.assertEquals(3, record.getInactiveTurns());
+        record.add(Move.UP);
+        Assert.assertEquals(0, record.getInactiveTurns());
+        record.add(Move.STAY);
+        Assert.assertEquals(1, record.getInactiveTurns());
+    }
+
+    @Test
+    public void testSingleDecision() {
+        final GameController.DecisionRecord record = new GameController.DecisionRecord(1);
+        record.add(Move.UP);
+        record.add(Move.LEFT);
+        Assert.assertEquals(Arrays.asList(Move.LEFT), record.getDecisions());
+    }
+
+    @Test
+    public void testWrapAround() {
+        final GameController.DecisionRecord record = new GameController.DecisionRecord(3);
+        record.add(Move.UP);
+        record.add(Move.DOWN);
+        Assert.assertEquals(Arrays.asList(Move.UP, Move.DOWN), record.getDecisions());
+        record.add(Move.LEFT);
+        Assert.assertEquals(Arrays.asList(Move.UP, Move.DOWN, Move.LEFT), record.getDecisions());
+        record.add(Move.RIGHT);
+        Assert.assertEquals(Arrays.asList(Move.DOWN, Move.LEFT, Move.RIGHT), record.getDecisions());
+        record.add(Move.STAY);
+        record.add(Move.UP);
+        record.add(Move.DOWN);
+        Assert.assertEquals(Arrays.asList(Move.STAY, Move.UP, Move.DOWN), record.getDecisions());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDecisionsUnmodifiable() {
+        final GameController.DecisionRecord record = new GameController.DecisionRecord(3);
+        record.add(Move.UP);
+        record.getDecisions().clear();
+    }
+
+}
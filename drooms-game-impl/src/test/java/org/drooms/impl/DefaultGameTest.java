@@ -0,0 +1,124 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DefaultGameTest {
+
+    /**
+     * Takes the positions of the worms from the test instead of from playing
+     * the game.
+     */
+    private static class PositionedGame extends DefaultGame {
+
+        private final Map<Player, Deque<Node>> positions = new HashMap<>();
+
+        @Override
+        protected int getOccupancy(final Node n) {
+            int occupancy = 0;
+            for (final Deque<Node> position : this.positions.values()) {
+                for (final Node piece : position) {
+                    if (piece.equals(n)) {
+                        occupancy++;
+                    }
+                }
+            }
+            return occupancy;
+        }
+
+        @Override
+        protected Deque<Node> getPlayerPosition(final Player p) {
+            return this.positions.get(p);
+        }
+
+        public Set<Player> detectCollisions(final Playground playground) {
+            return this.performCollisionDetection(playground, this.positions.keySet());
+        }
+
+        public void setPosition(final Player p, final Node... nodes) {
+            this.positions.put(p, new LinkedList<>(Arrays.asList(nodes)));
+        }
+
+    }
+
+    private final Player a = TestPlayers.obtainPlayer("a");
+
+    private final Player b = TestPlayers.obtainPlayer("b");
+
+    private final Player c = TestPlayers.obtainPlayer("c");
+
+    private final PositionedGame game = new PositionedGame();
+
+    private Playground playground;
+
+    @Before
+    public void prepare() throws IOException {
+        // the right-most column is a wall
+        final String rows = "    #\n    #\n    #\n    #\n    #\n";
+        this.playground = DefaultPlayground.read("test", new ByteArrayInputStream(rows
+                .getBytes(StandardCharsets.UTF_8)));
+        this.game.setPosition(this.c, Node.getNode(0, 4), Node.getNode(1, 4), Node.getNode(2, 4));
+    }
+
+    @Test
+    public void testHeadIntoBody() {
+        this.game.setPosition(this.a, Node.getNode(2, 1), Node.getNode(1, 1), Node.getNode(0, 1));
+        this.game.setPosition(this.b, Node.getNode(2, 2), Node.getNode(2, 1), Node.getNode(2, 0));
+        Assert.assertEquals(Collections.singleton(this.a), this.game.detectCollisions(this.playground));
+    }
+
+    @Test
+    public void testHeadIntoBodyOfWormCrashedIntoWall() {
+        this.game.setPosition(this.a, Node.getNode(4, 1), Node.getNode(3, 1), Node.getNode(2, 1));
+        this.game.setPosition(this.b, Node.getNode(3, 1), Node.getNode(3, 2), Node.getNode(3, 3));
+        Assert.assertEquals(Collections.singleton(this.a), this.game.detectCollisions(this.playground));
+    }
+
+    @Test
+    public void testHeadOnHead() {
+        this.game.setPosition(this.a, Node.getNode(1, 1), Node.getNode(0, 1));
+        this.game.setPosition(this.b, Node.getNode(1, 1), Node.getNode(2, 1));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(this.a, this.b)),
+                this.game.detectCollisions(this.playground));
+    }
+
+    @Test
+    public void testIntoOuterWall() {
+        this.game.setPosition(this.a, Node.getNode(0, -1), Node.getNode(0, 0));
+        this.game.setPosition(this.b, Node.getNode(1, 0), Node.getNode(2, 0));
+        Assert.assertEquals(Collections.singleton(this.a), this.game.detectCollisions(this.playground));
+    }
+
+    @Test
+    public void testNoCollision() {
+        this.game.setPosition(this.a, Node.getNode(1, 1), Node.getNode(0, 1));
+        // moved into where the other worm's tail was
+        this.game.setPosition(this.b, Node.getNode(0, 2), Node.getNode(1, 2), Node.getNode(2, 2));
+        Assert.assertTrue(this.game.detectCollisions(this.playground).isEmpty());
+    }
+
+    @Test
+    public void testSelfCollision() {
+        this.game.setPosition(this.a, Node.getNode(1, 1), Node.getNode(2, 1), Node.getNode(2, 2),
+                Node.getNode(1, 2), Node.getNode(1, 1));
+        this.game.setPosition(this.b, Node.getNode(3, 3), Node.getNode(3, 2));
+        Assert.assertEquals(Collections.singleton(this.a), this.game.detectCollisions(this.playground));
+    }
+
+}
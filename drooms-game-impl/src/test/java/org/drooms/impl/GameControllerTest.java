@@ -0,0 +1,127 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.drooms.api.Player;
+import org.drooms.api.Turn;
+import org.drooms.api.TurnListener;
+import org.drooms.impl.util.properties.GameProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Plays short games of worms that never move, and checks what they report.
+ */
+public class GameControllerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Player> players = Arrays.asList(TestPlayers.obtainPlayer("a", "idle.drl"),
+            TestPlayers.obtainPlayer("b", "idle.drl"));
+
+    private DefaultPlayground playground;
+
+    private GameProperties read(final String properties) throws IOException {
+        final File config = this.folder.newFile();
+        try (OutputStream s = new FileOutputStream(config)) {
+            s.write(("collectibles=cheap\ncollectible.probability.cheap=0.1\ncollectible.expiration.cheap=8\n"
+                    + "collectible.price.cheap=5\nworm.timeout.millis=100\nworm.max.inactive.turns=1\n" + properties)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return GameProperties.read(config);
+    }
+
+    private void play(final DefaultGame game, final String properties, final File reportFolder) throws IOException {
+        game.setContext(this.read(properties));
+        game.play(this.playground, this.players, reportFolder);
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        final String rows = "          \n  1    2  \n          \n";
+        this.playground = DefaultPlayground.read("test", new ByteArrayInputStream(rows
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testReplayOnly() throws IOException {
+        final File reportFolder = this.folder.newFolder();
+        final DefaultGame game = new DefaultGame();
+        this.play(game, "report.xml=false\nreport.replay=true\n", reportFolder);
+        Assert.assertFalse(new File(reportFolder, "report.xml").exists());
+        final File replayFile = new File(reportFolder, "report.replay");
+        Assert.assertTrue(replayFile.exists());
+        // the XML report is derived from the replay when asked for
+        final StringWriter report = new StringWriter();
+        game.getReport().write(report);
+        final File converted = this.folder.newFile("converted.xml");
+        BinaryReplayConverter.convert(replayFile, converted);
+        Assert.assertEquals(new String(Files.readAllBytes(converted.toPath()), StandardCharsets.UTF_8),
+                report.toString());
+    }
+
+    @Test
+    public void testTurnListener() throws IOException {
+        final File reportFolder = this.folder.newFolder();
+        final GameProperties config = this.read("");
+        final List<Turn> turns = new ArrayList<>();
+        final DefaultGame game = new DefaultGame();
+        game.setContext(config);
+        game.play(this.playground, this.players, reportFolder, Collections.<TurnListener> singletonList(
+                new TurnListener() {
+
+                    @Override
+                    public void turnPlayed(final Turn turn) {
+                        turns.add(turn);
+                    }
+
+                }));
+        // worms that never move are deactivated once the inactive turn is over
+        Assert.assertEquals(3, turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            Assert.assertEquals(i, turns.get(i).getNumber());
+        }
+        Assert.assertEquals(2, turns.get(0).getMovedPlayers().size());
+        Assert.assertEquals(new HashSet<>(this.players), new HashSet<>(turns.get(2).getDeactivatedPlayers()));
+        // the turns tell the same story as the XML report
+        final File reportFile = this.folder.newFile("turns.xml");
+        try (XmlProgressListener report = new XmlProgressListener(this.playground, this.players, config,
+                reportFile)) {
+            for (final Turn turn : turns) {
+                turn.report(report);
+            }
+        }
+        Assert.assertArrayEquals(Files.readAllBytes(new File(reportFolder, "report.xml").toPath()),
+                Files.readAllBytes(reportFile.toPath()));
+    }
+
+    @Test
+    public void testXmlAndReplay() throws IOException {
+        final File reportFolder = this.folder.newFolder();
+        final DefaultGame game = new DefaultGame();
+        // both are written by default
+        this.play(game, "", reportFolder);
+        final File replayFile = new File(reportFolder, "report.replay");
+        final File converted = this.folder.newFile("converted.xml");
+        BinaryReplayConverter.convert(replayFile, converted);
+        Assert.assertArrayEquals(Files.readAllBytes(new File(reportFolder, "report.xml").toPath()),
+                Files.readAllBytes(converted.toPath()));
+    }
+
+}
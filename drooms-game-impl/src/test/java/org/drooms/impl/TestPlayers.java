@@ -0,0 +1,74 @@
+package org.drooms.impl;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+
+import org.drools.builder.KnowledgeBuilder;
+import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.builder.ResourceType;
+import org.drools.definition.KnowledgePackage;
+import org.drools.io.ResourceFactory;
+import org.drooms.api.CustomPathBasedStrategy;
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Players for the tests, whose strategies have no rules unless given some.
+ */
+public class TestPlayers {
+
+    private static CustomPathBasedStrategy getStrategy() {
+        return new CustomPathBasedStrategy() {
+
+            @Override
+            public boolean enableAudit() {
+                return false;
+            }
+
+            @Override
+            public KnowledgeBuilder getKnowledgeBuilder(final ClassLoader cls) {
+                return KnowledgeBuilderFactory.newKnowledgeBuilder();
+            }
+
+            @Override
+            public String getName() {
+                return "Testing";
+            }
+
+            @Override
+            public ShortestPath<Node, Edge> getShortestPathAlgorithm(final Graph<Node, Edge> graph) {
+                return new UnweightedShortestPath<Node, Edge>(graph);
+            }
+        };
+    }
+
+    public static Player obtainPlayer(final String name) {
+        return new Player(name, TestPlayers.getStrategy(), new URLClassLoader(new URL[0]),
+                Collections.<KnowledgePackage> emptyList());
+    }
+
+    /**
+     * Obtain a player whose strategy consists of the given rules.
+     * 
+     * @param name
+     *            Name of the player.
+     * @param rules
+     *            Class path resource with the DRL.
+     * @return The player.
+     */
+    public static Player obtainPlayer(final String name, final String rules) {
+        final KnowledgeBuilder kb = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kb.add(ResourceFactory.newClassPathResource(rules), ResourceType.DRL);
+        if (kb.hasErrors()) {
+            throw new IllegalStateException("Rules " + rules + " do not compile: " + kb.getErrors());
+        }
+        return new Player(name, TestPlayers.getStrategy(), new URLClassLoader(new URL[0]), kb.getKnowledgePackages());
+    }
+
+}
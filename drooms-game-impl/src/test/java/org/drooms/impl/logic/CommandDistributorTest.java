@@ -0,0 +1,122 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Move;
+import org.drooms.api.Player;
+import org.drooms.impl.DefaultPlayground;
+import org.drooms.impl.TestPlayers;
+import org.drooms.impl.XmlProgressListener;
+import org.drooms.impl.logic.commands.Command;
+import org.drooms.impl.util.properties.GameProperties;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Lets a strategy that keeps the CPU busy and a strategy that sleeps take the
+ * same wall-clock time to decide, and checks which of them run out of time.
+ */
+public class CommandDistributorTest {
+
+    private static final String SPINNING = "spinning";
+
+    private static final String SLEEPING = "sleeping";
+
+    private static final long DECISION_MILLIS = 500;
+
+    /**
+     * Called from the rules of both players.
+     * 
+     * @param player
+     *            Name of the player deciding.
+     * @return The decision, once {@link #DECISION_MILLIS} of wall-clock time
+     *         have passed; STAY when interrupted before that.
+     */
+    public static Move decide(final String player) {
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CommandDistributorTest.DECISION_MILLIS);
+        if (CommandDistributorTest.SPINNING.equals(player)) {
+            while (System.nanoTime() < end) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return Move.STAY;
+                }
+            }
+        } else {
+            try {
+                Thread.sleep(CommandDistributorTest.DECISION_MILLIS);
+            } catch (final InterruptedException ex) {
+                return Move.STAY;
+            }
+        }
+        return Move.LEFT;
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Player spinning = TestPlayers.obtainPlayer(CommandDistributorTest.SPINNING, "timing.drl");
+
+    private final Player sleeping = TestPlayers.obtainPlayer(CommandDistributorTest.SLEEPING, "timing.drl");
+
+    private Map<Player, Move> execute(final String timeout) throws IOException {
+        final String rows = "          \n          \n          \n          \n";
+        final DefaultPlayground playground = DefaultPlayground.read("test",
+                new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)));
+        final File config = this.folder.newFile();
+        try (OutputStream s = new FileOutputStream(config)) {
+            s.write(("collectibles=cheap\ncollectible.probability.cheap=0.1\ncollectible.expiration.cheap=8\n"
+                    + "collectible.price.cheap=5\n" + timeout).getBytes(StandardCharsets.UTF_8));
+        }
+        final GameProperties properties = GameProperties.read(config);
+        final List<Player> players = Arrays.asList(this.spinning, this.sleeping);
+        final XmlProgressListener report = new XmlProgressListener(playground, players, properties,
+                this.folder.newFile());
+        final CommandDistributor distributor = new CommandDistributor(playground, players, report, properties,
+                this.folder.getRoot());
+        try {
+            return distributor.execute(Collections.<Command> emptyList());
+        } finally {
+            distributor.terminate();
+            report.close();
+        }
+    }
+
+    @Test
+    public void testCpuTime() throws IOException {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean().isThreadCpuTimeSupported());
+        final Map<Player, Move> moves = this.execute("worm.timeout.millis=100\nworm.timeout.cpu=true\n"
+                + "worm.timeout.wall.millis=5000\n");
+        Assert.assertEquals(Move.STAY, moves.get(this.spinning));
+        // sleeping takes no CPU time
+        Assert.assertEquals(Move.LEFT, moves.get(this.sleeping));
+    }
+
+    @Test
+    public void testWallClockTime() throws IOException {
+        final Map<Player, Move> moves = this.execute("worm.timeout.millis=100\n");
+        Assert.assertEquals(Move.STAY, moves.get(this.spinning));
+        Assert.assertEquals(Move.STAY, moves.get(this.sleeping));
+    }
+
+    @Test
+    public void testWallClockTimeWithCpuTime() throws IOException {
+        final Map<Player, Move> moves = this.execute("worm.timeout.millis=100\nworm.timeout.cpu=true\n"
+                + "worm.timeout.wall.millis=200\n");
+        Assert.assertEquals(Move.STAY, moves.get(this.spinning));
+        Assert.assertEquals(Move.STAY, moves.get(this.sleeping));
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.Move;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.impl.DefaultPlayground;
+import org.drooms.impl.TestPlayers;
+import org.drooms.impl.logic.events.CollectibleAdditionEvent;
+import org.drooms.impl.logic.events.CollectibleRemovalEvent;
+import org.drooms.impl.logic.events.CollectibleRewardEvent;
+import org.drooms.impl.logic.events.PlayerDeathEvent;
+import org.drooms.impl.logic.events.PlayerMoveEvent;
+import org.drooms.impl.logic.events.SurvivalRewardEvent;
+import org.drooms.impl.util.properties.GameProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Feeds events to a strategy that records which of them are in the working
+ * memory whenever it is asked to decide.
+ */
+public class DecisionMakerTest {
+
+    private static final Map<Integer, Set<Object>> OBSERVED = new HashMap<>();
+
+    /**
+     * Called from the rules when the strategy is asked to decide.
+     */
+    public static void observe(final int turn, final Collection<?> gameEvents, final Collection<?> playerEvents,
+            final Collection<?> rewardEvents) {
+        final Set<Object> events = new HashSet<>();
+        events.addAll(gameEvents);
+        events.addAll(playerEvents);
+        events.addAll(rewardEvents);
+        DecisionMakerTest.OBSERVED.put(turn, events);
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Player a = TestPlayers.obtainPlayer("a", "observing.drl");
+
+    private final Player b = TestPlayers.obtainPlayer("b");
+
+    private DecisionMaker decisionMaker;
+
+    private Set<Object> decide(final int turn) {
+        Assert.assertEquals(Move.STAY, this.decisionMaker.decideNextMove());
+        final Set<Object> events = DecisionMakerTest.OBSERVED.get(turn);
+        Assert.assertNotNull("Nothing observed in turn " + turn + ".", events);
+        return events;
+    }
+
+    private PlayerMoveEvent move(final Player p, final Node... nodes) {
+        return new PlayerMoveEvent(p, Move.RIGHT, new ArrayDeque<>(Arrays.asList(nodes)));
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        DecisionMakerTest.OBSERVED.clear();
+        final String rows = "          \n          \n          \n          \n";
+        final DefaultPlayground playground = DefaultPlayground.read("test",
+                new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)));
+        final File config = this.folder.newFile("game.cfg");
+        try (OutputStream s = new FileOutputStream(config)) {
+            s.write(("collectibles=cheap\ncollectible.probability.cheap=0.1\ncollectible.expiration.cheap=8\n"
+                    + "collectible.price.cheap=5\nworm.events.retention.turns=2\n").getBytes(StandardCharsets.UTF_8));
+        }
+        this.decisionMaker = new DecisionMaker(this.a, new PathTracker(playground, this.a),
+                GameProperties.read(config), this.folder.getRoot());
+    }
+
+    @After
+    public void terminate() {
+        this.decisionMaker.terminate();
+    }
+
+    @Test
+    public void testEventRetention() {
+        // turn 0
+        final PlayerMoveEvent a1 = this.move(this.a, Node.getNode(2, 1), Node.getNode(1, 1));
+        final PlayerMoveEvent b1 = this.move(this.b, Node.getNode(2, 3), Node.getNode(1, 3));
+        final Collectible collected = new Collectible(10, 20);
+        final Collectible removed = new Collectible(5, 8);
+        final CollectibleAdditionEvent collectedAdded = new CollectibleAdditionEvent(collected, Node.getNode(5, 1));
+        final CollectibleAdditionEvent removedAdded = new CollectibleAdditionEvent(removed, Node.getNode(5, 2));
+        final SurvivalRewardEvent survived = new SurvivalRewardEvent(this.a, 1);
+        this.decisionMaker.notifyOfPlayerMove(a1, null, null);
+        this.decisionMaker.notifyOfPlayerMove(b1, null, null);
+        this.decisionMaker.notifyOfCollectibleAddition(collectedAdded);
+        this.decisionMaker.notifyOfCollectibleAddition(removedAdded);
+        this.decisionMaker.notifyOfSurvivalReward(survived);
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList(a1, b1, collectedAdded, removedAdded, survived)),
+                this.decide(0));
+        // turn 1; the collectible is gone, but its addition is not too old yet
+        final PlayerMoveEvent a2 = this.move(this.a, Node.getNode(3, 1), Node.getNode(2, 1));
+        final CollectibleRewardEvent reward = new CollectibleRewardEvent(this.a, collected, Node.getNode(5, 1));
+        this.decisionMaker.notifyOfPlayerMove(a2, Node.getNode(3, 1), Node.getNode(1, 1));
+        this.decisionMaker.notifyOfCollectibleReward(reward);
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList(a1, b1, collectedAdded, removedAdded, survived, a2,
+                reward)), this.decide(1));
+        // turn 2; events of turn 0 expire, unless they are still retained
+        final PlayerMoveEvent a3 = this.move(this.a, Node.getNode(4, 1), Node.getNode(3, 1));
+        this.decisionMaker.notifyOfPlayerMove(a3, Node.getNode(4, 1), Node.getNode(2, 1));
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList(b1, removedAdded, a2, reward, a3)), this.decide(2));
+        // turn 3; overdue events are retracted as soon as they are released
+        final CollectibleRemovalEvent removal = new CollectibleRemovalEvent(removed, Node.getNode(5, 2));
+        final PlayerDeathEvent death = new PlayerDeathEvent(this.b);
+        this.decisionMaker.notifyOfCollectibleRemoval(removal);
+        this.decisionMaker.notifyOfDeath(death);
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList(a3, removal, death)), this.decide(3));
+    }
+
+}
@@ -0,0 +1,265 @@
+package org.drooms.impl.logic;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Move;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Turn;
+import org.drooms.api.TurnListener;
+import org.drooms.impl.TestPlayers;
+import org.drooms.impl.logic.commands.Command;
+import org.drooms.impl.logic.commands.RewardSurvivalCommand;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Reports turns in which a worm survives with as many points as the number of
+ * the turn, so that the listeners can tell the turns apart.
+ */
+public class ProgressReporterTest {
+
+    /**
+     * Records the points of every survival, and may hold up or fail the
+     * reporting.
+     */
+    private static class RecordingListener implements GameProgressListener {
+
+        private final List<Integer> points = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+
+        private final CountDownLatch released;
+
+        private final RuntimeException failure;
+
+        public RecordingListener(final boolean holdUp, final RuntimeException failure) {
+            this.released = new CountDownLatch(holdUp ? 1 : 0);
+            this.failure = failure;
+        }
+
+        @Override
+        public void collectibleAdded(final Collectible c, final Node where) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void collectibleCollected(final Collectible c, final Player p, final Node where, final int points) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void collectibleRemoved(final Collectible c, final Node where) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void nextTurn() {
+            this.entered.countDown();
+            try {
+                this.released.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.failure != null) {
+                throw this.failure;
+            }
+        }
+
+        @Override
+        public void playerCrashed(final Player p) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void playerDeactivated(final Player p) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void playerMoved(final Player p, final Move m, final Node... nodes) {
+            // not reported in the tests
+        }
+
+        @Override
+        public void playerSurvived(final Player p, final int points) {
+            this.points.add(points);
+        }
+
+        @Override
+        public void write(final Writer w) {
+            // nothing to write
+        }
+
+    }
+
+    private static final int TURNS = 100;
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private static List<Integer> range(final int count) {
+        final List<Integer> range = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private final Player player = TestPlayers.obtainPlayer("a");
+
+    private final List<Turn> turns = new CopyOnWriteArrayList<>();
+
+    private final TurnListener turnListener = new TurnListener() {
+
+        @Override
+        public void turnPlayed(final Turn turn) {
+            ProgressReporterTest.this.turns.add(turn);
+        }
+
+    };
+
+    private RecordingListener listener;
+
+    private ProgressReporter reporter;
+
+    private ProgressReporter start(final RecordingListener listener) {
+        this.listener = listener;
+        this.reporter = new ProgressReporter(Collections.<GameProgressListener> singletonList(listener),
+                Collections.singletonList(this.turnListener));
+        return this.reporter;
+    }
+
+    private List<Command> turn(final int number) {
+        return Collections.<Command> singletonList(new RewardSurvivalCommand(this.player, number));
+    }
+
+    @After
+    public void stop() {
+        // a listener held up by a failed test would hold up the flush
+        this.listener.released.countDown();
+        try {
+            this.reporter.flush();
+        } catch (final IllegalStateException ex) {
+            // the failure is what some of the tests are after
+        }
+    }
+
+    @Test
+    public void testBackPressure() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener(true, null);
+        final ProgressReporter reporter = this.start(listener);
+        final AtomicInteger reported = new AtomicInteger();
+        final Thread game = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                for (int i = 0; i < ProgressReporterTest.TURNS; i++) {
+                    reporter.report(ProgressReporterTest.this.turn(i));
+                    reported.incrementAndGet();
+                }
+            }
+
+        });
+        game.start();
+        Assert.assertTrue(listener.entered.await(ProgressReporterTest.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        // the first turn is being delivered, another 16 wait for it
+        final long deadline = System.currentTimeMillis() + ProgressReporterTest.TIMEOUT_MILLIS;
+        while ((reported.get() < 17 || game.getState() != Thread.State.WAITING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        // give the game a chance to report more turns than it may
+        Thread.sleep(100);
+        Assert.assertEquals(Thread.State.WAITING, game.getState());
+        Assert.assertEquals(17, reported.get());
+        Assert.assertTrue(listener.points.isEmpty());
+        // the game goes on once the listener catches up
+        listener.released.countDown();
+        game.join(ProgressReporterTest.TIMEOUT_MILLIS);
+        Assert.assertEquals(ProgressReporterTest.TURNS, reported.get());
+        reporter.flush();
+        Assert.assertEquals(ProgressReporterTest.range(ProgressReporterTest.TURNS), listener.points);
+    }
+
+    @Test
+    public void testFailureOnFlush() {
+        final IllegalArgumentException failure = new IllegalArgumentException("Listener failed.");
+        final ProgressReporter reporter = this.start(new RecordingListener(false, failure));
+        reporter.report(this.turn(0));
+        try {
+            reporter.flush();
+            Assert.fail("The failure of the listener should have been rethrown.");
+        } catch (final IllegalStateException ex) {
+            Assert.assertSame(failure, ex.getCause());
+        }
+    }
+
+    @Test
+    public void testFailureOnReport() throws InterruptedException {
+        final IllegalArgumentException failure = new IllegalArgumentException("Listener failed.");
+        final RecordingListener listener = new RecordingListener(false, failure);
+        final ProgressReporter reporter = this.start(listener);
+        reporter.report(this.turn(0));
+        Assert.assertTrue(listener.entered.await(ProgressReporterTest.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        // the failure is rethrown once the reporting thread has recorded it
+        final long deadline = System.currentTimeMillis() + ProgressReporterTest.TIMEOUT_MILLIS;
+        for (int i = 1; System.currentTimeMillis() < deadline; i++) {
+            try {
+                reporter.report(this.turn(i));
+            } catch (final IllegalStateException ex) {
+                Assert.assertSame(failure, ex.getCause());
+                // no more turns are delivered
+                Assert.assertTrue(listener.points.isEmpty());
+                Assert.assertTrue(this.turns.isEmpty());
+                return;
+            }
+            Thread.sleep(1);
+        }
+        Assert.fail("The failure of the listener should have been rethrown.");
+    }
+
+    @Test
+    public void testFlush() {
+        final RecordingListener listener = new RecordingListener(false, null);
+        final ProgressReporter reporter = this.start(listener);
+        for (int i = 0; i < ProgressReporterTest.TURNS; i++) {
+            reporter.report(this.turn(i));
+        }
+        reporter.flush();
+        // everything is delivered by the time the reports may be closed
+        Assert.assertEquals(ProgressReporterTest.TURNS, listener.points.size());
+        Assert.assertEquals(ProgressReporterTest.TURNS, this.turns.size());
+        // flushing again does nothing
+        reporter.flush();
+    }
+
+    @Test
+    public void testOrder() {
+        final RecordingListener listener = new RecordingListener(false, null);
+        final ProgressReporter reporter = this.start(listener);
+        for (int i = 0; i < ProgressReporterTest.TURNS; i++) {
+            reporter.report(this.turn(i));
+        }
+        reporter.flush();
+        Assert.assertEquals(ProgressReporterTest.range(ProgressReporterTest.TURNS), listener.points);
+        final List<Integer> turnNumbers = new ArrayList<>();
+        final List<Integer> turnPoints = new ArrayList<>();
+        for (final Turn turn : this.turns) {
+            turnNumbers.add(turn.getNumber());
+            turnPoints.add(turn.getSurvivedPlayers().get(0).getPoints());
+        }
+        Assert.assertEquals(ProgressReporterTest.range(ProgressReporterTest.TURNS), turnNumbers);
+        Assert.assertEquals(ProgressReporterTest.range(ProgressReporterTest.TURNS), turnPoints);
+    }
+
+}
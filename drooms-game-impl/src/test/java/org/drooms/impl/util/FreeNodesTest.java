@@ -0,0 +1,131 @@
+package org.drooms.impl.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.drooms.api.Node;
+import org.drooms.impl.DefaultPlayground;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FreeNodesTest {
+
+    private static DefaultPlayground read(final String rows) throws IOException {
+        return DefaultPlayground.read("test", new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private DefaultPlayground playground;
+
+    private FreeNodes free;
+
+    /**
+     * Every free node must be picked eventually, and nothing else may ever be
+     * picked.
+     */
+    private void assertFree(final Set<Node> expected) {
+        Assert.assertEquals(expected.size(), this.free.size());
+        for (int x = -1; x <= this.playground.getWidth(); x++) {
+            for (int y = -1; y <= this.playground.getHeight(); y++) {
+                final Node n = Node.getNode(x, y);
+                Assert.assertEquals(n.toString(), expected.contains(n), this.free.contains(n));
+            }
+        }
+        final Set<Node> picked = new HashSet<>();
+        final Random random = new Random(0);
+        for (int i = 0; i < 1000 && picked.size() < expected.size(); i++) {
+            picked.add(this.free.pickRandom(random));
+        }
+        Assert.assertEquals(expected, picked);
+    }
+
+    private Set<Node> availableNodes() {
+        final Set<Node> nodes = new HashSet<>();
+        for (int x = 0; x < this.playground.getWidth(); x++) {
+            for (int y = 0; y < this.playground.getHeight(); y++) {
+                if (this.playground.isAvailable(x, y)) {
+                    nodes.add(Node.getNode(x, y));
+                }
+            }
+        }
+        return nodes;
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        // 0,0 is bottom left
+        this.playground = FreeNodesTest.read("#####\n#   #\n# # #\n#   #\n#####\n");
+        this.free = new FreeNodes(this.playground);
+    }
+
+    @Test
+    public void testEmptyPlayground() throws IOException {
+        this.playground = FreeNodesTest.read("###\n###\n");
+        this.free = new FreeNodes(this.playground);
+        Assert.assertEquals(0, this.free.size());
+        Assert.assertNull(this.free.pickRandom(new Random(0)));
+    }
+
+    @Test
+    public void testInitialNodes() {
+        final Set<Node> expected = this.availableNodes();
+        Assert.assertEquals(8, expected.size());
+        this.assertFree(expected);
+    }
+
+    @Test
+    public void testOccupiedAndCollectibleNodes() {
+        final Set<Node> expected = this.availableNodes();
+        // a worm occupies three nodes, a collectible one more
+        for (final Node n : new Node[] { Node.getNode(1, 1), Node.getNode(1, 2), Node.getNode(1, 3),
+                Node.getNode(3, 3) }) {
+            Assert.assertTrue(this.free.remove(n));
+            Assert.assertFalse("Already removed.", this.free.remove(n));
+            expected.remove(n);
+            this.assertFree(expected);
+        }
+        // the worm moves on, vacating its tail; the collectible is collected
+        for (final Node n : new Node[] { Node.getNode(1, 1), Node.getNode(3, 3) }) {
+            Assert.assertTrue(this.free.add(n));
+            Assert.assertFalse("Already added.", this.free.add(n));
+            expected.add(n);
+            this.assertFree(expected);
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        final Set<Node> expected = this.availableNodes();
+        // the first node added sits at the start of the array, forcing the last one to take its place
+        for (final Node n : new Node[] { Node.getNode(1, 1), Node.getNode(3, 3), Node.getNode(2, 3),
+                Node.getNode(1, 2), Node.getNode(3, 1), Node.getNode(3, 2), Node.getNode(2, 1), Node.getNode(1, 3) }) {
+            Assert.assertTrue(n.toString(), this.free.remove(n));
+            expected.remove(n);
+            this.assertFree(expected);
+        }
+        Assert.assertNull(this.free.pickRandom(new Random(0)));
+        // and fill it up again in a different order
+        for (final Node n : new Node[] { Node.getNode(2, 3), Node.getNode(1, 1), Node.getNode(3, 2) }) {
+            Assert.assertTrue(this.free.add(n));
+            expected.add(n);
+            this.assertFree(expected);
+        }
+    }
+
+    @Test
+    public void testWalls() {
+        final Set<Node> expected = this.availableNodes();
+        for (final Node n : new Node[] { Node.getNode(0, 0), Node.getNode(2, 2), Node.getNode(4, 1),
+                Node.getNode(-1, 0), Node.getNode(5, 5) }) {
+            Assert.assertFalse(n + " is a wall.", this.free.add(n));
+            Assert.assertFalse(n + " is a wall.", this.free.remove(n));
+            Assert.assertFalse(n + " is a wall.", this.free.contains(n));
+        }
+        this.assertFree(expected);
+    }
+
+}
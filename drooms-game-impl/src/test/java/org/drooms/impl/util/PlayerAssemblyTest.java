@@ -0,0 +1,147 @@
+package org.drooms.impl.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.drools.definition.KnowledgePackage;
+import org.drooms.api.Player;
+import org.drooms.strategy.counting.CountingStrategy;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PlayerAssemblyTest {
+
+    private static final long JAR_ENTRY_TIME = 1356998400000L;
+
+    private static final String RULES = "package org.drooms.strategy.counting\n\nrule \"%s\"\nwhen\nthen\nend\n";
+
+    private static void assertRule(final Player player, final String ruleName) {
+        final KnowledgePackage pkg = player.getKnowledgeBase().getKnowledgePackage("org.drooms.strategy.counting");
+        Assert.assertNotNull(pkg);
+        Assert.assertEquals(1, pkg.getRules().size());
+        for (final org.drools.definition.rule.Rule rule : pkg.getRules()) {
+            Assert.assertEquals(ruleName, rule.getName());
+        }
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File cacheFolder;
+
+    private List<Player> assemble(final File strategyJar, final File cacheFolder) throws IOException {
+        final File config = this.folder.newFile();
+        try (OutputStream os = new FileOutputStream(config)) {
+            os.write(("a=" + CountingStrategy.class.getName() + "@" + strategyJar.toURI() + "\nb="
+                    + CountingStrategy.class.getName() + "@" + strategyJar.toURI() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        final List<Player> players = new PlayerAssembly(config, cacheFolder).assemblePlayers();
+        Assert.assertEquals(2, players.size());
+        return players;
+    }
+
+    private File[] getCachedFiles() {
+        final File[] files = this.cacheFolder.listFiles();
+        Arrays.sort(files);
+        return files;
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        this.cacheFolder = new File(this.folder.getRoot(), "cache");
+    }
+
+    @Test
+    public void testChangedJar() throws IOException {
+        this.assemble(this.writeJar("first.jar", "First"), this.cacheFolder);
+        final File[] cached = this.getCachedFiles();
+        Assert.assertEquals(1, cached.length);
+        // different rules; the JVM caches the contents of JARs by path, so it can't be the same file
+        final int compilations = CountingStrategy.getCompilations();
+        final List<Player> players = this.assemble(this.writeJar("second.jar", "Second"), this.cacheFolder);
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+        PlayerAssemblyTest.assertRule(players.get(0), "Second");
+        final File[] recached = this.getCachedFiles();
+        Assert.assertEquals(2, recached.length);
+        Assert.assertTrue(Arrays.asList(recached).contains(cached[0]));
+        // the key depends on the contents of the JAR, not on where it is
+        PlayerAssemblyTest.assertRule(this.assemble(this.writeJar("copy.jar", "First"), this.cacheFolder).get(0),
+                "First");
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+    }
+
+    @Test
+    public void testCorruptCacheFile() throws IOException {
+        final File strategyJar = this.writeJar("strategy.jar", "Corrupt");
+        this.assemble(strategyJar, this.cacheFolder);
+        final File cached = this.getCachedFiles()[0];
+        Files.write(cached.toPath(), "not a compiled strategy".getBytes(StandardCharsets.UTF_8));
+        final int compilations = CountingStrategy.getCompilations();
+        PlayerAssemblyTest.assertRule(this.assemble(strategyJar, this.cacheFolder).get(0), "Corrupt");
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+        // and stored again
+        this.assemble(strategyJar, this.cacheFolder);
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+    }
+
+    @Test
+    public void testHitAndMiss() throws IOException {
+        final File strategyJar = this.writeJar("strategy.jar", "Cached");
+        final int compilations = CountingStrategy.getCompilations();
+        // both players share the one compilation
+        PlayerAssemblyTest.assertRule(this.assemble(strategyJar, this.cacheFolder).get(0), "Cached");
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+        Assert.assertEquals(1, this.getCachedFiles().length);
+        final List<Player> players = this.assemble(strategyJar, this.cacheFolder);
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+        PlayerAssemblyTest.assertRule(players.get(0), "Cached");
+        PlayerAssemblyTest.assertRule(players.get(1), "Cached");
+    }
+
+    @Test
+    public void testNoCache() throws IOException {
+        final File strategyJar = this.writeJar("strategy.jar", "Uncached");
+        final int compilations = CountingStrategy.getCompilations();
+        this.assemble(strategyJar, null);
+        PlayerAssemblyTest.assertRule(this.assemble(strategyJar, null).get(1), "Uncached");
+        Assert.assertEquals(compilations + 2, CountingStrategy.getCompilations());
+    }
+
+    @Test
+    public void testTruncatedCacheFile() throws IOException {
+        final File strategyJar = this.writeJar("strategy.jar", "Truncated");
+        this.assemble(strategyJar, this.cacheFolder);
+        final File cached = this.getCachedFiles()[0];
+        final byte[] bytes = Files.readAllBytes(cached.toPath());
+        Files.write(cached.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        final int compilations = CountingStrategy.getCompilations();
+        PlayerAssemblyTest.assertRule(this.assemble(strategyJar, this.cacheFolder).get(0), "Truncated");
+        Assert.assertEquals(compilations + 1, CountingStrategy.getCompilations());
+    }
+
+    private File writeJar(final String name, final String ruleName) throws IOException {
+        final File jar = new File(this.folder.getRoot(), name);
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+            final ZipEntry entry = new ZipEntry(CountingStrategy.RULES);
+            // the same rules make the same JAR
+            entry.setTime(PlayerAssemblyTest.JAR_ENTRY_TIME);
+            jos.putNextEntry(entry);
+            jos.write(String.format(PlayerAssemblyTest.RULES, ruleName).getBytes(StandardCharsets.UTF_8));
+            jos.closeEntry();
+        }
+        return jar;
+    }
+
+}
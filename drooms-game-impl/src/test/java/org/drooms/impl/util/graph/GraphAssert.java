@@ -0,0 +1,77 @@
+package org.drooms.impl.util.graph;
+
+import java.util.HashSet;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.junit.Assert;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Compares the specialized graphs to the general-purpose graphs that they
+ * replace.
+ */
+public class GraphAssert {
+
+    private static final int[][] DIRECTIONS = new int[][] { { 0, 1 }, { 0, -1 }, { -1, 0 }, { 1, 0 } };
+
+    /**
+     * Check that both graphs answer the same on a grid and around it.
+     * 
+     * @param expected
+     *            The graph to compare to.
+     * @param actual
+     *            The graph in question.
+     * @param width
+     *            Width of the grid.
+     * @param height
+     *            Height of the grid.
+     */
+    public static void assertSameGraph(final Graph<Node, Edge> expected, final Graph<Node, Edge> actual,
+            final int width, final int height) {
+        Assert.assertEquals(expected.getVertexCount(), actual.getVertexCount());
+        Assert.assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        Assert.assertEquals(new HashSet<>(expected.getVertices()), new HashSet<>(actual.getVertices()));
+        Assert.assertEquals(expected.getVertexCount(), actual.getVertices().size());
+        Assert.assertEquals(new HashSet<>(expected.getEdges()), new HashSet<>(actual.getEdges()));
+        Assert.assertEquals(expected.getEdgeCount(), actual.getEdges().size());
+        for (final Edge e : expected.getEdges()) {
+            Assert.assertTrue(e.toString(), actual.containsEdge(e));
+            Assert.assertEquals(e.toString(), expected.getEndpoints(e), actual.getEndpoints(e));
+        }
+        for (int x = -1; x <= width; x++) {
+            for (int y = -1; y <= height; y++) {
+                final Node n = Node.getNode(x, y);
+                final boolean isVertex = expected.containsVertex(n);
+                Assert.assertEquals(n.toString(), isVertex, actual.containsVertex(n));
+                Assert.assertEquals(n.toString(), isVertex, actual.getVertices().contains(n));
+                if (!isVertex) {
+                    continue;
+                }
+                Assert.assertEquals(n.toString(), new HashSet<>(expected.getNeighbors(n)),
+                        new HashSet<>(actual.getNeighbors(n)));
+                Assert.assertEquals(n.toString(), new HashSet<>(expected.getIncidentEdges(n)),
+                        new HashSet<>(actual.getIncidentEdges(n)));
+                Assert.assertEquals(n.toString(), expected.degree(n), actual.degree(n));
+                Assert.assertEquals(n.toString(), expected.getNeighborCount(n), actual.getNeighborCount(n));
+                for (final int[] direction : GraphAssert.DIRECTIONS) {
+                    final Node other = Node.getNode(x + direction[0], y + direction[1]);
+                    final String description = n + " and " + other;
+                    Assert.assertEquals(description, expected.findEdge(n, other), actual.findEdge(n, other));
+                    if (expected.containsVertex(other)) {
+                        // JUNG refuses to answer for nodes that are not in the graph
+                        Assert.assertEquals(description, expected.isNeighbor(n, other), actual.isNeighbor(n, other));
+                    }
+                }
+                // not adjacent on a grid
+                final Node diagonal = Node.getNode(x + 1, y + 1);
+                Assert.assertNull(actual.findEdge(n, diagonal));
+                if (expected.containsVertex(diagonal)) {
+                    Assert.assertFalse(actual.isNeighbor(n, diagonal));
+                }
+            }
+        }
+    }
+
+}
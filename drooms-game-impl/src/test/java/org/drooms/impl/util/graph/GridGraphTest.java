@@ -0,0 +1,85 @@
+package org.drooms.impl.util.graph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.DefaultPlayground;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+public class GridGraphTest {
+
+    private static final int WIDTH = 13;
+
+    private static final int HEIGHT = 7;
+
+    /**
+     * Link the nodes the way that playgrounds did before they had
+     * {@link GridGraph}.
+     */
+    private static Graph<Node, Edge> buildSparseGraph(final int width, final int height, final BitSet vertices) {
+        final Graph<Node, Edge> graph = new UndirectedSparseGraph<>();
+        for (int i = vertices.nextSetBit(0); i >= 0; i = vertices.nextSetBit(i + 1)) {
+            graph.addVertex(Node.getNode(i % width, i / width));
+        }
+        for (final Node n : graph.getVertices().toArray(new Node[graph.getVertexCount()])) {
+            final int x = n.getX();
+            final int y = n.getY();
+            for (final Node other : new Node[] { Node.getNode(x + 1, y), Node.getNode(x, y + 1) }) {
+                if (graph.containsVertex(other)) {
+                    graph.addEdge(new Edge(n, other), n, other);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static DefaultPlayground read(final String rows) throws IOException {
+        return DefaultPlayground.read("test", new ByteArrayInputStream(rows.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testPlayground() throws IOException {
+        // lines of different length, starting positions, walls inside and at the edges
+        final DefaultPlayground playground = GridGraphTest.read("#######\n#A  # \n# ## #  \n#  B\n####\n");
+        Assert.assertTrue(playground.getGraph() instanceof GridGraph);
+        final int width = playground.getWidth();
+        final int height = playground.getHeight();
+        final BitSet vertices = new BitSet(width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (playground.isAvailable(x, y)) {
+                    vertices.set(y * width + x);
+                }
+            }
+        }
+        GraphAssert.assertSameGraph(GridGraphTest.buildSparseGraph(width, height, vertices), playground.getGraph(),
+                width, height);
+    }
+
+    @Test
+    public void testRandomGrids() {
+        final Random random = new Random(42);
+        for (final double wallProbability : new double[] { 0, 0.3, 0.7, 1 }) {
+            final BitSet vertices = new BitSet(GridGraphTest.WIDTH * GridGraphTest.HEIGHT);
+            for (int i = 0; i < GridGraphTest.WIDTH * GridGraphTest.HEIGHT; i++) {
+                if (random.nextDouble() >= wallProbability) {
+                    vertices.set(i);
+                }
+            }
+            GraphAssert.assertSameGraph(
+                    GridGraphTest.buildSparseGraph(GridGraphTest.WIDTH, GridGraphTest.HEIGHT, vertices),
+                    new GridGraph(GridGraphTest.WIDTH, GridGraphTest.HEIGHT, vertices), GridGraphTest.WIDTH,
+                    GridGraphTest.HEIGHT);
+        }
+    }
+
+}
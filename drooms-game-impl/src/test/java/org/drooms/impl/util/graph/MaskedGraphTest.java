@@ -0,0 +1,90 @@
+package org.drooms.impl.util.graph;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.RandomGrids;
+import org.junit.Test;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+public class MaskedGraphTest {
+
+    private static final int WIDTH = 13;
+
+    private static final int HEIGHT = 7;
+
+    /**
+     * Copy the graph without the hidden nodes, the way that the paths were
+     * found before there was {@link MaskedGraph}.
+     */
+    private static Graph<Node, Edge> copyWithout(final Graph<Node, Edge> graph, final Set<Node> hidden) {
+        final Graph<Node, Edge> copy = new UndirectedSparseGraph<>();
+        for (final Node n : graph.getVertices()) {
+            copy.addVertex(n);
+        }
+        for (final Edge e : graph.getEdges()) {
+            copy.addEdge(e, e.getNodes().getLeft(), e.getNodes().getRight());
+        }
+        for (final Node n : hidden) {
+            copy.removeVertex(n);
+        }
+        return copy;
+    }
+
+    private static Set<Node> pickHidden(final Random random, final double probability) {
+        final Set<Node> hidden = new HashSet<>();
+        // including some that are not in the graph at all
+        for (int x = -1; x <= MaskedGraphTest.WIDTH; x++) {
+            for (int y = -1; y <= MaskedGraphTest.HEIGHT; y++) {
+                if (random.nextDouble() < probability) {
+                    hidden.add(Node.getNode(x, y));
+                }
+            }
+        }
+        return hidden;
+    }
+
+    @Test
+    public void testGrid() {
+        final Random random = new Random(42);
+        for (final double probability : new double[] { 0, 0.2, 0.5, 1 }) {
+            final GridGraph grid = RandomGrids.buildGrid(random, MaskedGraphTest.WIDTH, MaskedGraphTest.HEIGHT, 0.2);
+            final Set<Node> hidden = MaskedGraphTest.pickHidden(random, probability);
+            GraphAssert.assertSameGraph(MaskedGraphTest.copyWithout(grid, hidden), new MaskedGraph(grid, hidden),
+                    MaskedGraphTest.WIDTH, MaskedGraphTest.HEIGHT);
+        }
+    }
+
+    @Test
+    public void testHiddenNodesChanging() {
+        final Random random = new Random(42);
+        final GridGraph grid = RandomGrids.buildGrid(random, MaskedGraphTest.WIDTH, MaskedGraphTest.HEIGHT, 0.2);
+        final Set<Node> hidden = new HashSet<>();
+        final MaskedGraph masked = new MaskedGraph(grid, hidden);
+        for (int i = 0; i < 5; i++) {
+            final Set<Node> newlyHidden = MaskedGraphTest.pickHidden(random, 0.1);
+            // a worm moving: some nodes become hidden and some visible again
+            hidden.removeAll(MaskedGraphTest.pickHidden(random, 0.5));
+            hidden.addAll(newlyHidden);
+            GraphAssert.assertSameGraph(MaskedGraphTest.copyWithout(grid, hidden), masked, MaskedGraphTest.WIDTH,
+                    MaskedGraphTest.HEIGHT);
+        }
+    }
+
+    @Test
+    public void testSparseGraph() {
+        final Random random = new Random(42);
+        final Graph<Node, Edge> sparse = MaskedGraphTest.copyWithout(
+                RandomGrids.buildGrid(random, MaskedGraphTest.WIDTH, MaskedGraphTest.HEIGHT, 0.2),
+                new HashSet<Node>());
+        final Set<Node> hidden = MaskedGraphTest.pickHidden(random, 0.3);
+        GraphAssert.assertSameGraph(MaskedGraphTest.copyWithout(sparse, hidden), new MaskedGraph(sparse, hidden),
+                MaskedGraphTest.WIDTH, MaskedGraphTest.HEIGHT);
+    }
+
+}
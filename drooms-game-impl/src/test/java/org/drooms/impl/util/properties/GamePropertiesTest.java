@@ -0,0 +1,92 @@
+package org.drooms.impl.util.properties;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GamePropertiesTest {
+
+    private static final String COLLECTIBLES = "collectibles=cheap\ncollectible.probability.cheap=0.1\n"
+            + "collectible.expiration.cheap=8\ncollectible.price.cheap=5\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameProperties read(final String properties) throws IOException {
+        final File config = this.folder.newFile();
+        try (OutputStream s = new FileOutputStream(config)) {
+            s.write((GamePropertiesTest.COLLECTIBLES + properties).getBytes(StandardCharsets.UTF_8));
+        }
+        return GameProperties.read(config);
+    }
+
+    @Test
+    public void testDefaults() throws IOException {
+        final GameProperties config = this.read("");
+        Assert.assertEquals(3, config.getMaximumInactiveTurns());
+        Assert.assertEquals(10, config.getEventRetentionTurns());
+        Assert.assertTrue(config.isXmlReportEnabled());
+        Assert.assertTrue(config.isReplayEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoReport() throws IOException {
+        this.read("report.xml=false\nreport.replay=false\n");
+    }
+
+    @Test
+    public void testReplayOnly() throws IOException {
+        final GameProperties config = this.read("report.xml=false\nreport.replay=true\n");
+        Assert.assertFalse(config.isXmlReportEnabled());
+        Assert.assertTrue(config.isReplayEnabled());
+    }
+
+    @Test
+    public void testXmlOnly() throws IOException {
+        final GameProperties config = this.read("report.replay=false\n");
+        Assert.assertTrue(config.isXmlReportEnabled());
+        Assert.assertFalse(config.isReplayEnabled());
+    }
+
+    @Test
+    public void testNoInactiveTurns() throws IOException {
+        Assert.assertEquals(0, this.read("worm.max.inactive.turns=0\n").getMaximumInactiveTurns());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeInactiveTurns() throws IOException {
+        this.read("worm.max.inactive.turns=-1\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoTimeout() throws IOException {
+        this.read("worm.timeout.millis=0\n");
+    }
+
+    @Test
+    public void testWallTimeout() throws IOException {
+        final GameProperties config = this.read("worm.timeout.millis=100\nworm.timeout.cpu=true\n");
+        Assert.assertEquals(100, config.getStrategyTimeoutInMillis());
+        Assert.assertEquals(400, config.getStrategyWallTimeoutInMillis());
+        Assert.assertEquals(100, this.read("worm.timeout.millis=100\nworm.timeout.wall.millis=100\n")
+                .getStrategyWallTimeoutInMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWallTimeoutShorterThanTimeout() throws IOException {
+        this.read("worm.timeout.millis=100\nworm.timeout.wall.millis=99\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoEventRetention() throws IOException {
+        this.read("worm.events.retention.turns=0\n");
+    }
+
+}
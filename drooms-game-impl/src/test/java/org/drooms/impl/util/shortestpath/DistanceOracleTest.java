@@ -0,0 +1,127 @@
+package org.drooms.impl.util.shortestpath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.graph.GridGraph;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+public class DistanceOracleTest {
+
+    /**
+     * Compare the distances from random sources to all the nodes of a random
+     * grid, and the paths that A* finds with the oracle as its heuristic.
+     */
+    private static void compare(final long seed, final int width, final int height, final int sources,
+            final Class<? extends DistanceOracle> expectedOracle) {
+        final Random random = new Random(seed);
+        final GridGraph graph = RandomGrids.buildGrid(random, width, height, 0.3);
+        final List<Node> nodes = new ArrayList<>(graph.getVertices());
+        final UnweightedShortestPath<Node, Edge> reference = new UnweightedShortestPath<>(graph);
+        final DistanceOracle oracle = DistanceOracle.forGraph(graph);
+        Assert.assertEquals(expectedOracle, oracle.getClass());
+        final UnweightedAStarShortestPath<Node, Edge> withOracle = new UnweightedAStarShortestPath<>(graph,
+                oracle);
+        for (int i = 0; i < sources; i++) {
+            final Node source = nodes.get(random.nextInt(nodes.size()));
+            final Map<Node, Number> distances = reference.getDistanceMap(source);
+            for (final Node target : nodes) {
+                final Number distance = distances.get(target);
+                RandomGrids.assertPath(graph, source, target, distance, withOracle.find(source, target));
+                if (oracle.isExact()) {
+                    Assert.assertEquals(distance == null ? -1 : distance.intValue(),
+                            oracle.getDistance(source, target));
+                } else {
+                    DistanceOracleTest.assertLowerBound(oracle, source, target,
+                            distance == null ? -1 : distance.intValue());
+                }
+                final double estimate = oracle.estimateDistance(source, target);
+                if (distance == null) {
+                    Assert.assertTrue(estimate >= 0);
+                } else {
+                    Assert.assertTrue("Overestimated from " + source + " to " + target,
+                            estimate <= distance.intValue());
+                }
+            }
+        }
+    }
+
+    private static void assertLowerBound(final DistanceOracle oracle, final Node source, final Node target,
+            final int distance) {
+        final int bound = oracle.getDistance(source, target);
+        if (distance < 0) {
+            return;
+        }
+        Assert.assertTrue("Overestimated from " + source + " to " + target, bound <= distance);
+        Assert.assertTrue("Not even the Manhattan distance from " + source + " to " + target,
+                bound >= Math.abs(source.getX() - target.getX()) + Math.abs(source.getY() - target.getY()));
+    }
+
+    @Test
+    public void testAllPairs() {
+        DistanceOracleTest.compare(1, 30, 20, 20, AllPairsDistanceOracle.class);
+    }
+
+    @Test
+    public void testLandmarks() {
+        DistanceOracleTest.compare(2, 80, 40, 4, LandmarkDistanceOracle.class);
+    }
+
+    @Test
+    public void testLandmarksOnSmallGrid() {
+        final Random random = new Random(4);
+        final GridGraph graph = RandomGrids.buildGrid(random, 30, 20, 0.3);
+        final List<Node> nodes = new ArrayList<>(graph.getVertices());
+        final DistanceOracle allPairs = new AllPairsDistanceOracle(graph);
+        final DistanceOracle landmarks = new LandmarkDistanceOracle(graph, 4);
+        for (int i = 0; i < 20; i++) {
+            final Node source = nodes.get(random.nextInt(nodes.size()));
+            for (final Node target : nodes) {
+                final int distance = allPairs.getDistance(source, target);
+                DistanceOracleTest.assertLowerBound(landmarks, source, target, distance);
+                if (distance >= 0) {
+                    Assert.assertTrue(landmarks.estimateDistance(source, target) <= distance);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testManyNeighbors() {
+        // not a grid, so the landmarks' Manhattan bound would not hold; the center has 6 neighbors
+        final Graph<Node, Edge> graph = new UndirectedSparseGraph<>();
+        final Node center = Node.getNode(5, 5);
+        final Node[] arms = new Node[] { Node.getNode(5, 6), Node.getNode(5, 4), Node.getNode(4, 5),
+                Node.getNode(6, 5), Node.getNode(0, 0), Node.getNode(9, 9) };
+        for (final Node arm : arms) {
+            graph.addEdge(new Edge(center, arm), center, arm);
+        }
+        final Node end = Node.getNode(9, 8);
+        graph.addEdge(new Edge(arms[5], end), arms[5], end);
+        final DistanceOracle allPairs = new AllPairsDistanceOracle(graph);
+        Assert.assertEquals(1, allPairs.getDistance(center, arms[4]));
+        Assert.assertEquals(2, allPairs.getDistance(arms[4], arms[0]));
+        Assert.assertEquals(3, allPairs.getDistance(arms[4], end));
+        Assert.assertEquals(0, allPairs.getDistance(end, end));
+    }
+
+    @Test
+    public void testNodesNotInGraph() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final Node inside = Node.getNode(1, 1);
+        final Node outside = Node.getNode(20, 20);
+        Assert.assertEquals(-1, new AllPairsDistanceOracle(graph).getDistance(inside, outside));
+        Assert.assertEquals(-1, new LandmarkDistanceOracle(graph, 4).getDistance(outside, inside));
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.drooms.impl.util.shortestpath;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.graph.GridGraph;
+import org.junit.Assert;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Random grids to compare the path finding algorithms on, and the checks of
+ * the paths that they find.
+ */
+public class RandomGrids {
+
+    /**
+     * Check that the path is a shortest path between the two nodes.
+     * 
+     * @param graph
+     *            Graph that the path was found in.
+     * @param source
+     *            Where the path should start.
+     * @param target
+     *            Where the path should end.
+     * @param expectedDistance
+     *            Length of the shortest path, null when there is none.
+     * @param path
+     *            The path in question.
+     */
+    public static void assertPath(final Graph<Node, Edge> graph, final Node source, final Node target,
+            final Number expectedDistance, final List<Node> path) {
+        if (expectedDistance == null) {
+            Assert.assertTrue("No path expected from " + source + " to " + target, path.isEmpty());
+            return;
+        }
+        Assert.assertEquals("Wrong length from " + source + " to " + target, expectedDistance.intValue() + 1,
+                path.size());
+        Assert.assertEquals(source, path.get(0));
+        Assert.assertEquals(target, path.get(path.size() - 1));
+        for (int i = 1; i < path.size(); i++) {
+            Assert.assertTrue("Not adjacent: " + path.get(i - 1) + " and " + path.get(i),
+                    graph.isNeighbor(path.get(i - 1), path.get(i)));
+        }
+    }
+
+    /**
+     * Build a grid with some of its nodes missing, so that there are both
+     * obstacles and unreachable parts.
+     * 
+     * @param random
+     *            Decides which nodes are missing.
+     * @param width
+     *            Width of the grid.
+     * @param height
+     *            Height of the grid.
+     * @param wallProbability
+     *            Probability of any node to be missing.
+     * @return The grid.
+     */
+    public static GridGraph buildGrid(final Random random, final int width, final int height,
+            final double wallProbability) {
+        final BitSet vertices = new BitSet(width * height);
+        for (int i = 0; i < width * height; i++) {
+            if (random.nextDouble() >= wallProbability) {
+                vertices.set(i);
+            }
+        }
+        return new GridGraph(width, height, vertices);
+    }
+
+    /**
+     * Pick the nodes of a graph to hide, as worms on a playground would.
+     * 
+     * @param random
+     *            Decides which nodes are hidden.
+     * @param graph
+     *            Graph to pick the nodes from.
+     * @param probability
+     *            Probability of any node to be hidden.
+     * @return The nodes to hide.
+     */
+    public static Set<Node> pickHidden(final Random random, final Graph<Node, Edge> graph, final double probability) {
+        final Set<Node> hidden = new HashSet<>();
+        for (final Node n : graph.getVertices()) {
+            if (random.nextDouble() < probability) {
+                hidden.add(n);
+            }
+        }
+        return hidden;
+    }
+
+}
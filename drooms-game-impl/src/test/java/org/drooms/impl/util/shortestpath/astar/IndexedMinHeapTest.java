@@ -0,0 +1,63 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexedMinHeapTest {
+
+    @Test
+    public void testClear() {
+        final IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.insert(1, 1);
+        heap.insert(3, 0.5);
+        heap.clear();
+        Assert.assertTrue(heap.isEmpty());
+        Assert.assertFalse(heap.contains(1));
+        Assert.assertFalse(heap.contains(3));
+        heap.insert(3, 2);
+        Assert.assertEquals(3, heap.poll());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPollEmpty() {
+        new IndexedMinHeap(1).poll();
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final int capacity = 100;
+        final Random random = new Random(1);
+        final IndexedMinHeap heap = new IndexedMinHeap(capacity);
+        // the priorities the heap should have, NaN when not in the heap
+        final double[] priorities = new double[capacity];
+        for (int round = 0; round < 10; round++) {
+            Arrays.fill(priorities, Double.NaN);
+            for (int i = 0; i < 1000; i++) {
+                final int id = random.nextInt(capacity);
+                Assert.assertEquals(!Double.isNaN(priorities[id]), heap.contains(id));
+                if (Double.isNaN(priorities[id])) {
+                    priorities[id] = random.nextInt(50);
+                    heap.insert(id, priorities[id]);
+                } else {
+                    priorities[id] -= random.nextInt(5);
+                    heap.decreasePriority(id, priorities[id]);
+                }
+            }
+            double previous = Double.NEGATIVE_INFINITY;
+            while (!heap.isEmpty()) {
+                final int id = heap.poll();
+                Assert.assertFalse(heap.contains(id));
+                Assert.assertTrue(priorities[id] >= previous);
+                previous = priorities[id];
+                priorities[id] = Double.NaN;
+            }
+            for (final double priority : priorities) {
+                Assert.assertTrue(Double.isNaN(priority));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.graph.GridGraph;
+import org.drooms.impl.util.graph.MaskedGraph;
+import org.drooms.impl.util.shortestpath.RandomGrids;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+
+public class JumpPointSearchShortestPathTest {
+
+    private static void compare(final long seed, final int width, final int height, final double wallProbability,
+            final int sources) {
+        final Random random = new Random(seed);
+        final GridGraph graph = RandomGrids.buildGrid(random, width, height, wallProbability);
+        final List<Node> nodes = new ArrayList<>(graph.getVertices());
+        final UnweightedShortestPath<Node, Edge> reference = new UnweightedShortestPath<>(graph);
+        final JumpPointSearchShortestPath jps = new JumpPointSearchShortestPath(graph);
+        for (int i = 0; i < sources; i++) {
+            final Node source = nodes.get(random.nextInt(nodes.size()));
+            final Map<Node, Number> distances = reference.getDistanceMap(source);
+            for (final Node target : nodes) {
+                RandomGrids.assertPath(graph, source, target, distances.get(target), jps.find(source, target));
+            }
+        }
+    }
+
+    @Test
+    public void testDenseGrid() {
+        JumpPointSearchShortestPathTest.compare(1, 30, 20, 0.3, 20);
+    }
+
+    @Test
+    public void testLargeGrid() {
+        JumpPointSearchShortestPathTest.compare(2, 80, 40, 0.3, 4);
+    }
+
+    @Test
+    public void testMaskedGraphs() {
+        // every turn, the game hides different nodes of the same playground
+        final Random random = new Random(6);
+        final GridGraph graph = RandomGrids.buildGrid(random, 30, 20, 0.1);
+        for (int turn = 0; turn < 5; turn++) {
+            final MaskedGraph masked = new MaskedGraph(graph, RandomGrids.pickHidden(random, graph, 0.2));
+            final List<Node> nodes = new ArrayList<>(masked.getVertices());
+            final UnweightedShortestPath<Node, Edge> reference = new UnweightedShortestPath<>(masked);
+            final JumpPointSearchShortestPath jps = new JumpPointSearchShortestPath(masked);
+            for (int i = 0; i < 10; i++) {
+                final Node source = nodes.get(random.nextInt(nodes.size()));
+                final Map<Node, Number> distances = reference.getDistanceMap(source);
+                for (final Node target : nodes) {
+                    RandomGrids.assertPath(masked, source, target, distances.get(target), jps.find(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNodesNotInGraph() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final JumpPointSearchShortestPath jps = new JumpPointSearchShortestPath(graph);
+        Assert.assertTrue(jps.find(Node.getNode(1, 1), Node.getNode(20, 20)).isEmpty());
+        Assert.assertTrue(jps.find(Node.getNode(-1, 0), Node.getNode(1, 1)).isEmpty());
+    }
+
+    @Test
+    public void testOpenGrid() {
+        JumpPointSearchShortestPathTest.compare(4, 30, 20, 0, 10);
+    }
+
+    @Test
+    public void testSameNode() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final Node node = Node.getNode(4, 4);
+        final List<Node> path = new JumpPointSearchShortestPath(graph).find(node, node);
+        Assert.assertEquals(1, path.size());
+        Assert.assertEquals(node, path.get(0));
+    }
+
+    @Test
+    public void testSparseGrid() {
+        JumpPointSearchShortestPathTest.compare(5, 30, 20, 0.05, 10);
+    }
+
+}
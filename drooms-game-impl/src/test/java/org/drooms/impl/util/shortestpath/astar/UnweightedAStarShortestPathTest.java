@@ -0,0 +1,170 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.graph.GridGraph;
+import org.drooms.impl.util.graph.MaskedGraph;
+import org.drooms.impl.util.shortestpath.RandomGrids;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath.VertexDistanceHeuristics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.algorithms.shortestpath.UnweightedShortestPath;
+
+public class UnweightedAStarShortestPathTest {
+
+    private static final int SOURCES = 20;
+
+    @Test
+    public void testLongPath() {
+        // a serpentine; the only path between its ends goes through every node
+        final int width = 201;
+        final int height = 201;
+        final BitSet vertices = new BitSet(width * height);
+        for (int y = 0; y < height; y++) {
+            if (y % 2 == 0) {
+                vertices.set(y * width, (y + 1) * width);
+            } else if (y % 4 == 1) {
+                vertices.set(y * width + width - 1);
+            } else {
+                vertices.set(y * width);
+            }
+        }
+        final GridGraph graph = new GridGraph(width, height, vertices);
+        final List<Node> path = new UnweightedAStarShortestPath<>(graph, VertexDistanceHeuristics.MANHATTAN).find(
+                Node.getNode(0, 0), Node.getNode(width - 1, height - 1));
+        Assert.assertEquals(graph.getVertexCount(), path.size());
+        Assert.assertEquals(Node.getNode(0, 0), path.get(0));
+        Assert.assertEquals(Node.getNode(width - 1, height - 1), path.get(path.size() - 1));
+    }
+
+    @Test
+    public void testMaskedGraphs() {
+        // every turn, the game hides different nodes of the same playground
+        final Random random = new Random(2);
+        final GridGraph graph = RandomGrids.buildGrid(random, 30, 20, 0.1);
+        for (int turn = 0; turn < 5; turn++) {
+            final MaskedGraph masked = new MaskedGraph(graph, RandomGrids.pickHidden(random, graph, 0.2));
+            final List<Node> nodes = new ArrayList<>(masked.getVertices());
+            final UnweightedShortestPath<Node, Edge> reference = new UnweightedShortestPath<>(masked);
+            final UnweightedAStarShortestPath<Node, Edge> algorithm = new UnweightedAStarShortestPath<>(masked,
+                    VertexDistanceHeuristics.MANHATTAN);
+            for (int i = 0; i < UnweightedAStarShortestPathTest.SOURCES; i++) {
+                final Node source = nodes.get(random.nextInt(nodes.size()));
+                final Map<Node, Number> distances = reference.getDistanceMap(source);
+                for (final Node target : nodes) {
+                    RandomGrids.assertPath(masked, source, target, distances.get(target),
+                            algorithm.find(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesUnweightedShortestPath() {
+        final Random random = new Random(1);
+        final GridGraph graph = RandomGrids.buildGrid(random, 30, 20, 0.3);
+        final List<Node> nodes = new ArrayList<>(graph.getVertices());
+        final UnweightedShortestPath<Node, Edge> reference = new UnweightedShortestPath<>(graph);
+        final List<UnweightedAStarShortestPath<Node, Edge>> algorithms = new ArrayList<>();
+        for (final VertexDistanceHeuristics heuristic : VertexDistanceHeuristics.values()) {
+            algorithms.add(new UnweightedAStarShortestPath<>(graph, heuristic));
+        }
+        for (int i = 0; i < UnweightedAStarShortestPathTest.SOURCES; i++) {
+            final Node source = nodes.get(random.nextInt(nodes.size()));
+            final Map<Node, Number> distances = reference.getDistanceMap(source);
+            for (final Node target : nodes) {
+                for (final UnweightedAStarShortestPath<Node, Edge> algorithm : algorithms) {
+                    RandomGrids.assertPath(graph, source, target, distances.get(target),
+                            algorithm.find(source, target));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNodesNotInGraph() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final UnweightedAStarShortestPath<Node, Edge> algorithm = new UnweightedAStarShortestPath<>(graph,
+                VertexDistanceHeuristics.EUCLIDEAN);
+        Assert.assertTrue(algorithm.find(Node.getNode(20, 20), Node.getNode(1, 1)).isEmpty());
+        Assert.assertTrue(algorithm.find(Node.getNode(1, 1), Node.getNode(-1, 1)).isEmpty());
+    }
+
+    @Test
+    public void testPathInvalidatedByNextSearch() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final UnweightedAStarShortestPath<Node, Edge> algorithm = new UnweightedAStarShortestPath<>(graph,
+                VertexDistanceHeuristics.MANHATTAN);
+        final List<Node> path = algorithm.find(Node.getNode(0, 0), Node.getNode(5, 5));
+        final List<Node> copy = new ArrayList<>(path);
+        Assert.assertEquals(11, copy.size());
+        algorithm.find(Node.getNode(9, 9), Node.getNode(5, 5));
+        try {
+            path.get(0);
+            Assert.fail("The path should not be readable after another search.");
+        } catch (final ConcurrentModificationException ex) {
+            // expected
+        }
+        try {
+            path.size();
+            Assert.fail("The path should not be readable after another search.");
+        } catch (final ConcurrentModificationException ex) {
+            // expected
+        }
+        // the copy is not affected
+        Assert.assertEquals(Node.getNode(0, 0), copy.get(0));
+    }
+
+    @Test
+    public void testPathInvalidatedBySearchOnAnotherMask() {
+        // the masks share the structures of the graph underneath
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final List<Node> path = new UnweightedAStarShortestPath<>(new MaskedGraph(graph,
+                Collections.singleton(Node.getNode(1, 0))), VertexDistanceHeuristics.MANHATTAN).find(
+                Node.getNode(0, 0), Node.getNode(2, 0));
+        Assert.assertEquals(5, path.size());
+        final List<Node> other = new UnweightedAStarShortestPath<>(new MaskedGraph(graph,
+                Collections.<Node> emptySet()), VertexDistanceHeuristics.MANHATTAN).find(Node.getNode(0, 0),
+                Node.getNode(2, 0));
+        Assert.assertEquals(3, other.size());
+        try {
+            path.size();
+            Assert.fail("The path should not be readable after another search.");
+        } catch (final ConcurrentModificationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPathUnmodifiable() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final List<Node> path = new UnweightedAStarShortestPath<>(graph, VertexDistanceHeuristics.MANHATTAN).find(
+                Node.getNode(0, 0), Node.getNode(5, 5));
+        try {
+            path.set(0, Node.getNode(1, 1));
+            Assert.fail("The path should not be modifiable.");
+        } catch (final UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSameNode() {
+        final GridGraph graph = RandomGrids.buildGrid(new Random(3), 10, 10, 0);
+        final Node node = Node.getNode(4, 4);
+        final List<Node> path = new UnweightedAStarShortestPath<>(graph, VertexDistanceHeuristics.MANHATTAN).find(
+                node, node);
+        Assert.assertEquals(1, path.size());
+        Assert.assertEquals(node, path.get(0));
+    }
+
+}
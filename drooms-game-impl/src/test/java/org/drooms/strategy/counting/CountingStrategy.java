@@ -0,0 +1,44 @@
+package org.drooms.strategy.counting;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.drools.builder.KnowledgeBuilder;
+import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.builder.ResourceType;
+import org.drools.io.ResourceFactory;
+import org.drooms.api.Strategy;
+
+/**
+ * Strategy that counts how many times it has been compiled. Its rules come
+ * from the strategy JAR, as they would with any other strategy; the class
+ * itself is on the class path of the tests, outside of the game's packages.
+ */
+public class CountingStrategy implements Strategy {
+
+    public static final String RULES = "counting.drl";
+
+    private static final AtomicInteger COMPILATIONS = new AtomicInteger();
+
+    public static int getCompilations() {
+        return CountingStrategy.COMPILATIONS.get();
+    }
+
+    @Override
+    public boolean enableAudit() {
+        return false;
+    }
+
+    @Override
+    public KnowledgeBuilder getKnowledgeBuilder(final ClassLoader cls) {
+        CountingStrategy.COMPILATIONS.incrementAndGet();
+        final KnowledgeBuilder kb = KnowledgeBuilderFactory.newKnowledgeBuilder();
+        kb.add(ResourceFactory.newClassPathResource(CountingStrategy.RULES, cls), ResourceType.DRL);
+        return kb;
+    }
+
+    @Override
+    public String getName() {
+        return "Counting";
+    }
+
+}
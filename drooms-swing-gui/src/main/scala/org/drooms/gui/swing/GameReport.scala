@@ -2,15 +2,20 @@ package org.drooms.gui.swing
 
 import java.io.File
 
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ListBuffer
 import scala.xml.NodeSeq
 import scala.xml.XML
 
+import org.drooms.api.{ Collectible => ApiCollectible }
+import org.drooms.api.{ Node => ApiNode }
 import org.drooms.gui.swing.event.EventBusFactory
+import org.drooms.impl.BinaryReplayReader
 
 /**
  * Class that represents Drooms game report.
  *
- * Report can be loaded from XML file.
+ * Report can be loaded from XML file, or from binary replay.
  */
 class GameReport(
   val props: Map[String, String],
@@ -26,12 +31,8 @@ class GameReport(
    * Creates list of {@code TurnState}s representing states for all game turns.
    * It enable the game to be moved into particular turn very easily.
    */
-  def createTurnsStates(): List[TurnState] = {
-    val initPlayground = new PlaygroundModel(playgroundWidth, playgroundHeight, EventBusFactory.getNoOp())
-    initPlayground.emptyNodes(playgroundInit)
-    initPlayground.initWorms(wormInitPositions)
-    val initPlayers = players.map(_ -> 0).toMap
-    val initState = new TurnState(initPlayground, initPlayers)
+  def createTurnsStates(): Seq[TurnState] = {
+    val initState = createInitState()
     var turnsStates = List[TurnState]()
     turnsStates ::= initState
     var prevState = initState
@@ -43,6 +44,17 @@ class GameReport(
     turnsStates.reverse
   }
 
+  /**
+   * Creates {@code TurnState} with players at their starting positions, before the first turn.
+   */
+  protected def createInitState(): TurnState = {
+    val initPlayground = new PlaygroundModel(playgroundWidth, playgroundHeight, EventBusFactory.getNoOp())
+    initPlayground.emptyNodes(playgroundInit)
+    initPlayground.initWorms(wormInitPositions)
+    val initPlayers = players.map(_ -> 0).toMap
+    new TurnState(initPlayground, initPlayers)
+  }
+
   private def updatePlaygroundModel(turn: GameTurn, model: PlaygroundModel): PlaygroundModel = {
     val newModel = model.clone()
     for (step <- turn.steps) {
@@ -66,8 +78,38 @@ class GameReport(
   }
 }
 
+/**
+ * Game report loaded from binary replay. The turn states are not all created upfront, each of them is read
+ * from the replay when the game is moved into that turn. The replay is indexed, so that only a few turns
+ * need to be read, however long the game.
+ */
+class ReplayGameReport(
+  val replayFile: File,
+  props: Map[String, String],
+  players: List[String],
+  playgroundHeight: Int,
+  playgroundWidth: Int,
+  playgroundInit: Set[Node],
+  wormInitPositions: Set[(String, List[Node])],
+  turns: List[GameTurn],
+  results: List[(String, Int)])
+  extends GameReport(props, players, playgroundHeight, playgroundWidth, playgroundInit, wormInitPositions, turns,
+    results) {
+
+  override def createTurnsStates(): IndexedSeq[TurnState] = {
+    val initState = createInitState()
+    new IndexedSeq[TurnState] {
+      def length: Int = turns.size + 1
+      def apply(idx: Int): TurnState =
+        if (idx == 0) initState else GameReportReplayReader.readTurnState(ReplayGameReport.this, idx - 1)
+    }
+  }
+}
+
 object GameReport {
   def loadFromXml(file: File): GameReport = GameReportXmlParser.parseReport(file)
+
+  def loadFromReplay(file: File): GameReport = GameReportReplayReader.readReport(file)
 }
 
 /**
@@ -177,3 +219,141 @@ object GameReportXmlParser {
     new Node(x, y)
   }
 }
+
+/**
+ * Reader of game reports from binary replays, written by the game next to (or instead of) the XML report.
+ */
+object GameReportReplayReader {
+  def readReport(file: File): ReplayGameReport = {
+    val reader = new BinaryReplayReader(file)
+    try {
+      val props =
+        (for (entry <- reader.getConfig().asScala)
+          yield entry.getKey().toString -> entry.getValue().toString).toMap
+      val players = reader.getPlayers().asScala.toList
+      val nodes = reader.getPlayground().asScala.map(convertNode).toSet
+      val playgroundWidth = nodes.maxBy(_.x).x + 1 // numbering starts from 0 -> need to increment the max x
+      val playgroundHeight = nodes.maxBy(_.y).y + 1 // numbering starts from 0 -> need to increment the max y
+      // the turns are needed for playing the game step by step
+      val visitor = new TurnsVisitor()
+      reader.visitTurns(visitor)
+      val turns = visitor.getTurns()
+      // worm initial positions from first(0-th) turn
+      val initPositions =
+        (for (WormMoved(owner, nodes) <- turns(0).steps)
+          yield (owner, nodes)).toSet
+      // final results from the state after the last turn
+      val lastState = reader.getState(reader.getTurnCount() - 1)
+      val results = players.map(player => (player, lastState.getPlayerPoints(player)))
+      new ReplayGameReport(
+        file,
+        props,
+        players.sorted,
+        playgroundHeight,
+        playgroundWidth,
+        nodes,
+        initPositions,
+        turns,
+        results)
+    } finally {
+      reader.close()
+    }
+  }
+
+  /**
+   * Reads the state after the given turn from the replay of the report.
+   */
+  def readTurnState(report: ReplayGameReport, turnNumber: Int): TurnState = {
+    val reader = new BinaryReplayReader(report.replayFile)
+    try {
+      val state = reader.getState(turnNumber)
+      val model = new PlaygroundModel(report.playgroundWidth, report.playgroundHeight, EventBusFactory.getNoOp())
+      model.emptyNodes(report.playgroundInit)
+      for ((node, collectible) <- state.getCollectibles().asScala) {
+        model.updatePosition(convertCollectible(collectible, node))
+      }
+      val worms =
+        for (player <- report.players if state.isPlayerActive(player))
+          yield (player, state.getPlayerPosition(player).asScala.map(convertNode).toList)
+      // worms have to exist before they are moved, moving them gives the pieces their types
+      model.initWorms(worms.toSet)
+      for ((player, nodes) <- worms) {
+        model.moveWorm(player, nodes)
+      }
+      new TurnState(model, report.players.map(player => player -> state.getPlayerPoints(player)).toMap)
+    } finally {
+      reader.close()
+    }
+  }
+
+  /**
+   * Collects the steps of the turns as they are read from the replay. The steps within a turn are ordered
+   * the same way as when parsed from XML report.
+   */
+  private class TurnsVisitor extends BinaryReplayReader.Visitor {
+    private val turns = ListBuffer[GameTurn]()
+    private val steps = ListBuffer[TurnStep]()
+    private var inTurn = false
+
+    def getTurns(): List[GameTurn] = {
+      finishTurn()
+      turns.toList
+    }
+
+    private def finishTurn(): Unit = {
+      if (inTurn) {
+        turns += new GameTurn(turns.size, steps.toList.sortBy(stepOrder))
+        steps.clear()
+        inTurn = false
+      }
+    }
+
+    private def stepOrder(step: TurnStep): Int = step match {
+      case WormMoved(_, _) => 0
+      case WormCrashed(_) => 1
+      case WormDeactivated(_) => 2
+      case WormSurvived(_, _) => 3
+      case CollectibleAdded(_) => 4
+      case CollectibleRemoved(_) => 5
+      case CollectibleCollected(_, _) => 6
+    }
+
+    override def nextTurn(): Unit = {
+      finishTurn()
+      inTurn = true
+    }
+
+    override def playerMoved(p: String, nodes: ApiNode*): Unit = {
+      steps += new WormMoved(p, nodes.map(convertNode).toList)
+    }
+
+    override def playerCrashed(p: String): Unit = {
+      steps += new WormCrashed(p)
+    }
+
+    override def playerDeactivated(p: String): Unit = {
+      steps += new WormDeactivated(p)
+    }
+
+    override def playerSurvived(p: String, points: Int): Unit = {
+      steps += new WormSurvived(p, points)
+    }
+
+    override def collectibleAdded(c: ApiCollectible, where: ApiNode): Unit = {
+      steps += new CollectibleAdded(convertCollectible(c, where))
+    }
+
+    override def collectibleRemoved(c: ApiCollectible, where: ApiNode): Unit = {
+      steps += new CollectibleRemoved(convertCollectible(c, where))
+    }
+
+    override def collectibleCollected(c: ApiCollectible, p: String, where: ApiNode, points: Int): Unit = {
+      steps += new CollectibleCollected(p, convertCollectible(c, where))
+    }
+  }
+
+  private def convertNode(node: ApiNode): Node = new Node(node.getX(), node.getY())
+
+  private def convertCollectible(c: ApiCollectible, where: ApiNode): Collectible =
+    new Collectible(convertNode(where), c.expiresInTurn(), c.getPoints())
+}
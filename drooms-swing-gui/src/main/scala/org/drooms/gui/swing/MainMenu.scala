@@ -139,23 +139,26 @@ class MainMenu extends MenuBar {
     openIn
   }
 
-  val xmlFileFilter = new FileFilter() {
-    // filter files, because the reports are saved in XML
+  val reportFileFilter = new FileFilter() {
+    // filter files, because the reports are saved in XML or as binary replays
     override def accept(f: File): Boolean = {
-      f.getPath().endsWith(".xml") || f.isDirectory()
+      f.getPath().endsWith(".xml") || f.getPath().endsWith(".replay") || f.isDirectory()
     }
-    override def getDescription() = "XML report file"
+    override def getDescription() = "XML report or replay file"
   }
   
   def openGameReport(): Unit = {
     val fileChooser = new FileChooser(lastUsedDir)
-    fileChooser.fileFilter = xmlFileFilter
+    fileChooser.fileFilter = reportFileFilter
     val res = fileChooser.showOpenDialog(this)
     if (res == FileChooser.Result.Approve) {
       eventBus.publish(BeforeNewReportChosen())
       val selectedFile = fileChooser.selectedFile
       lastUsedDir = selectedFile.getParentFile()
-      val gameReport = GameReport.loadFromXml(selectedFile)
+      // replays can be seeked to any turn without creating the states of all the turns upfront
+      val gameReport =
+        if (selectedFile.getPath().endsWith(".replay")) GameReport.loadFromReplay(selectedFile)
+        else GameReport.loadFromXml(selectedFile)
       eventBus.publish(new NewGameReportChosen(gameReport, selectedFile))
       eventBus.publish(AfterNewReportChosen())
     }